@@ -0,0 +1,114 @@
+package me.pezzo.abilityPlugin.managers;
+
+import me.pezzo.abilityPlugin.enums.AbilityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CooldownManager attuale (AtomicLongArray per giocatore, indice = ordinal) contro la vecchia
+ * mappa di mappe per nome di abilità. Con {@code cooldownMillis = 0} ogni tryUse riesce (percorso di scrittura),
+ * con un'ora quasi tutti vengono rifiutati (il caso tipico: spam del tasto durante il cooldown).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CooldownBenchmark {
+
+    private static final AbilityType[] TYPES = AbilityType.values();
+
+    @Param({"100", "1000"})
+    public int players;
+
+    @Param({"0", "3600000"})
+    public long cooldownMillis;
+
+    private UUID[] ids;
+    private CooldownManager current;
+    private LegacyCooldowns legacy;
+
+    @Setup
+    public void setup() {
+        ids = new UUID[players];
+        // senza start(): niente timer né persistenza, solo la struttura dati
+        current = new CooldownManager(null);
+        legacy = new LegacyCooldowns();
+        for (int i = 0; i < players; i++) {
+            ids[i] = UUID.randomUUID();
+            for (AbilityType type : TYPES) {
+                current.tryUse(ids[i], type, cooldownMillis);
+                legacy.tryUse(ids[i], type.name(), cooldownMillis);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean arrayTryUse() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return current.tryUse(ids[rnd.nextInt(players)], TYPES[rnd.nextInt(TYPES.length)], cooldownMillis);
+    }
+
+    @Benchmark
+    public boolean legacyTryUse() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return legacy.tryUse(ids[rnd.nextInt(players)], TYPES[rnd.nextInt(TYPES.length)].name(), cooldownMillis);
+    }
+
+    @Benchmark
+    public long arrayRemaining() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return current.getRemainingMillis(ids[rnd.nextInt(players)], TYPES[rnd.nextInt(TYPES.length)]);
+    }
+
+    @Benchmark
+    public long legacyRemaining() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        return legacy.getRemainingMillis(ids[rnd.nextInt(players)], TYPES[rnd.nextInt(TYPES.length)].name());
+    }
+
+    // il CooldownManager prima del passaggio ad AtomicLongArray
+    static final class LegacyCooldowns {
+
+        private final ConcurrentMap<UUID, ConcurrentMap<String, Long>> cooldowns = new ConcurrentHashMap<>();
+
+        boolean tryUse(UUID player, String ability, long cooldownMillis) {
+            long now = System.currentTimeMillis();
+            ConcurrentMap<String, Long> map = cooldowns.computeIfAbsent(player, k -> new ConcurrentHashMap<>());
+            Long expires = map.get(ability);
+            if (expires != null && now < expires) {
+                return false;
+            }
+            map.put(ability, now + cooldownMillis);
+            return true;
+        }
+
+        long getRemainingMillis(UUID player, String ability) {
+            long now = System.currentTimeMillis();
+            Map<String, Long> map = cooldowns.get(player);
+            if (map == null) return 0;
+            Long expires = map.get(ability);
+            if (expires == null) return 0;
+            return Math.max(0, expires - now);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import me.pezzo.abilityPlugin.utils.LongHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geometria per tick degli effetti con Math.sin/cos contro FastTrig e ShapeTables:
+ * bracci, orbite e vortice del Blackhole (stesse formule di BlackholeEffect, qualità piena)
+ * e le particelle interne del Blu Hollow. Ogni benchmark gira nel proprio fork, quindi la
+ * chiamata a {@link Trig} resta monomorfica come nel codice dell'effetto.
+ * <p>
+ * Prima di misurare verifica che l'errore massimo di FastTrig resti entro quello documentato.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+    // errore massimo dichiarato nel javadoc di FastTrig
+    private static final double MAX_ERROR = 4e-4;
+
+    interface Trig {
+        double sin(double rad);
+        double cos(double rad);
+    }
+
+    private static final Trig MATH = new Trig() {
+        public double sin(double rad) { return Math.sin(rad); }
+        public double cos(double rad) { return Math.cos(rad); }
+    };
+
+    private static final Trig TABLE = new Trig() {
+        public double sin(double rad) { return FastTrig.sin(rad); }
+        public double cos(double rad) { return FastTrig.cos(rad); }
+    };
+
+    @Param({"6", "12"})
+    public double range;
+
+    private final LongHashSet out = new LongHashSet(4096);
+    private final Random rnd = new Random(42);
+    private int tick;
+
+    @Setup
+    public void checkFastTrigError() {
+        double maxSin = 0, maxCos = 0;
+        // angoli tipici degli effetti (tick * velocità) e qualche giro in negativo
+        for (int i = -2_000_000; i <= 2_000_000; i++) {
+            double rad = i * 1e-4 + i * 1e-9;
+            maxSin = Math.max(maxSin, Math.abs(FastTrig.sin(rad) - Math.sin(rad)));
+            maxCos = Math.max(maxCos, Math.abs(FastTrig.cos(rad) - Math.cos(rad)));
+        }
+        System.out.printf("FastTrig errore massimo: sin %.3e, cos %.3e%n", maxSin, maxCos);
+        if (maxSin > MAX_ERROR || maxCos > MAX_ERROR) {
+            throw new IllegalStateException("FastTrig oltre " + MAX_ERROR + ": sin " + maxSin + ", cos " + maxCos);
+        }
+        tick = 0;
+    }
+
+    @Benchmark
+    public int blackholeMath() {
+        return blackholeFrame(MATH, tick++);
+    }
+
+    @Benchmark
+    public int blackholeFastTrig() {
+        return blackholeFrame(TABLE, tick++);
+    }
+
+    @Benchmark
+    public void bluHollowParticlesMath(Blackhole bh) {
+        double inner = range * 0.7;
+        for (int i = 0; i < 20; i++) {
+            double u = rnd.nextDouble() * 2.0 - 1.0;
+            double theta = rnd.nextDouble() * Math.PI * 2.0;
+            double r = Math.cbrt(rnd.nextDouble()) * inner;
+            bh.consume(r * Math.sqrt(1 - u * u) * Math.cos(theta));
+            bh.consume(r * u);
+            bh.consume(r * Math.sqrt(1 - u * u) * Math.sin(theta));
+        }
+        int t = tick++;
+        for (int i = 0; i < 14; i++) {
+            double ang = (t * 0.12) + (i * (Math.PI * 2) / 14);
+            bh.consume(Math.cos(ang) * (range * 0.95));
+            bh.consume(Math.sin(ang) * (range * 0.95));
+        }
+    }
+
+    @Benchmark
+    public void bluHollowParticlesTables(Blackhole bh) {
+        double inner = range * 0.7;
+        double[] ball = ShapeTables.unitBall();
+        for (int i = 0; i < 20; i++) {
+            int j = rnd.nextInt(ShapeTables.unitBallSize()) * 3;
+            bh.consume(ball[j] * inner);
+            bh.consume(ball[j + 1] * inner);
+            bh.consume(ball[j + 2] * inner);
+        }
+        double[] ring = ShapeTables.ring(14);
+        double spin = tick++ * 0.12;
+        double c = FastTrig.cos(spin), s = FastTrig.sin(spin);
+        for (int i = 0; i < 14; i++) {
+            bh.consume(ShapeTables.rotateX(ring, i, c, s) * (range * 0.95));
+            bh.consume(ShapeTables.rotateZ(ring, i, c, s) * (range * 0.95));
+        }
+    }
+
+    // bracci, orbite e vortice di un frame, come computeRotatingArmsKeys/computeFloatingOrbitKeys/computeCoreSwirlKeys
+    private int blackholeFrame(Trig trig, int tick) {
+        out.clear();
+        double radius = range;
+
+        int arms = Math.max(3, (int) Math.min(6, radius));
+        double armLen = Math.max(2.0, radius * 0.9);
+        double spin = tick * 0.08;
+        for (int a = 0; a < arms; a++) {
+            double baseAngle = (a * (2 * Math.PI / arms)) + spin;
+            for (double d = 0.6; d <= armLen; d += 0.8) {
+                double angle = baseAngle + trig.sin(tick * 0.06 + d) * 0.25;
+                out.add(key(trig.cos(angle) * d, trig.sin(d * 0.6 + tick * 0.06) * 0.6, trig.sin(angle) * d));
+            }
+        }
+
+        int totalOrbs = Math.max(8, (int) Math.min(36, Math.ceil(radius * 4)));
+        double baseRadius = Math.max(0.8, radius * 0.6);
+        for (int i = 0; i < totalOrbs; i++) {
+            double speedFactor = 0.03 + (i % 5) * 0.007;
+            double angle = (tick * speedFactor) + (i * (2 * Math.PI / totalOrbs)) + trig.sin(i * 0.37) * 0.2;
+            double pulse = 0.7 + 0.3 * trig.sin(tick * 0.02 + i);
+            double orbitR = baseRadius * (0.4 + (i % 6) * 0.08) * pulse;
+            double layerFactor = ((i % Math.max(1, totalOrbs / 6)) / (double) Math.max(1, (totalOrbs / 6)));
+            double y = ((-0.1 + layerFactor) * radius) + trig.sin(tick * (0.04 + (i % 3) * 0.01) + i * 0.5) * (radius * 0.35);
+            out.add(key(trig.cos(angle) * orbitR, y, trig.sin(angle) * orbitR));
+        }
+
+        double coreRadius = Math.max(1.0, Math.min(4.0, radius * 0.32));
+        int rings = 3 + (int) Math.floor(coreRadius);
+        for (int ring = 0; ring < rings; ring++) {
+            double ringFactor = 1.0 - (ring / (double) rings) * 0.85;
+            double ringR = coreRadius * (0.12 + ringFactor * 0.6);
+            int points = Math.max(10, (int) (12 + coreRadius * 8 * ringFactor));
+            double ringSpin = tick * (0.18 + ring * 0.06) * (ring % 2 == 0 ? 1.0 : -1.0);
+            for (int p = 0; p < points; p++) {
+                double baseAngle = (p * (2 * Math.PI / points)) + ringSpin + trig.sin(p * 0.37 + tick * 0.06) * 0.25;
+                double radiusJitter = ringR * (0.7 + 0.6 * trig.sin(tick * 0.03 + p));
+                double y = (trig.sin(tick * 0.09 + p * 0.21) * 0.18) + (ring - rings / 2.0) * 0.14;
+                out.add(key(trig.cos(baseAngle) * radiusJitter, y, trig.sin(baseAngle) * radiusJitter));
+            }
+        }
+        return out.size();
+    }
+
+    private static long key(double x, double y, double z) {
+        return BlockKeys.pack((int) Math.floor(x), 64 + (int) Math.floor(y), (int) Math.floor(z));
+    }
+}
\ No newline at end of file
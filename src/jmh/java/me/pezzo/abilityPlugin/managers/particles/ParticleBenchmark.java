@@ -0,0 +1,162 @@
+package me.pezzo.abilityPlugin.managers.particles;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un tick di particelle di un effetto inviato punto per punto contro {@link ParticleBatch}.
+ * {@code perPoint} riproduce World#spawnParticle lato server: un pacchetto per punto, poi per ogni giocatore
+ * del mondo il controllo dei 32 blocchi e un invio. {@code batched} accumula i punti, risolve i viewer una volta
+ * (con LOD e controllo del chunk) e passa a un sender che costruisce i pacchetti come {@link ProtocolParticleSender},
+ * con un invio per viewer.
+ * <p>
+ * I giocatori finti rispondono tramite Proxy: {@code batched} paga getLocation per viewer, {@code perPoint}
+ * legge le coordinate da un array come fa il server, quindi il confronto non favorisce il batch.
+ * Al setup stampa pacchetti e invii di un tick per le due versioni.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleBenchmark {
+
+    // distanza entro cui il server invia le particelle non forzate
+    private static final double SEND_RANGE2 = 32.0 * 32.0;
+    // punti dentro un box di 6 blocchi attorno al centro, come l'interno del Blu Hollow
+    private static final double SPREAD = 6.0;
+    private static final double CX = 0.5, CY = 64.0, CZ = 0.5;
+
+    @Param({"1", "10", "50"})
+    public int players;
+
+    @Param({"30", "120"})
+    public int points;
+
+    private World world;
+    private double[] playerXyz;
+    private double[] pointXyz;
+    private ParticleBatch batch;
+    private ParticleManager manager;
+    private CountingSender sender;
+
+    private long packets;
+    private long sends;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        List<Player> list = new ArrayList<>(players);
+        playerXyz = new double[players * 3];
+        for (int i = 0; i < players; i++) {
+            // fino a 48 blocchi: una parte dei giocatori resta fuori dal raggio di invio
+            double angle = rnd.nextDouble() * Math.PI * 2;
+            double dist = rnd.nextDouble() * 48.0;
+            double x = CX + Math.cos(angle) * dist, y = CY + rnd.nextDouble() * 6 - 3, z = CZ + Math.sin(angle) * dist;
+            playerXyz[i * 3] = x;
+            playerXyz[i * 3 + 1] = y;
+            playerXyz[i * 3 + 2] = z;
+            list.add(player(new Location(null, x, y, z, rnd.nextFloat() * 360f, 0f)));
+        }
+        world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] {World.class},
+                (proxy, method, args) -> method.getName().equals("getPlayers") ? list : null);
+        pointXyz = new double[points * 3];
+        for (int i = 0; i < pointXyz.length; i++) {
+            double base = i % 3 == 0 ? CX : i % 3 == 1 ? CY : CZ;
+            pointXyz[i] = base + (rnd.nextDouble() * 2 - 1) * SPREAD;
+        }
+        batch = new ParticleBatch();
+        sender = new CountingSender();
+        manager = new ParticleManager(null, sender);
+
+        Blackhole bh = new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+        packets = sends = 0;
+        perPoint(bh);
+        long legacyPackets = packets, legacySends = sends;
+        packets = sends = 0;
+        batched(bh);
+        System.out.printf("per punto: %d pacchetti, %d invii | batch: %d pacchetti, %d invii%n",
+                legacyPackets, legacySends, packets, sends);
+    }
+
+    @Benchmark
+    public void perPoint(Blackhole bh) {
+        for (int i = 0; i < points; i++) {
+            double x = pointXyz[i * 3], y = pointXyz[i * 3 + 1], z = pointXyz[i * 3 + 2];
+            double[] packet = {x, y, z, 0, 0, 0, 0, 1};
+            for (int p = 0; p < players; p++) {
+                double dx = playerXyz[p * 3] - x, dy = playerXyz[p * 3 + 1] - y, dz = playerXyz[p * 3 + 2] - z;
+                if (dx * dx + dy * dy + dz * dz > SEND_RANGE2) continue;
+                bh.consume(packet);
+                packets++;
+                sends++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void batched(Blackhole bh) {
+        sender.bh = bh;
+        for (int i = 0; i < points; i++) {
+            batch.add(Particle.END_ROD, pointXyz[i * 3], pointXyz[i * 3 + 1], pointXyz[i * 3 + 2], 1, 0, 0, 0, 0, null);
+        }
+        batch.flush(world, manager);
+    }
+
+    // come ProtocolParticleSender: un pacchetto per punto selezionato, un bundle per viewer
+    private final class CountingSender implements ParticlePacketSender {
+        Blackhole bh;
+
+        @Override
+        public int sendBundled(List<Player> viewers, ParticleBatch batch, double ratio) {
+            List<double[]> built = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                int count = batch.scaledCount(i, ratio);
+                if (count < 0) continue;
+                built.add(new double[] {batch.x(i), batch.y(i), batch.z(i),
+                        batch.offsetX(i), batch.offsetY(i), batch.offsetZ(i), batch.extra(i), count});
+            }
+            int sent = 0;
+            for (Player viewer : viewers) {
+                if (!viewer.isOnline()) continue;
+                bh.consume(built);
+                packets += built.size();
+                sends++;
+                sent++;
+            }
+            return sent;
+        }
+    }
+
+    private static Player player(Location location) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] {Player.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getLocation" -> location;
+                    case "isOnline", "isChunkSent" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package me.pezzo.abilityPlugin.utils;
+
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencil;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencilCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo per tick dell'aggiornamento di un layer di blocchi (guscio del Blackhole che segue il centro):
+ * frame nuovo, differenza con quello attuale, snapshot dei blocchi toccati e indice delle scritture in coda.
+ * {@code legacyTick} riproduce la versione con BlockKey, HashSet e mappe di Long;
+ * {@code packedTick} quella attuale con chiavi long e LongHashSet / LongObjectHashMap / LongIntHashMap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockSetBenchmark {
+
+    // il centro oscilla su 16 blocchi: gli snapshot smettono di crescere dopo il primo giro
+    private static final int PATH = 16;
+    private static final Object SNAPSHOT = new Object();
+
+    @Param({"4", "8", "12"})
+    public double radius;
+
+    private SphereStencil stencil;
+    private int tick;
+
+    private final UUID world = UUID.randomUUID();
+    private Set<BlockKey> legacyCurrent;
+    private Map<BlockKey, Object> legacySnapshots;
+    private Map<Long, Object> legacyWrites;
+
+    private LongHashSet frame;
+    private LongHashSet current;
+    private LongArrayList stale;
+    private LongObjectHashMap<Object> snapshots;
+    private LongIntHashMap writes;
+
+    @Setup
+    public void setup() {
+        stencil = SphereStencilCache.shell(radius, 0.6, 0.5);
+        int n = stencil.size();
+        legacyCurrent = new HashSet<>();
+        legacySnapshots = new HashMap<>();
+        legacyWrites = new LinkedHashMap<>();
+        frame = new LongHashSet(n);
+        current = new LongHashSet(n);
+        stale = new LongArrayList(n);
+        snapshots = new LongObjectHashMap<>(n * 2);
+        writes = new LongIntHashMap(n);
+        tick = 0;
+    }
+
+    @Benchmark
+    public int legacyTick() {
+        int cx = tick++ % PATH, cy = 64, cz = 0;
+        Set<BlockKey> target = new HashSet<>(stencil.size() * 2);
+        for (int i = 0, n = stencil.size(); i < n; i++) {
+            target.add(new BlockKey(world, cx + stencil.dx(i), cy + stencil.dy(i), cz + stencil.dz(i)));
+        }
+        Set<BlockKey> toRemove = new HashSet<>(legacyCurrent);
+        toRemove.removeAll(target);
+        for (BlockKey key : toRemove) {
+            legacyWrites.put(BlockKeys.pack(key.x, key.y, key.z), legacySnapshots.get(key));
+            legacyCurrent.remove(key);
+        }
+        for (BlockKey key : target) {
+            if (legacyCurrent.contains(key)) continue;
+            if (!legacySnapshots.containsKey(key)) legacySnapshots.put(key, SNAPSHOT);
+            legacyWrites.put(BlockKeys.pack(key.x, key.y, key.z), SNAPSHOT);
+            legacyCurrent.add(key);
+        }
+        // la coda delle scritture si svuota a ogni tick
+        int written = legacyWrites.size();
+        legacyWrites.clear();
+        return written;
+    }
+
+    @Benchmark
+    public int packedTick() {
+        int cx = tick++ % PATH, cy = 64, cz = 0;
+        frame.clear();
+        for (int i = 0, n = stencil.size(); i < n; i++) {
+            frame.add(BlockKeys.pack(cx + stencil.dx(i), cy + stencil.dy(i), cz + stencil.dz(i)));
+        }
+        stale.clear();
+        for (int i = current.firstSlot(); i >= 0; i = current.nextSlot(i)) {
+            long key = current.keyAt(i);
+            if (!frame.contains(key)) stale.add(key);
+        }
+        int slot = 0;
+        for (int i = 0, n = stale.size(); i < n; i++) {
+            long key = stale.get(i);
+            current.remove(key);
+            // l'indice punta alla scrittura in coda, il dato è lo snapshot
+            Object restore = snapshots.get(key);
+            if (restore != null) writes.put(key, slot);
+            slot++;
+        }
+        for (int i = frame.firstSlot(); i >= 0; i = frame.nextSlot(i)) {
+            long key = frame.keyAt(i);
+            if (current.contains(key)) continue;
+            if (!snapshots.containsKey(key)) snapshots.put(key, SNAPSHOT);
+            writes.put(key, slot++);
+            current.add(key);
+        }
+        int written = writes.size();
+        writes.clear();
+        return written;
+    }
+
+    // la chiave dei blocchi prima delle chiavi long
+    private static final class BlockKey {
+        final UUID world;
+        final int x, y, z;
+        BlockKey(UUID world, int x, int y, int z) {
+            this.world = world;
+            this.x = x; this.y = y; this.z = z;
+        }
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlockKey)) return false;
+            BlockKey b = (BlockKey) o;
+            return x==b.x && y==b.y && z==b.z && Objects.equals(world, b.world);
+        }
+        @Override public int hashCode() { return Objects.hash(world, x, y, z); }
+    }
+}
\ No newline at end of file
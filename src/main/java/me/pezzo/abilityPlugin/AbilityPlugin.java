@@ -3,10 +3,29 @@ package me.pezzo.abilityPlugin;
 import me.pezzo.abilityPlugin.commands.AbilityCommand;
 import me.pezzo.abilityPlugin.config.AbilityConfig;
 import me.pezzo.abilityPlugin.config.LanguageConfig;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
 import me.pezzo.abilityPlugin.listener.AbilityListener;
+import me.pezzo.abilityPlugin.listener.ChunkListener;
 import me.pezzo.abilityPlugin.listener.ProtocolPacketListener;
+import me.pezzo.abilityPlugin.listener.TickListener;
 import me.pezzo.abilityPlugin.managers.AbilityManager;
 import me.pezzo.abilityPlugin.managers.ChargingManager;
+import me.pezzo.abilityPlugin.managers.admission.AdmissionController;
+import me.pezzo.abilityPlugin.managers.blocks.BlockMutationManager;
+import me.pezzo.abilityPlugin.managers.blocks.PhantomPacketSender;
+import me.pezzo.abilityPlugin.managers.blocks.ProtocolPhantomSender;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreJournal;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreScheduler;
+import me.pezzo.abilityPlugin.managers.damage.DamageQueue;
+import me.pezzo.abilityPlugin.managers.display.DisplayManager;
+import me.pezzo.abilityPlugin.managers.entities.EntityIndex;
+import me.pezzo.abilityPlugin.managers.geometry.GeometryWorker;
+import me.pezzo.abilityPlugin.managers.particles.ParticleManager;
+import me.pezzo.abilityPlugin.managers.particles.ParticlePacketSender;
+import me.pezzo.abilityPlugin.managers.particles.ProtocolParticleSender;
+import me.pezzo.abilityPlugin.managers.quality.QualityGovernor;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectScheduler;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
 import org.bukkit.plugin.java.JavaPlugin;
 import revxrsal.commands.bukkit.BukkitCommandHandler;
 
@@ -18,18 +37,56 @@ public final class AbilityPlugin extends JavaPlugin {
     private AbilityConfig abilityConfig;
     private LanguageConfig languageConfig;
     private ChargingManager chargingManager;
+    private PerformanceConfig performanceConfig;
+    private BlockMutationManager blockMutationManager;
+    private PhantomPacketSender phantomPacketSender;
+    private RestoreJournal restoreJournal;
+    private RestoreScheduler restoreScheduler;
+    private DisplayManager displayManager;
+    private ParticleManager particleManager;
+    private QualityGovernor qualityGovernor;
+    private GeometryWorker geometryWorker;
+    private EffectScheduler effectScheduler;
+    private TaskExecutor taskExecutor;
+    private AdmissionController admissionController;
+    private EntityIndex entityIndex;
+    private DamageQueue damageQueue;
 
     @Override
     public void onEnable() {
         instance = this;
 
+        taskExecutor = TaskExecutor.create(this);
+        if (taskExecutor.isRegionThreaded()) getLogger().info("Folia rilevato: effetti eseguiti sui thread delle regioni.");
+
         languageConfig = new LanguageConfig(this);
+        performanceConfig = new PerformanceConfig(this);
+
+        blockMutationManager = new BlockMutationManager(this, performanceConfig);
+        blockMutationManager.start();
+
+        restoreJournal = new RestoreJournal(this, performanceConfig, blockMutationManager);
+        restoreJournal.open();
+
+        restoreScheduler = new RestoreScheduler(this, performanceConfig, blockMutationManager, restoreJournal);
+        restoreScheduler.start();
+
+        displayManager = new DisplayManager(this);
+        qualityGovernor = new QualityGovernor(this, performanceConfig);
+        geometryWorker = new GeometryWorker(this, performanceConfig.getGeometryThreads());
+        damageQueue = new DamageQueue(this);
+        effectScheduler = new EffectScheduler(this, performanceConfig);
+        effectScheduler.start();
+        admissionController = new AdmissionController(this, performanceConfig);
+        admissionController.start();
+        entityIndex = new EntityIndex(this);
 
         abilityConfig = new AbilityConfig(this);
         abilityManager = new AbilityManager(this, abilityConfig);
 
         chargingManager = new ChargingManager(this);
 
+        ParticlePacketSender particleSender = null;
         if (getServer().getPluginManager().getPlugin("ProtocolLib") != null) {
             try {
                 new ProtocolPacketListener(this);
@@ -37,12 +94,25 @@ public final class AbilityPlugin extends JavaPlugin {
             } catch (Throwable t) {
                 getLogger().warning("Errore registrando ProtocolLib listener: " + t.getMessage());
             }
+            try {
+                phantomPacketSender = new ProtocolPhantomSender();
+            } catch (Throwable t) {
+                getLogger().warning("render_mode packets non disponibile: " + t.getMessage());
+            }
+            try {
+                particleSender = new ProtocolParticleSender();
+            } catch (Throwable t) {
+                getLogger().warning("Bundle di particelle non disponibili: " + t.getMessage());
+            }
         } else {
             getLogger().info("ProtocolLib non trovato: uso fallback basato su eventi.");
         }
+        particleManager = new ParticleManager(this, particleSender);
 
         registerCommands();
         registerListeners();
+        restoreJournal.replayLoadedChunks();
+        displayManager.sweepLoadedWorlds();
 
         getLogger().info("========================================");
         getLogger().info("AbilityPlugin enabled!");
@@ -51,13 +121,47 @@ public final class AbilityPlugin extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        getServer().getScheduler().cancelTasks(this);
+        if (admissionController != null) admissionController.stop();
+        if (effectScheduler != null) {
+            // gli effetti interrotti passano i loro blocchi al RestoreScheduler, svuotato subito dopo
+            effectScheduler.stop();
+            int aborted = effectScheduler.cancelAll();
+            if (aborted > 0) getLogger().info("[Effects] " + aborted + " effetti attivi interrotti in chiusura.");
+        }
+        if (displayManager != null) displayManager.removeAll();
+        if (restoreScheduler != null) {
+            restoreScheduler.stop();
+            restoreScheduler.flushAll();
+        }
+        if (blockMutationManager != null) {
+            blockMutationManager.stop();
+            blockMutationManager.flushAll();
+        }
+        if (restoreJournal != null) restoreJournal.close();
+        // scrive subito i cooldown ancora in attesa di salvataggio
+        if (abilityManager != null) abilityManager.getCooldownManager().stop();
+        if (taskExecutor != null) taskExecutor.cancelAll();
+        if (geometryWorker != null) geometryWorker.shutdown();
 
         instance = null;
         abilityManager = null;
         abilityConfig = null;
         languageConfig = null;
         chargingManager = null;
+        performanceConfig = null;
+        blockMutationManager = null;
+        phantomPacketSender = null;
+        restoreJournal = null;
+        restoreScheduler = null;
+        displayManager = null;
+        particleManager = null;
+        qualityGovernor = null;
+        geometryWorker = null;
+        effectScheduler = null;
+        taskExecutor = null;
+        admissionController = null;
+        entityIndex = null;
+        damageQueue = null;
         commandHandler = null;
     }
 
@@ -81,6 +185,62 @@ public final class AbilityPlugin extends JavaPlugin {
         return chargingManager;
     }
 
+    public PerformanceConfig getPerformanceConfig() {
+        return performanceConfig;
+    }
+
+    public BlockMutationManager getBlockMutationManager() {
+        return blockMutationManager;
+    }
+
+    public PhantomPacketSender getPhantomPacketSender() {
+        return phantomPacketSender;
+    }
+
+    public RestoreJournal getRestoreJournal() {
+        return restoreJournal;
+    }
+
+    public RestoreScheduler getRestoreScheduler() {
+        return restoreScheduler;
+    }
+
+    public DisplayManager getDisplayManager() {
+        return displayManager;
+    }
+
+    public ParticleManager getParticleManager() {
+        return particleManager;
+    }
+
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+
+    public GeometryWorker getGeometryWorker() {
+        return geometryWorker;
+    }
+
+    public EffectScheduler getEffectScheduler() {
+        return effectScheduler;
+    }
+
+    public TaskExecutor getTaskExecutor() {
+        return taskExecutor;
+    }
+
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    public EntityIndex getEntityIndex() {
+        return entityIndex;
+    }
+
+    public DamageQueue getDamageQueue() {
+        return damageQueue;
+    }
+
     private void registerCommands() {
         commandHandler = BukkitCommandHandler.create(this);
         commandHandler.register(new AbilityCommand(this));
@@ -88,6 +248,8 @@ public final class AbilityPlugin extends JavaPlugin {
 
     private void registerListeners() {
         getServer().getPluginManager().registerEvents(new AbilityListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkListener(this), this);
+        getServer().getPluginManager().registerEvents(new TickListener(this), this);
     }
 
 }
\ No newline at end of file
@@ -6,6 +6,21 @@ import me.pezzo.abilityPlugin.config.AbilityConfig.ReloadResult;
 import me.pezzo.abilityPlugin.config.LanguageConfig;
 import me.pezzo.abilityPlugin.config.data.AbilityData;
 import me.pezzo.abilityPlugin.enums.AbilityType;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+import me.pezzo.abilityPlugin.managers.CooldownManager;
+import me.pezzo.abilityPlugin.managers.admission.AdmissionController;
+import me.pezzo.abilityPlugin.managers.blocks.BlockMutationManager;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreJournal;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreScheduler;
+import me.pezzo.abilityPlugin.managers.damage.DamageQueue;
+import me.pezzo.abilityPlugin.managers.entities.EntityIndex;
+import me.pezzo.abilityPlugin.managers.entities.PullSolver;
+import me.pezzo.abilityPlugin.managers.geometry.GeometryWorker;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencilCache;
+import me.pezzo.abilityPlugin.managers.particles.ParticleManager;
+import me.pezzo.abilityPlugin.managers.quality.QualityGovernor;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectScheduler;
+import me.pezzo.abilityPlugin.managers.storage.CooldownPersistence;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -72,6 +87,7 @@ public record AbilityCommand(AbilityPlugin plugin) {
 
             LanguageConfig.ReloadResult langResult = langCfg.reload();
             ReloadResult abilityResult = cfg.reload();
+            plugin.getPerformanceConfig().reload();
 
             sender.sendMessage(langCfg.format("reload.completed", null));
 
@@ -128,4 +144,129 @@ public record AbilityCommand(AbilityPlugin plugin) {
             plugin.getLogger().severe("Errore durante reload abilità/lang: " + e.getMessage());
         }
     }
+
+    @Subcommand("stats")
+    @CommandPermission("tability.command.stats")
+    public void stats(CommandSender sender) {
+        BlockMutationManager blocks = plugin.getBlockMutationManager();
+        sender.sendMessage("========================================");
+        sender.sendMessage("§6Blocchi §7- coda: §f" + blocks.getQueueDepth()
+                + " §7(chunk: §f" + blocks.getPendingChunks() + "§7)");
+        sender.sendMessage("§6Blocchi §7- applicati ultimo tick: §f" + blocks.getLastAppliedPerTick()
+                + " §7/ budget: §f" + plugin.getPerformanceConfig().getMaxBlocksPerTick()
+                + " §7blocchi, §f" + plugin.getPerformanceConfig().getMaxMillisPerTick() + "ms");
+        sender.sendMessage("§6Blocchi §7- totali: §f" + blocks.getTotalApplied()
+                + " §7fusi: §f" + blocks.getTotalCoalesced()
+                + " §7tick con residuo: §f" + blocks.getCarriedOverTicks());
+        sender.sendMessage("§6Blocchi §7- chunk non caricati: saltati §f" + blocks.getTotalSkipped()
+                + " §7rimandati §f" + blocks.getTotalDeferred() + " §7(in attesa: §f" + blocks.getDeferredPending() + "§7)");
+        RestoreScheduler restores = plugin.getRestoreScheduler();
+        sender.sendMessage("§6Ripristino §7- in attesa: §f" + restores.getPendingBlocks()
+                + " §7(chunk: §f" + restores.getPendingChunks() + "§7) ultimo tick: §f" + restores.getLastSubmittedPerTick()
+                + " §7/ budget: §f" + plugin.getPerformanceConfig().getMaxRestoresPerTick());
+        sender.sendMessage("§6Display §7- attivi: §f" + plugin.getDisplayManager().getLiveCount()
+                + " §7creati: §f" + plugin.getDisplayManager().getTotalSpawned()
+                + " §7orfani rimossi: §f" + plugin.getDisplayManager().getTotalOrphansRemoved());
+        ParticleManager particles = plugin.getParticleManager();
+        sender.sendMessage("§6Particelle §7- punti: §f" + particles.getTotalPoints()
+                + " §7flush: §f" + particles.getTotalFlushes()
+                + " §7pacchetti: §f" + particles.getTotalPackets()
+                + " §7bundle: §f" + (particles.isBundling() ? particles.getTotalBundles() : "off"));
+        sender.sendMessage("§6Particelle §7- tagliate dal LOD: §f" + particles.getTotalLodDropped()
+                + " §7viewer esclusi: §f" + particles.getTotalCulledViewers());
+        QualityGovernor governor = plugin.getQualityGovernor();
+        sender.sendMessage("§6Qualità §7- livello: §f" + governor.getLevel()
+                + String.format(" §7mspt medio: §f%.1f", governor.getAverageMspt())
+                + " §7declassamenti: §f" + governor.getDowngrades());
+        EffectScheduler effects = plugin.getEffectScheduler();
+        if (effects.isRegional()) {
+            sender.sendMessage("§6Effetti §7- attivi: §f" + effects.getLiveCount()
+                    + " §7giocatori: §f" + effects.getRegistry().getOwnerCount()
+                    + " §7chunk: §f" + effects.getRegistry().getChunkCount()
+                    + " §7(thread delle regioni) cambi di regione: §f" + effects.getTotalMigrated()
+                    + " §7interrotti: §f" + effects.getTotalAborted()
+                    + " §7errori: §f" + effects.getTotalFailed());
+        } else {
+            sender.sendMessage("§6Effetti §7- attivi: §f" + effects.getLiveCount()
+                    + " §7giocatori: §f" + effects.getRegistry().getOwnerCount()
+                    + " §7chunk: §f" + effects.getRegistry().getChunkCount()
+                    + String.format(" §7ultimo tick: §f%.2fms", effects.getLastTickMillis())
+                    + " §7rimandati: §f" + effects.getTotalDeferred()
+                    + " §7interrotti: §f" + effects.getTotalAborted()
+                    + " §7errori: §f" + effects.getTotalFailed());
+        }
+        for (Map.Entry<String, EffectScheduler.Timing> e : effects.getTimings().entrySet()) {
+            EffectScheduler.Timing t = e.getValue();
+            sender.sendMessage(String.format("  §7%s: §f%.0fµs §7medio, §f%.0fµs §7max (§f%d §7tick)",
+                    e.getKey(), t.getAverageMicros(), t.getMaxMicros(), t.getRuns()));
+        }
+        AdmissionController admission = plugin.getAdmissionController();
+        sender.sendMessage(String.format("§6Ammissione §7- carico: §f%.0f§7/§f%.0f §7(picco §f%.0f§7) effetti: §f%d §7in coda: §f%d",
+                admission.getGlobalLoad(), plugin.getPerformanceConfig().getAdmissionMaxGlobalCost(), admission.getPeakGlobalLoad(),
+                admission.getActiveCount(), admission.getQueuedCount())
+                + " §7ammessi: §f" + admission.getTotalAdmitted()
+                + " §7accodati: §f" + admission.getTotalQueued()
+                + " §7rifiutati: §f" + admission.getTotalRejected()
+                + " §7scaduti: §f" + admission.getTotalTimedOut());
+        for (Map.Entry<String, Double> e : admission.getWorldLoads().entrySet()) {
+            sender.sendMessage(String.format("  §7%s: §f%.0f§7/§f%.0f", e.getKey(), e.getValue(),
+                    plugin.getPerformanceConfig().getAdmissionMaxWorldCost()));
+        }
+        GeometryWorker geometry = plugin.getGeometryWorker();
+        sender.sendMessage("§6Geometria §7- thread: §f" + (geometry.isParallel() ? geometry.getThreads() : "main")
+                + " §7frame precalcolati: §f" + geometry.getTotalSubmitted()
+                + " §7attese: §f" + geometry.getTotalWaited());
+        sender.sendMessage("§6Stencil §7- in cache: §f" + SphereStencilCache.size()
+                + " §7hit: §f" + SphereStencilCache.getHits() + " §7miss: §f" + SphereStencilCache.getMisses());
+        EntityIndex entities = plugin.getEntityIndex();
+        sender.sendMessage("§6Entità §7- indice: §f" + (entities.isDirect() ? "getNearbyEntities (Folia)" : entities.getLastIndexed() + " §7indicizzate nell'ultimo tick")
+                + " §7chunk letti: §f" + entities.getTotalRebuilds()
+                + " §7query: §f" + entities.getTotalQueries()
+                + " §7candidate: §f" + entities.getTotalCandidates());
+        sender.sendMessage("§6Attrazione §7- passaggi: §f" + PullSolver.getTotalPasses()
+                + " §7calcolate: §f" + PullSolver.getTotalComputed()
+                + " §7inviate: §f" + PullSolver.getTotalSent());
+        CooldownManager cooldowns = plugin.getAbilityManager().getCooldownManager();
+        CooldownPersistence persistence = cooldowns.getPersistence();
+        sender.sendMessage("§6Cooldown §7- giocatori: §f" + cooldowns.getTrackedPlayers()
+                + " §7usciti in attesa di scadenza: §f" + cooldowns.getDepartedPlayers()
+                + (persistence == null ? " §7salvataggio: §fdisattivato" : " §7salvataggio: §f" + persistence.getBackend()
+                        + " §7da scrivere: §f" + persistence.getDirtyCount()
+                        + " §7scritture: §f" + persistence.getTotalWrites() + " §7in §f" + persistence.getTotalBatches() + " §7batch"
+                        + " §7letture: §f" + persistence.getTotalLoads()
+                        + " §7errori: §f" + persistence.getTotalFailures()));
+        DamageQueue damage = plugin.getDamageQueue();
+        sender.sendMessage("§6Danni §7- colpi accodati: §f" + damage.getTotalSubmitted()
+                + " §7applicati: §f" + damage.getTotalApplied()
+                + " §7passaggi: §f" + damage.getTotalFlushes());
+        RestoreJournal journal = plugin.getRestoreJournal();
+        if (journal.isEnabled()) {
+            sender.sendMessage("§6Journal §7- usato: §f" + journal.getUsedBytes() / 1024 + "KB §7/ §f" + journal.getCapacityBytes() / 1024
+                    + "KB §7sessioni aperte: §f" + journal.getOpenSessions()
+                    + " §7da ripristinare: §f" + journal.getPendingReplay());
+        } else {
+            sender.sendMessage("§6Journal §7- disattivato");
+        }
+        sender.sendMessage("========================================");
+    }
+
+    @Subcommand("quality")
+    @CommandPermission("tability.command.quality")
+    public void quality(CommandSender sender) {
+        QualityGovernor governor = plugin.getQualityGovernor();
+        QualityLevel level = governor.getLevel();
+        sender.sendMessage("========================================");
+        sender.sendMessage("§6Qualità effetti §7- livello: §f" + level
+                + (plugin.getPerformanceConfig().isGovernorEnabled() ? "" : " §7(governor disattivato)"));
+        sender.sendMessage("§6Qualità §7- densità: §f" + Math.round(level.getDensity() * 100) + "%"
+                + " §7aggiornamento ogni §f" + level.getFrameInterval() + " §7tick");
+        sender.sendMessage(String.format("§6Qualità §7- mspt medio: §f%.1f", governor.getAverageMspt()));
+        sender.sendMessage("§6Qualità §7- declassamenti: §f" + governor.getDowngrades()
+                + " §7recuperi: §f" + governor.getUpgrades()
+                + " §7livello peggiore: §f" + governor.getWorstLevel());
+        long last = governor.getLastChangeMillis();
+        sender.sendMessage("§6Qualità §7- ultimo cambio: §f"
+                + (last == 0 ? "mai" : ((System.currentTimeMillis() - last) / 1000) + "s fa"));
+        sender.sendMessage("========================================");
+    }
 }
\ No newline at end of file
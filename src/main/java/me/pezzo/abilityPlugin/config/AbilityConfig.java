@@ -6,6 +6,10 @@ import me.pezzo.abilityPlugin.config.data.ability.BlackholeData;
 import me.pezzo.abilityPlugin.config.data.ability.DashData;
 import me.pezzo.abilityPlugin.config.data.ability.LeechFieldData;
 import me.pezzo.abilityPlugin.config.data.ability.BluHollowData;
+import me.pezzo.abilityPlugin.enums.AnimationBackend;
+import me.pezzo.abilityPlugin.enums.RenderMode;
+import me.pezzo.abilityPlugin.managers.entities.TargetFilter;
+import me.pezzo.abilityPlugin.managers.particles.ParticleLod;
 import org.bukkit.Material;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -114,6 +118,8 @@ public class AbilityConfig {
                                 parseMaterial(cfg.getString("item", "RED_DYE"), Material.RED_DYE),
                                 cfg.getDouble("damage", 4.0),
                                 cfg.getDouble("range", 20.0),
+                                parseRenderMode(cfg.getString("render_mode", "world"), f.getName()),
+                                parseAnimationBackend(cfg.getString("animation_backend", "blocks"), f.getName()),
                                 cfg.getLong("cooldown", 180000)
                         );
                         abilities.put(key, blackholeData);
@@ -144,12 +150,27 @@ public class AbilityConfig {
                                 cfg.getInt("duration_ticks", 120),
                                 cfg.getBoolean("destroy_blocks", true),
                                 cfg.getDouble("anchor_distance", 7.0), // nuovo parametro configurabile
+                                parseRenderMode(cfg.getString("render_mode", "world"), f.getName()),
                                 cfg.getLong("cooldown", 240000)
                         );
                         abilities.put(key, blu);
                     }
                     default -> plugin.getLogger().info("File abilità non riconosciuto (ignorato): " + f.getName());
                 }
+                AbilityData loaded = abilities.get(key);
+                if (loaded != null) {
+                    loaded.setParticleLod(ParticleLod.parse(
+                            cfg.getStringList("particle_lod.tiers"),
+                            cfg.getDouble("particle_lod.behind_ratio", 0.5),
+                            f.getName(),
+                            plugin.getLogger()));
+                    // senza sezione targets: il Blackhole attira tutto, gli altri colpiscono solo entità vive
+                    loaded.setTargetFilter(TargetFilter.parse(
+                            cfg.getConfigurationSection("targets"),
+                            key.equals("blackhole") ? TargetFilter.ALL : TargetFilter.LIVING,
+                            f.getName(),
+                            plugin.getLogger()));
+                }
             } catch (Exception e) {
                 plugin.getLogger().warning("Errore caricando " + f.getName() + ": " + e.getMessage());
             }
@@ -166,6 +187,24 @@ public class AbilityConfig {
         }
     }
 
+    private RenderMode parseRenderMode(String raw, String fileName) {
+        RenderMode mode = RenderMode.parse(raw, null);
+        if (mode == null) {
+            plugin.getLogger().warning("render_mode non valido in " + fileName + ": '" + raw + "'. Uso WORLD");
+            return RenderMode.WORLD;
+        }
+        return mode;
+    }
+
+    private AnimationBackend parseAnimationBackend(String raw, String fileName) {
+        AnimationBackend backend = AnimationBackend.parse(raw, null);
+        if (backend == null) {
+            plugin.getLogger().warning("animation_backend non valido in " + fileName + ": '" + raw + "'. Uso BLOCKS");
+            return AnimationBackend.BLOCKS;
+        }
+        return backend;
+    }
+
     private void createDefaultDashConfig(File file) {
         if (file.exists()) return;
         YamlConfiguration config = new YamlConfiguration();
@@ -175,6 +214,7 @@ public class AbilityConfig {
         config.set("boost", 4.0);
         // Imposto il cooldown di default a 60 secondi (60000 ms) come richiesto
         config.set("cooldown", 60000);
+        setDefaultParticleLod(config);
         try { config.save(file); } catch (IOException e) { plugin.getLogger().severe("Impossibile creare il file dash.yml: " + e.getMessage()); }
     }
 
@@ -186,7 +226,12 @@ public class AbilityConfig {
         config.set("item", "RED_DYE");
         config.set("damage", 4.0);
         config.set("range", 20.0);
+        config.set("render_mode", "world"); // world | packets (packets richiede ProtocolLib)
+        config.set("animation_backend", "blocks"); // blocks | displays (nucleo e orbite come BlockDisplay)
         config.set("cooldown", 180000);
+        setDefaultParticleLod(config);
+        // attira anche gli oggetti a terra, ma non sfere di esperienza e proiettili
+        setDefaultTargets(config, false, List.of("EXPERIENCE_ORB", "ARROW", "SPECTRAL_ARROW", "TRIDENT", "ARMOR_STAND"));
         try { config.save(file); } catch (IOException e) { plugin.getLogger().severe("Impossibile creare il file blackhole.yml: " + e.getMessage()); }
     }
 
@@ -203,6 +248,8 @@ public class AbilityConfig {
         config.set("knockback_reduce", 0.0);
         config.set("slowness_level", 1);
         config.set("cooldown", 45000);
+        setDefaultParticleLod(config);
+        setDefaultTargets(config, true, List.of("ARMOR_STAND"));
         try { config.save(file); } catch (IOException e) { plugin.getLogger().severe("Impossibile creare il file leechfield.yml: " + e.getMessage()); }
     }
 
@@ -218,10 +265,29 @@ public class AbilityConfig {
         config.set("duration_ticks", 120);
         config.set("destroy_blocks", true);
         config.set("anchor_distance", 7.0); // default aggiunto
+        config.set("render_mode", "world"); // world | packets (packets richiede ProtocolLib)
         config.set("cooldown", 240000);
+        setDefaultParticleLod(config);
+        setDefaultTargets(config, true, List.of("ARMOR_STAND"));
         try { config.save(file); } catch (IOException e) { plugin.getLogger().severe("Impossibile creare il file bluhollow.yml: " + e.getMessage()); }
     }
 
+    // "distanza:frazione" per livello; behind_ratio si applica a chi guarda altrove
+    private void setDefaultParticleLod(YamlConfiguration config) {
+        config.set("particle_lod.tiers", ParticleLod.defaultTiers());
+        config.set("particle_lod.behind_ratio", 0.5);
+    }
+
+    // allow vuota = tutti i tipi (vivi, con living_only); deny, players_only e skip_* restringono
+    private void setDefaultTargets(YamlConfiguration config, boolean livingOnly, List<String> deny) {
+        config.set("targets.living_only", livingOnly);
+        config.set("targets.players_only", false);
+        config.set("targets.allow", List.of());
+        config.set("targets.deny", deny);
+        config.set("targets.skip_tamed", false);
+        config.set("targets.skip_named", false);
+    }
+
     public synchronized ReloadResult reload() {
         plugin.getLogger().info("Ricaricamento configurazioni abilità in corso...");
         migrateFromPluginsFolder();
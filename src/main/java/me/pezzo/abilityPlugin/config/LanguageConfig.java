@@ -58,6 +58,9 @@ public class LanguageConfig {
         cfg.set("ability.used_leech", "&2Hai creato un Leech Field!");
         cfg.set("ability.cooldown", "&c{ability} in cooldown: {seconds}s");
         cfg.set("ability.load_error", "&cErrore caricamento configurazione per {ability}: {error}");
+        cfg.set("ability.admission.rejected", "&c{ability} non disponibile: troppi effetti attivi, riprova tra poco.");
+        cfg.set("ability.admission.queued", "&e{ability} in attesa: troppi effetti attivi (posizione {position}).");
+        cfg.set("ability.admission.timeout", "&c{ability} annullata: il server è ancora troppo carico.");
 
         cfg.set("ability.blackhole.phase.0", "&4Reversal");
         cfg.set("ability.blackhole.phase.1", "&cDivergence");
@@ -82,9 +85,17 @@ public class LanguageConfig {
     }
 
     public String format(String key, Map<String, String> placeholders) {
+        return format(key, null, placeholders);
+    }
+
+    /**
+     * Come {@link #format(String, Map)}, con un testo di ripiego per le chiavi aggiunte dopo
+     * la creazione del lang.yml dell'utente.
+     */
+    public String format(String key, String def, Map<String, String> placeholders) {
         if (key == null) return "";
         String raw = currentConfig == null ? null : currentConfig.getString(key, null);
-        if (raw == null) raw = "<missing:" + key + ">";
+        if (raw == null) raw = def != null ? def : "<missing:" + key + ">";
         if (placeholders != null) {
             for (Map.Entry<String, String> e : placeholders.entrySet()) {
                 raw = raw.replace("{" + e.getKey() + "}", e.getValue() == null ? "" : e.getValue());
@@ -0,0 +1,208 @@
+package me.pezzo.abilityPlugin.config;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parametri di tuning lato server (budget per tick, limiti, ecc.) letti da performance.yml.
+ * Le chiavi mancanti ricadono sui default, così i file generati da versioni precedenti restano validi.
+ */
+public class PerformanceConfig {
+
+    private final AbilityPlugin plugin;
+    private final File file;
+    private YamlConfiguration config;
+
+    private int maxBlocksPerTick;
+    private double maxMillisPerTick;
+    private int maxRestoresPerTick;
+
+    private boolean journalEnabled;
+    private long journalInitialSizeBytes;
+    private long journalMaxSizeBytes;
+    private long journalForceIntervalTicks;
+
+    private boolean governorEnabled;
+    private final EnumMap<QualityLevel, Double> governorThresholds = new EnumMap<>(QualityLevel.class);
+    private double governorHysteresisMspt;
+    private int governorDowngradeTicks;
+    private int governorUpgradeTicks;
+
+    private int geometryThreads;
+
+    private double effectMaxMillisPerTick;
+
+    private boolean admissionEnabled;
+    private boolean admissionQueue;
+    private double admissionMaxGlobalCost;
+    private double admissionMaxWorldCost;
+    private double admissionMaxAreaCost;
+    private double admissionAreaRadius;
+    private int admissionQueueTimeoutTicks;
+    private int admissionMaxQueued;
+    private final Map<String, Double> admissionWeights = new HashMap<>();
+
+    private int pullIntervalTicks;
+    private double pullMinDelta;
+    private int pullRefreshTicks;
+
+    private String cooldownStorageBackend;
+    private int cooldownFlushIntervalTicks;
+
+    public PerformanceConfig(AbilityPlugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "performance.yml");
+        if (!file.getParentFile().exists()) file.getParentFile().mkdirs();
+        reload();
+    }
+
+    private void createDefault() {
+        YamlConfiguration cfg = new YamlConfiguration();
+        cfg.set("block_mutations.max_blocks_per_tick", 1500);
+        cfg.set("block_mutations.max_millis_per_tick", 2.5);
+        cfg.set("block_restore.max_blocks_per_tick", 800);
+        cfg.set("restore_journal.enabled", true);
+        cfg.set("restore_journal.initial_size_kb", 1024);
+        cfg.set("restore_journal.max_size_mb", 64);
+        cfg.set("restore_journal.force_interval_ticks", 40);
+        cfg.set("quality_governor.enabled", true);
+        cfg.set("quality_governor.reduced_mspt", 40.0);
+        cfg.set("quality_governor.low_mspt", 45.0);
+        cfg.set("quality_governor.minimal_mspt", 50.0);
+        cfg.set("quality_governor.hysteresis_mspt", 5.0);
+        cfg.set("quality_governor.downgrade_after_ticks", 20);
+        cfg.set("quality_governor.upgrade_after_ticks", 200);
+        cfg.set("geometry_worker.threads", 2);
+        cfg.set("effect_scheduler.max_millis_per_tick", 0.0);
+        cfg.set("admission.enabled", true);
+        cfg.set("admission.overflow", "queue");
+        cfg.set("admission.max_global_cost", 40000.0);
+        cfg.set("admission.max_world_cost", 25000.0);
+        cfg.set("admission.max_area_cost", 12000.0);
+        cfg.set("admission.area_radius", 64.0);
+        cfg.set("admission.queue_timeout_ticks", 100);
+        cfg.set("admission.max_queued", 16);
+        cfg.set("admission.weights.blackhole", 1.0);
+        cfg.set("admission.weights.bluhollow", 1.0);
+        cfg.set("pull.interval_ticks", 2);
+        cfg.set("pull.min_delta", 0.08);
+        cfg.set("pull.refresh_ticks", 10);
+        cfg.set("cooldown_storage.backend", "binary");
+        cfg.set("cooldown_storage.flush_interval_ticks", 40);
+        try {
+            cfg.save(file);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Impossibile creare performance.yml di default: " + e.getMessage());
+        }
+    }
+
+    public synchronized void reload() {
+        if (!file.exists()) createDefault();
+        config = YamlConfiguration.loadConfiguration(file);
+
+        maxBlocksPerTick = Math.max(1, config.getInt("block_mutations.max_blocks_per_tick", 1500));
+        maxMillisPerTick = Math.max(0.1, config.getDouble("block_mutations.max_millis_per_tick", 2.5));
+        maxRestoresPerTick = Math.max(1, config.getInt("block_restore.max_blocks_per_tick", 800));
+
+        journalEnabled = config.getBoolean("restore_journal.enabled", true);
+        journalInitialSizeBytes = Math.max(64, config.getInt("restore_journal.initial_size_kb", 1024)) * 1024L;
+        journalMaxSizeBytes = Math.max(1, Math.min(1024, config.getInt("restore_journal.max_size_mb", 64))) * 1024L * 1024L;
+        journalForceIntervalTicks = Math.max(1, config.getInt("restore_journal.force_interval_ticks", 40));
+
+        governorEnabled = config.getBoolean("quality_governor.enabled", true);
+        double reduced = Math.max(1.0, config.getDouble("quality_governor.reduced_mspt", 40.0));
+        double low = Math.max(reduced, config.getDouble("quality_governor.low_mspt", 45.0));
+        double minimal = Math.max(low, config.getDouble("quality_governor.minimal_mspt", 50.0));
+        governorThresholds.put(QualityLevel.REDUCED, reduced);
+        governorThresholds.put(QualityLevel.LOW, low);
+        governorThresholds.put(QualityLevel.MINIMAL, minimal);
+        governorHysteresisMspt = Math.max(0.0, config.getDouble("quality_governor.hysteresis_mspt", 5.0));
+        governorDowngradeTicks = Math.max(1, config.getInt("quality_governor.downgrade_after_ticks", 20));
+        governorUpgradeTicks = Math.max(1, config.getInt("quality_governor.upgrade_after_ticks", 200));
+
+        // letto solo all'avvio: il pool non viene ricreato con /reload
+        geometryThreads = Math.max(0, Math.min(Runtime.getRuntime().availableProcessors(), config.getInt("geometry_worker.threads", 2)));
+
+        effectMaxMillisPerTick = Math.max(0.0, config.getDouble("effect_scheduler.max_millis_per_tick", 0.0));
+
+        admissionEnabled = config.getBoolean("admission.enabled", true);
+        admissionQueue = !"reject".equalsIgnoreCase(config.getString("admission.overflow", "queue"));
+        admissionMaxGlobalCost = Math.max(1.0, config.getDouble("admission.max_global_cost", 40000.0));
+        admissionMaxWorldCost = Math.max(1.0, config.getDouble("admission.max_world_cost", 25000.0));
+        admissionMaxAreaCost = Math.max(1.0, config.getDouble("admission.max_area_cost", 12000.0));
+        admissionAreaRadius = Math.max(1.0, config.getDouble("admission.area_radius", 64.0));
+        admissionQueueTimeoutTicks = Math.max(1, config.getInt("admission.queue_timeout_ticks", 100));
+        admissionMaxQueued = Math.max(0, config.getInt("admission.max_queued", 16));
+        admissionWeights.clear();
+        if (config.isConfigurationSection("admission.weights")) {
+            for (String key : config.getConfigurationSection("admission.weights").getKeys(false)) {
+                admissionWeights.put(key.toLowerCase(Locale.ROOT), Math.max(0.0, config.getDouble("admission.weights." + key, 1.0)));
+            }
+        }
+
+        pullIntervalTicks = Math.max(1, Math.min(20, config.getInt("pull.interval_ticks", 2)));
+        pullMinDelta = Math.max(0.0, config.getDouble("pull.min_delta", 0.08));
+        pullRefreshTicks = Math.max(1, config.getInt("pull.refresh_ticks", 10));
+
+        // letti solo all'avvio, come geometry_worker.threads
+        cooldownStorageBackend = config.getString("cooldown_storage.backend", "binary");
+        cooldownFlushIntervalTicks = Math.max(1, config.getInt("cooldown_storage.flush_interval_ticks", 40));
+    }
+
+    public YamlConfiguration getConfig() {
+        return config;
+    }
+
+    public int getMaxBlocksPerTick() { return maxBlocksPerTick; }
+    public double getMaxMillisPerTick() { return maxMillisPerTick; }
+    public int getMaxRestoresPerTick() { return maxRestoresPerTick; }
+
+    public boolean isJournalEnabled() { return journalEnabled; }
+    public long getJournalInitialSizeBytes() { return journalInitialSizeBytes; }
+    public long getJournalMaxSizeBytes() { return journalMaxSizeBytes; }
+    public long getJournalForceIntervalTicks() { return journalForceIntervalTicks; }
+
+    public boolean isGovernorEnabled() { return governorEnabled; }
+    /** MSPT medio oltre cui si scende al livello dato (0 per FULL). */
+    public double getGovernorThreshold(QualityLevel level) { return governorThresholds.getOrDefault(level, 0.0); }
+    public double getGovernorHysteresisMspt() { return governorHysteresisMspt; }
+    public int getGovernorDowngradeTicks() { return governorDowngradeTicks; }
+    public int getGovernorUpgradeTicks() { return governorUpgradeTicks; }
+
+    /** Thread del pool di calcolo geometria; 0 = calcolo sul main thread. */
+    public int getGeometryThreads() { return geometryThreads; }
+
+    /** Tempo massimo per tick per gli effetti attivi; 0 = nessun limite. */
+    public double getEffectMaxMillisPerTick() { return effectMaxMillisPerTick; }
+
+    public boolean isAdmissionEnabled() { return admissionEnabled; }
+    /** true: i cast oltre il limite aspettano in coda; false: vengono rifiutati subito. */
+    public boolean isAdmissionQueue() { return admissionQueue; }
+    public double getAdmissionMaxGlobalCost() { return admissionMaxGlobalCost; }
+    public double getAdmissionMaxWorldCost() { return admissionMaxWorldCost; }
+    public double getAdmissionMaxAreaCost() { return admissionMaxAreaCost; }
+    public double getAdmissionAreaRadius() { return admissionAreaRadius; }
+    public int getAdmissionQueueTimeoutTicks() { return admissionQueueTimeoutTicks; }
+    public int getAdmissionMaxQueued() { return admissionMaxQueued; }
+    /** Moltiplicatore del costo stimato di un'abilità; 0 la esclude dai limiti. */
+    public double getAdmissionWeight(String ability) { return admissionWeights.getOrDefault(ability, 1.0); }
+
+    /** Ogni quanti tick il Blackhole ricalcola l'attrazione sulle entità. */
+    public int getPullIntervalTicks() { return pullIntervalTicks; }
+    /** Variazione minima di velocità (in blocchi/tick) perché venga inviata di nuovo. */
+    public double getPullMinDelta() { return pullMinDelta; }
+    /** Dopo quanti tick una velocità invariata viene comunque riapplicata. */
+    public int getPullRefreshTicks() { return pullRefreshTicks; }
+
+    /** binary (un file per giocatore), sqlite (cooldowns.db) o none. */
+    public String getCooldownStorageBackend() { return cooldownStorageBackend; }
+    public int getCooldownFlushIntervalTicks() { return cooldownFlushIntervalTicks; }
+}
@@ -1,5 +1,7 @@
 package me.pezzo.abilityPlugin.config.data;
 
+import me.pezzo.abilityPlugin.managers.entities.TargetFilter;
+import me.pezzo.abilityPlugin.managers.particles.ParticleLod;
 import org.bukkit.Material;
 
 public abstract class AbilityData {
@@ -7,6 +9,8 @@ public abstract class AbilityData {
     protected String lore;
     protected Material item;
     protected long cooldown;
+    protected ParticleLod particleLod = ParticleLod.DEFAULT;
+    protected TargetFilter targetFilter;
 
     public AbilityData(String name, String lore, Material item, long cooldown) {
         this.name = name;
@@ -20,4 +24,14 @@ public abstract class AbilityData {
     public String getLore() { return lore; }
     public Material getItem() { return item; }
     public long getCooldown() { return cooldown; }
+    public ParticleLod getParticleLod() { return particleLod; }
+    public TargetFilter getTargetFilter() { return targetFilter; }
+
+    public void setParticleLod(ParticleLod particleLod) {
+        this.particleLod = particleLod == null ? ParticleLod.DEFAULT : particleLod;
+    }
+
+    public void setTargetFilter(TargetFilter targetFilter) {
+        this.targetFilter = targetFilter;
+    }
 }
\ No newline at end of file
@@ -1,18 +1,26 @@
 package me.pezzo.abilityPlugin.config.data.ability;
 
 import me.pezzo.abilityPlugin.config.data.AbilityData;
+import me.pezzo.abilityPlugin.enums.AnimationBackend;
+import me.pezzo.abilityPlugin.enums.RenderMode;
 import org.bukkit.Material;
 
 public class BlackholeData extends AbilityData {
     private double damage;
     private double range;
+    private RenderMode renderMode;
+    private AnimationBackend animationBackend;
 
-    public BlackholeData(String name, String lore, Material item, double damage, double range, long cooldown) {
+    public BlackholeData(String name, String lore, Material item, double damage, double range, RenderMode renderMode, AnimationBackend animationBackend, long cooldown) {
         super(name, lore, item, cooldown);
         this.damage = damage;
         this.range = range;
+        this.renderMode = renderMode;
+        this.animationBackend = animationBackend;
     }
 
     public double getDamage() { return damage; }
     public double getRange() { return range; }
+    public RenderMode getRenderMode() { return renderMode; }
+    public AnimationBackend getAnimationBackend() { return animationBackend; }
 }
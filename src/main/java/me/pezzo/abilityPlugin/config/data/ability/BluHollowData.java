@@ -1,6 +1,7 @@
 package me.pezzo.abilityPlugin.config.data.ability;
 
 import me.pezzo.abilityPlugin.config.data.AbilityData;
+import me.pezzo.abilityPlugin.enums.RenderMode;
 import org.bukkit.Material;
 
 public class BluHollowData extends AbilityData {
@@ -10,8 +11,9 @@ public class BluHollowData extends AbilityData {
     private final int durationTicks;
     private final boolean destroyBlocks;
     private final double anchorDistance;
+    private final RenderMode renderMode;
 
-    public BluHollowData(String name, String lore, Material item, double damage, double radius, double speed, int durationTicks, boolean destroyBlocks, double anchorDistance, long cooldown) {
+    public BluHollowData(String name, String lore, Material item, double damage, double radius, double speed, int durationTicks, boolean destroyBlocks, double anchorDistance, RenderMode renderMode, long cooldown) {
         super(name, lore, item, cooldown);
         this.damage = damage;
         this.radius = radius;
@@ -19,6 +21,7 @@ public class BluHollowData extends AbilityData {
         this.durationTicks = durationTicks;
         this.destroyBlocks = destroyBlocks;
         this.anchorDistance = anchorDistance;
+        this.renderMode = renderMode;
     }
 
     public double getDamage() { return damage; }
@@ -27,4 +30,5 @@ public class BluHollowData extends AbilityData {
     public int getDurationTicks() { return durationTicks; }
     public boolean isDestroyBlocks() { return destroyBlocks; }
     public double getAnchorDistance() { return anchorDistance; }
+    public RenderMode getRenderMode() { return renderMode; }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package me.pezzo.abilityPlugin.enums;
+
+import java.util.Locale;
+
+public enum AnimationBackend {
+    BLOCKS, DISPLAYS;
+
+    public static AnimationBackend parse(String raw, AnimationBackend fallback) {
+        if (raw == null) return fallback;
+        try {
+            return AnimationBackend.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package me.pezzo.abilityPlugin.enums;
+
+import java.util.Locale;
+
+/**
+ * Livello di qualità globale degli effetti, scelto dal QualityGovernor in base all'MSPT.
+ * density scala il numero di punti/particelle, frameInterval ogni quanti tick si aggiorna la geometria animata.
+ */
+public enum QualityLevel {
+    FULL(1.0, 1),
+    REDUCED(0.6, 1),
+    LOW(0.35, 2),
+    MINIMAL(0.15, 4);
+
+    private final double density;
+    private final int frameInterval;
+
+    QualityLevel(double density, int frameInterval) {
+        this.density = density;
+        this.frameInterval = frameInterval;
+    }
+
+    public double getDensity() { return density; }
+    public int getFrameInterval() { return frameInterval; }
+
+    /** Numero di punti ridotto secondo la densità, mai sotto 1. */
+    public int scale(int count) {
+        return Math.max(1, (int) Math.round(count * density));
+    }
+
+    /** true se al tick dato la geometria animata va ricalcolata. */
+    public boolean isFrameTick(int tick) {
+        return tick % frameInterval == 0;
+    }
+
+    public static QualityLevel parse(String raw, QualityLevel fallback) {
+        if (raw == null) return fallback;
+        try {
+            return QualityLevel.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
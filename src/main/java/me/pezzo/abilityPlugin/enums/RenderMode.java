@@ -0,0 +1,16 @@
+package me.pezzo.abilityPlugin.enums;
+
+import java.util.Locale;
+
+public enum RenderMode {
+    WORLD, PACKETS;
+
+    public static RenderMode parse(String raw, RenderMode fallback) {
+        if (raw == null) return fallback;
+        try {
+            return RenderMode.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
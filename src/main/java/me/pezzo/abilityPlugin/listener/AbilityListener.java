@@ -11,9 +11,11 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerSwapHandItemsEvent;
 import org.bukkit.inventory.ItemStack;
@@ -94,9 +96,23 @@ public record AbilityListener(AbilityPlugin plugin) implements Listener {
         plugin.getChargingManager().cancelCharging(e.getPlayer());
     }
 
-    // Cleanup on quit
+    // On join: carica i cooldown salvati
+    @EventHandler
+    public void onJoin(PlayerJoinEvent e) {
+        plugin.getAbilityManager().getCooldownManager().load(e.getPlayer().getUniqueId());
+    }
+
+    // Cleanup on quit: gli effetti del giocatore terminano e ripristinano i blocchi
     @EventHandler
     public void onQuit(PlayerQuitEvent e) {
         plugin.getChargingManager().cancelCharging(e.getPlayer());
+        plugin.getEffectScheduler().cancelOwner(e.getPlayer().getUniqueId());
+        plugin.getAbilityManager().getCooldownManager().release(e.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onDeath(PlayerDeathEvent e) {
+        plugin.getChargingManager().cancelCharging(e.getEntity());
+        plugin.getEffectScheduler().cancelOwner(e.getEntity().getUniqueId());
     }
 }
\ No newline at end of file
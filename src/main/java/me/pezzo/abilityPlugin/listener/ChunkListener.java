@@ -0,0 +1,24 @@
+package me.pezzo.abilityPlugin.listener;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+
+public record ChunkListener(AbilityPlugin plugin) implements Listener {
+
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // ripristini rimandati perché il chunk si era scaricato durante l'effetto
+        plugin.getBlockMutationManager().onChunkLoad(event.getChunk());
+        // blocchi lasciati da effetti interrotti (crash/stop) nell'ultimo avvio
+        plugin.getRestoreJournal().onChunkLoad(event.getChunk());
+    }
+
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        // display di effetti rimasti nel chunk (non dovrebbero essere salvati, ma si controlla comunque)
+        plugin.getDisplayManager().sweep(event.getEntities());
+    }
+}
@@ -0,0 +1,14 @@
+package me.pezzo.abilityPlugin.listener;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+public record TickListener(AbilityPlugin plugin) implements Listener {
+
+    @EventHandler
+    public void onTickEnd(ServerTickEndEvent event) {
+        plugin.getQualityGovernor().onTickEnd(event.getTickDuration());
+    }
+}
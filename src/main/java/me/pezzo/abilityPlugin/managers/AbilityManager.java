@@ -6,27 +6,36 @@ import me.pezzo.abilityPlugin.config.data.ability.BlackholeData;
 import me.pezzo.abilityPlugin.config.data.ability.BluHollowData;
 import me.pezzo.abilityPlugin.config.data.ability.DashData;
 import me.pezzo.abilityPlugin.config.data.ability.LeechFieldData;
+import me.pezzo.abilityPlugin.enums.AbilityType;
+import me.pezzo.abilityPlugin.managers.admission.AdmissionController;
 import me.pezzo.abilityPlugin.managers.effects.BlackholeEffect;
 import me.pezzo.abilityPlugin.managers.effects.BluHollowEffect;
 import me.pezzo.abilityPlugin.managers.effects.DashEffect;
 import me.pezzo.abilityPlugin.managers.effects.LeechFieldEffect;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.Tickable;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
 import java.util.UUID;
 
 public class AbilityManager {
 
-    private final CooldownManager cooldownManager = new CooldownManager();
+    private final CooldownManager cooldownManager;
     private final AbilityConfig abilityConfig;
     private final AbilityPlugin plugin;
 
     public AbilityManager(AbilityPlugin plugin, AbilityConfig config) {
         this.plugin = plugin;
         this.abilityConfig = config;
+        this.cooldownManager = new CooldownManager(plugin);
+        this.cooldownManager.start();
+    }
+
+    public CooldownManager getCooldownManager() {
+        return cooldownManager;
     }
 
     public void executeDash(Player player) {
@@ -36,8 +45,8 @@ public class AbilityManager {
             player.sendMessage(plugin.getLanguageConfig().format("ability.load_error", java.util.Map.of("ability", "dash", "error", "missing")));
             return;
         }
-        if (!cooldownManager.tryUse(id, "dash", dashData.getCooldown())) {
-            long remain = cooldownManager.getRemainingMillis(id, "dash");
+        if (!cooldownManager.tryUse(id, AbilityType.DASH, dashData.getCooldown())) {
+            long remain = cooldownManager.getRemainingMillis(id, AbilityType.DASH);
             double seconds = Math.ceil(remain / 100.0) / 10.0;
             player.sendMessage(plugin.getLanguageConfig().format("ability.cooldown", java.util.Map.of("ability", "Dash", "seconds", String.valueOf(seconds))));
             return;
@@ -53,8 +62,8 @@ public class AbilityManager {
             player.sendMessage(plugin.getLanguageConfig().format("ability.load_error", java.util.Map.of("ability", "dash", "error", "missing")));
             return;
         }
-        if (!cooldownManager.tryUse(id, "dash", dashData.getCooldown())) {
-            long remain = cooldownManager.getRemainingMillis(id, "dash");
+        if (!cooldownManager.tryUse(id, AbilityType.DASH, dashData.getCooldown())) {
+            long remain = cooldownManager.getRemainingMillis(id, AbilityType.DASH);
             double seconds = Math.ceil(remain / 100.0) / 10.0;
             player.sendMessage(plugin.getLanguageConfig().format("ability.cooldown", java.util.Map.of("ability", "Dash", "seconds", String.valueOf(seconds))));
             return;
@@ -73,25 +82,38 @@ public class AbilityManager {
             player.sendMessage(plugin.getLanguageConfig().format("ability.load_error", java.util.Map.of("ability", "blackhole", "error", "missing")));
             return;
         }
-        if (!cooldownManager.tryUse(id, "blackhole", blackholeData.getCooldown())) {
-            long remain = cooldownManager.getRemainingMillis(id, "blackhole");
-            double seconds = Math.ceil(remain / 100.0) / 10.0;
-            player.sendMessage(plugin.getLanguageConfig().format("ability.cooldown", java.util.Map.of("ability", "Blackhole", "seconds", String.valueOf(seconds))));
+        if (cooldownManager.getRemainingMillis(id, AbilityType.BLACKHOLE) > 0) {
+            sendCooldown(player, AbilityType.BLACKHOLE, "Blackhole");
             return;
         }
+        // il cooldown parte solo quando il cast viene ammesso (subito o dalla coda)
+        plugin.getAdmissionController().request(player, "blackhole", "Blackhole",
+                BlackholeEffect.estimateBlocksPerTick(blackholeData.getRange()),
+                ticket -> startBlackhole(player, blackholeData, ticket));
+    }
 
+    private void startBlackhole(Player player, BlackholeData blackholeData, AdmissionController.Ticket ticket) {
+        if (!player.isOnline()) {
+            ticket.release();
+            return;
+        }
+        if (!cooldownManager.tryUse(player.getUniqueId(), AbilityType.BLACKHOLE, blackholeData.getCooldown())) {
+            ticket.release();
+            sendCooldown(player, AbilityType.BLACKHOLE, "Blackhole");
+            return;
+        }
 
         String p0 = plugin.getLanguageConfig().getString("ability.blackhole.phase.0", org.bukkit.ChatColor.DARK_RED + "" + org.bukkit.ChatColor.BOLD + "Reversals");
         String p1 = plugin.getLanguageConfig().getString("ability.blackhole.phase.1", org.bukkit.ChatColor.RED + "" + org.bukkit.ChatColor.BOLD + "Divergence");
         String p2 = plugin.getLanguageConfig().getString("ability.blackhole.phase.2", org.bukkit.ChatColor.RED + "" + org.bukkit.ChatColor.ITALIC + "" + org.bukkit.ChatColor.BOLD + "Positive Energy");
 
         player.sendMessage(p0);
-        new BukkitRunnable() {
+        EffectHandle phase = plugin.getEffectScheduler().schedule(player.getUniqueId(), "blackhole_phase", new Tickable() {
             int step = 0;
             @Override
-            public void run() {
+            public void tick(EffectHandle handle) {
                 if (!player.isOnline()) {
-                    cancel();
+                    handle.cancel();
                     return;
                 }
                 if (step == 1) {
@@ -107,13 +129,14 @@ public class AbilityManager {
                     } catch (Throwable ex) {
                         target = player.getLocation().add(player.getLocation().getDirection().normalize().multiply(10));
                     }
-                    new BlackholeEffect(player, target, blackholeData.getDamage(), blackholeData.getRange()).start();
-                    cancel();
+                    ticket.bind(new BlackholeEffect(player, target, blackholeData.getDamage(), blackholeData.getRange(), blackholeData.getRenderMode(), blackholeData.getAnimationBackend()).start());
+                    handle.cancel();
                     return;
                 }
                 step++;
             }
-        }.runTaskTimer(plugin, 0L, 10L);
+        }, 0L, 10L);
+        ticket.bind(phase);
     }
 
     public void executeBluHollow(Player player) {
@@ -123,10 +146,23 @@ public class AbilityManager {
             player.sendMessage(plugin.getLanguageConfig().format("ability.load_error", java.util.Map.of("ability", "bluhollow", "error", "missing")));
             return;
         }
-        if (!cooldownManager.tryUse(id, "bluhollow", blu.getCooldown())) {
-            long remain = cooldownManager.getRemainingMillis(id, "bluhollow");
-            double seconds = Math.ceil(remain / 100.0) / 10.0;
-            player.sendMessage(plugin.getLanguageConfig().format("ability.cooldown", java.util.Map.of("ability", "BluHollow", "seconds", String.valueOf(seconds))));
+        if (cooldownManager.getRemainingMillis(id, AbilityType.BLUHOLLOW) > 0) {
+            sendCooldown(player, AbilityType.BLUHOLLOW, "BluHollow");
+            return;
+        }
+        plugin.getAdmissionController().request(player, "bluhollow", "BluHollow",
+                BluHollowEffect.estimateBlocksPerTick(blu.getRadius(), blu.getSpeed(), blu.getDurationTicks()),
+                ticket -> startBluHollow(player, blu, ticket));
+    }
+
+    private void startBluHollow(Player player, BluHollowData blu, AdmissionController.Ticket ticket) {
+        if (!player.isOnline()) {
+            ticket.release();
+            return;
+        }
+        if (!cooldownManager.tryUse(player.getUniqueId(), AbilityType.BLUHOLLOW, blu.getCooldown())) {
+            ticket.release();
+            sendCooldown(player, AbilityType.BLUHOLLOW, "BluHollow");
             return;
         }
 
@@ -135,12 +171,12 @@ public class AbilityManager {
         String b2 = plugin.getLanguageConfig().getString("ability.bluhollow.phase.2", org.bukkit.ChatColor.DARK_AQUA + "" + org.bukkit.ChatColor.ITALIC + "" + org.bukkit.ChatColor.BOLD + "Negative Energy");
 
                 player.sendMessage(b0);
-        new BukkitRunnable() {
+        EffectHandle phase = plugin.getEffectScheduler().schedule(player.getUniqueId(), "bluhollow_phase", new Tickable() {
             int step = 0;
             @Override
-            public void run() {
+            public void tick(EffectHandle handle) {
                 if (!player.isOnline()) {
-                    cancel();
+                    handle.cancel();
                     return;
                 }
                 if (step == 1) {
@@ -155,13 +191,14 @@ public class AbilityManager {
                         start = player.getLocation().add(player.getLocation().getDirection().normalize().multiply(1.5));
                     }
                     Vector dir = player.getLocation().getDirection().normalize();
-                    new BluHollowEffect(player, start, dir, blu.getDamage(), blu.getRadius(), blu.getSpeed(), blu.getDurationTicks(), blu.isDestroyBlocks(), blu.getAnchorDistance()).start();
-                    cancel();
+                    ticket.bind(new BluHollowEffect(player, start, dir, blu.getDamage(), blu.getRadius(), blu.getSpeed(), blu.getDurationTicks(), blu.isDestroyBlocks(), blu.getAnchorDistance(), blu.getRenderMode()).start());
+                    handle.cancel();
                     return;
                 }
                 step++;
             }
-        }.runTaskTimer(plugin, 0L, 8L);
+        }, 0L, 8L);
+        ticket.bind(phase);
     }
 
     public void executeLeech(Player player) {
@@ -171,8 +208,8 @@ public class AbilityManager {
             player.sendMessage(plugin.getLanguageConfig().format("ability.load_error", java.util.Map.of("ability", "leechfield", "error", "missing")));
             return;
         }
-        if (!cooldownManager.tryUse(id, "leechfield", leechData.getCooldown())) {
-            long remain = cooldownManager.getRemainingMillis(id, "leechfield");
+        if (!cooldownManager.tryUse(id, AbilityType.LEECHFIELD, leechData.getCooldown())) {
+            long remain = cooldownManager.getRemainingMillis(id, AbilityType.LEECHFIELD);
             double seconds = Math.ceil(remain / 100.0) / 10.0;
             player.sendMessage(plugin.getLanguageConfig().format("ability.cooldown", java.util.Map.of("ability", "LeechField", "seconds", String.valueOf(seconds))));
             return;
@@ -180,4 +217,10 @@ public class AbilityManager {
         player.sendMessage(plugin.getLanguageConfig().getString("ability.used_leech", "&2Hai creato un Leechs Field!"));
         new LeechFieldEffect(player, leechData).start();
     }
+
+    private void sendCooldown(Player player, AbilityType ability, String displayName) {
+        long remain = cooldownManager.getRemainingMillis(player.getUniqueId(), ability);
+        double seconds = Math.ceil(remain / 100.0) / 10.0;
+        player.sendMessage(plugin.getLanguageConfig().format("ability.cooldown", java.util.Map.of("ability", displayName, "seconds", String.valueOf(seconds))));
+    }
 }
\ No newline at end of file
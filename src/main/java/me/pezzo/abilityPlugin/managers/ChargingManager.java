@@ -1,14 +1,18 @@
 package me.pezzo.abilityPlugin.managers;
 
 import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.managers.particles.ParticleBatch;
+import me.pezzo.abilityPlugin.managers.particles.ParticleLod;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.Tickable;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.ChatMessageType;
 import org.bukkit.Color;
+import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.Particle.DustOptions;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.Map;
@@ -28,10 +32,10 @@ public class ChargingManager {
         final long startTime;
         final String itemDisplayName;
         final Material itemType;
-        final BukkitRunnable task;
+        final EffectHandle task;
         int missCount = 0;
 
-        ChargingState(long startTime, String itemDisplayName, Material itemType, BukkitRunnable task) {
+        ChargingState(long startTime, String itemDisplayName, Material itemType, EffectHandle task) {
             this.startTime = startTime;
             this.itemDisplayName = itemDisplayName;
             this.itemType = itemType;
@@ -57,11 +61,17 @@ public class ChargingManager {
 
         final ChargingState[] stateRef = new ChargingState[1];
 
-        BukkitRunnable task = new BukkitRunnable() {
+        Tickable tickable = new Tickable() {
             int ticks = 0;
+            final ParticleBatch particles = new ParticleBatch(ParticleLod.forAbility("dash"));
 
             @Override
-            public void run() {
+            public void onAbort() {
+                charging.remove(id);
+            }
+
+            @Override
+            public void tick(EffectHandle handle) {
                 ticks++;
 
                 if (!player.isOnline()) {
@@ -94,21 +104,23 @@ public class ChargingManager {
                 DustOptions blue = new DustOptions(lightBlue, (float) (0.8 + 0.8 * ratio));
                 DustOptions yellow = new DustOptions(warmYellow, (float) (0.6 + 0.6 * ratio));
 
-                int count = 6 + (int) (ratio * 40);
+                int count = plugin.getQualityGovernor().getLevel().scale(6 + (int) (ratio * 40));
                 double spread = 0.6 + ratio * 1.2;
 
+                Location base = player.getLocation();
                 for (int i = 0; i < count; i++) {
                     double rx = (Math.random() - 0.5) * spread;
                     double rz = (Math.random() - 0.5) * spread;
                     double ry = 0.2 + Math.random() * 1.2;
-                    player.getWorld().spawnParticle(
+                    particles.add(
                             Particle.REDSTONE,
-                            player.getLocation().clone().add(rx, ry, rz),
+                            base.getX() + rx, base.getY() + ry, base.getZ() + rz,
                             1,
                             0, 0, 0, 0,
                             (Math.random() < 0.6) ? blue : yellow
                     );
                 }
+                particles.flush(base.getWorld());
 
                 if (ticks < MIN_TICKS_BEFORE_RELEASE) {
                     return;
@@ -138,9 +150,9 @@ public class ChargingManager {
             }
         };
 
+        EffectHandle task = plugin.getEffectScheduler().schedule(id, "charging", tickable, 1L, 1L);
         ChargingState s = new ChargingState(start, itemDisplayName, startType, task);
         stateRef[0] = s;
-        task.runTaskTimer(plugin, 1L, 1L);
         charging.put(id, s);
     }
 
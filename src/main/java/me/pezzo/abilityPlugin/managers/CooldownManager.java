@@ -1,40 +1,193 @@
 package me.pezzo.abilityPlugin.managers;
 
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.enums.AbilityType;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import me.pezzo.abilityPlugin.managers.storage.CooldownPersistence;
+import me.pezzo.abilityPlugin.managers.storage.CooldownStore;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Cooldown per giocatore: un solo array di scadenze indicizzato per {@link AbilityType#ordinal()},
+ * aggiornato con compare-and-set. Le scadenze sono in nanosecondi su un orologio monotono
+ * (0 = nessun cooldown), quindi non risentono dei cambi d'ora del sistema.
+ * I giocatori usciti vengono rimossi appena tutti i loro cooldown sono scaduti.
+ * <p>
+ * Con {@code cooldown_storage.backend} diverso da none i cooldown attivi vengono salvati in differita
+ * da {@link CooldownPersistence} e ricaricati quando il giocatore entra, così un riavvio non li azzera.
+ */
 public class CooldownManager {
 
-    private final ConcurrentMap<UUID, ConcurrentMap<String, Long>> cooldowns = new ConcurrentHashMap<>();
+    private static final AbilityType[] TYPES = AbilityType.values();
+    private static final long SWEEP_PERIOD_TICKS = 200L;
+
+    private final AbilityPlugin plugin;
+    // origine dell'orologio: le scadenze restano positive e 0 resta libero come "mai usata"
+    private final long origin = System.nanoTime() - 1;
+    private final ConcurrentHashMap<UUID, AtomicLongArray> cooldowns = new ConcurrentHashMap<>();
+    // usciti con qualche cooldown ancora attivo
+    private final Set<UUID> departed = ConcurrentHashMap.newKeySet();
+    private TaskExecutor.Task task;
+    private volatile CooldownPersistence persistence;
 
-    public boolean tryUse(UUID player, String ability, long cooldownMillis) {
-        long now = System.currentTimeMillis();
-        ConcurrentMap<String, Long> map = cooldowns.computeIfAbsent(player, k -> new ConcurrentHashMap<>());
-        Long expires = map.get(ability);
-        if (expires != null && now < expires) {
-            return false;
+    public CooldownManager(AbilityPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (task != null) return;
+        task = plugin.getTaskExecutor().runGlobalTimer(this::sweep, SWEEP_PERIOD_TICKS, SWEEP_PERIOD_TICKS);
+        PerformanceConfig config = plugin.getPerformanceConfig();
+        CooldownStore store = CooldownStore.create(plugin, config.getCooldownStorageBackend());
+        if (store != null) {
+            persistence = new CooldownPersistence(plugin, store, this::snapshot, config.getCooldownFlushIntervalTicks());
+            // dopo un reload i giocatori online non rientrano
+            for (Player player : plugin.getServer().getOnlinePlayers()) load(player.getUniqueId());
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (persistence != null) {
+            persistence.close();
+            persistence = null;
         }
-        map.put(ability, now + cooldownMillis);
-        return true;
     }
 
-    public long getRemainingMillis(UUID player, String ability) {
-        long now = System.currentTimeMillis();
-        Map<String, Long> map = cooldowns.get(player);
-        if (map == null) return 0;
-        Long expires = map.get(ability);
-        if (expires == null) return 0;
-        return Math.max(0, expires - now);
+    /** Carica in background i cooldown salvati di un giocatore appena entrato. */
+    public void load(UUID player) {
+        if (persistence != null) persistence.load(player, this::merge);
+    }
+
+    /** Avvia il cooldown se non è già attivo; false se l'abilità è ancora in cooldown. */
+    public boolean tryUse(UUID player, AbilityType ability, long cooldownMillis) {
+        AtomicLongArray expiries = cooldowns.computeIfAbsent(player, k -> new AtomicLongArray(TYPES.length));
+        int i = ability.ordinal();
+        long now = now();
+        long next = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, cooldownMillis));
+        while (true) {
+            long expires = expiries.get(i);
+            if (now < expires) return false;
+            if (expiries.compareAndSet(i, expires, next)) {
+                markDirty(player);
+                return true;
+            }
+        }
+    }
+
+    public long getRemainingMillis(UUID player, AbilityType ability) {
+        AtomicLongArray expiries = cooldowns.get(player);
+        if (expiries == null) return 0;
+        long remaining = expiries.get(ability.ordinal()) - now();
+        // arrotondato per eccesso: un cooldown attivo non risulta mai 0
+        return remaining <= 0 ? 0 : (remaining + 999_999) / 1_000_000;
+    }
+
+    /** Il giocatore è uscito: la voce sparisce ora se non ha cooldown attivi, altrimenti alla loro scadenza. */
+    public void release(UUID player) {
+        AtomicLongArray expiries = cooldowns.get(player);
+        if (expiries == null) return;
+        if (allExpired(expiries, now())) cooldowns.remove(player, expiries);
+        else departed.add(player);
     }
 
     public void clear(UUID player) {
         cooldowns.remove(player);
+        departed.remove(player);
+        markDirty(player);
     }
 
-    public void clearAbility(UUID player, String ability) {
-        Map<String, Long> map = cooldowns.get(player);
-        if (map != null) map.remove(ability);
+    public void clearAbility(UUID player, AbilityType ability) {
+        AtomicLongArray expiries = cooldowns.get(player);
+        if (expiries != null) {
+            expiries.set(ability.ordinal(), 0L);
+            markDirty(player);
+        }
     }
-}
+
+    private void markDirty(UUID player) {
+        CooldownPersistence p = persistence;
+        if (p != null) p.markDirty(player);
+    }
+
+    // cooldown attivi in millisecondi epoch, per nome di abilità: il formato salvato
+    private Map<String, Long> snapshot(UUID player) {
+        Map<String, Long> out = new HashMap<>();
+        AtomicLongArray expiries = cooldowns.get(player);
+        if (expiries == null) return out;
+        long now = now();
+        long wall = System.currentTimeMillis();
+        for (AbilityType type : TYPES) {
+            long remaining = expiries.get(type.ordinal()) - now;
+            if (remaining > 0) out.put(type.name(), wall + (remaining + 999_999) / 1_000_000);
+        }
+        return out;
+    }
+
+    // cooldown letti dallo storage: vince la scadenza più lontana, se nel frattempo il giocatore ha già usato l'abilità
+    private void merge(UUID player, Map<String, Long> saved) {
+        AtomicLongArray expiries = cooldowns.computeIfAbsent(player, k -> new AtomicLongArray(TYPES.length));
+        long now = now();
+        long wall = System.currentTimeMillis();
+        for (Map.Entry<String, Long> e : saved.entrySet()) {
+            AbilityType type;
+            try {
+                type = AbilityType.valueOf(e.getKey());
+            } catch (IllegalArgumentException ex) {
+                continue;
+            }
+            long remaining = e.getValue() - wall;
+            if (remaining <= 0) continue;
+            long target = now + TimeUnit.MILLISECONDS.toNanos(remaining);
+            int i = type.ordinal();
+            while (true) {
+                long current = expiries.get(i);
+                if (current >= target || expiries.compareAndSet(i, current, target)) break;
+            }
+        }
+    }
+
+    private void sweep() {
+        long now = now();
+        for (UUID id : departed) {
+            if (plugin.getServer().getPlayer(id) != null) {
+                // rientrato: la voce torna a essere usata normalmente
+                departed.remove(id);
+                continue;
+            }
+            AtomicLongArray expiries = cooldowns.get(id);
+            if (expiries == null || allExpired(expiries, now)) {
+                if (expiries != null) cooldowns.remove(id, expiries);
+                departed.remove(id);
+            }
+        }
+    }
+
+    private static boolean allExpired(AtomicLongArray expiries, long now) {
+        for (int i = 0; i < expiries.length(); i++) {
+            if (now < expiries.get(i)) return false;
+        }
+        return true;
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    public int getTrackedPlayers() { return cooldowns.size(); }
+    public int getDepartedPlayers() { return departed.size(); }
+    /** null se i cooldown non vengono salvati. */
+    public CooldownPersistence getPersistence() { return persistence; }
+}
\ No newline at end of file
@@ -0,0 +1,275 @@
+package me.pezzo.abilityPlugin.managers.admission;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Limite server-wide agli effetti pesanti attivi nello stesso momento.
+ * Ogni cast ha un costo (blocchi stimati per tick, vedi {@code estimateBlocksPerTick} negli effetti) e viene
+ * ammesso solo se il carico totale, quello del mondo e quello entro {@code area_radius} restano sotto i limiti.
+ * Un effetto da solo nel suo ambito viene sempre ammesso, anche se costa più del limite.
+ * Gli altri aspettano in coda (FIFO, con timeout) o vengono rifiutati, secondo {@code admission.overflow}.
+ * Il ticket si libera da solo quando l'effetto a cui è legato termina.
+ */
+public class AdmissionController {
+
+    private static final long TICK_PERIOD = 5L;
+
+    private final AbilityPlugin plugin;
+    private final PerformanceConfig config;
+
+    private final List<Ticket> active = new ArrayList<>();
+    private final ArrayDeque<Waiting> queue = new ArrayDeque<>();
+    private final Map<UUID, Double> worldLoad = new HashMap<>();
+    private TaskExecutor.Task task;
+
+    private double globalLoad = 0;
+    private double peakGlobalLoad = 0;
+    private long ticks = 0;
+    private long totalAdmitted = 0;
+    private long totalQueued = 0;
+    private long totalRejected = 0;
+    private long totalTimedOut = 0;
+
+    /** Posto riservato a un effetto in corso. */
+    public static final class Ticket {
+        private final AdmissionController owner;
+        private final String ability;
+        private final double cost;
+        private final UUID world;
+        private final double x;
+        private final double z;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile EffectHandle handle;
+
+        Ticket(AdmissionController owner, String ability, double cost, UUID world, double x, double z) {
+            this.owner = owner;
+            this.ability = ability;
+            this.cost = cost;
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+
+        /** Lega il ticket all'effetto (o alla fase) in corso: si libera quando questo termina. */
+        public void bind(EffectHandle handle) {
+            this.handle = handle;
+        }
+
+        /** Libera subito il posto, es. se il cast viene annullato prima di partire. */
+        public void release() {
+            if (owner != null && released.compareAndSet(false, true)) owner.release(this);
+        }
+
+        public String getAbility() { return ability; }
+        public double getCost() { return cost; }
+
+        boolean isFinished() {
+            EffectHandle h = handle;
+            return h != null && h.isCancelled();
+        }
+    }
+
+    private record Waiting(UUID player, Ticket ticket, String displayName, long expiresAt, Consumer<Ticket> onAdmit) { }
+
+    public AdmissionController(AbilityPlugin plugin, PerformanceConfig config) {
+        this.plugin = plugin;
+        this.config = config;
+    }
+
+    public void start() {
+        if (task != null) return;
+        task = plugin.getTaskExecutor().runGlobalTimer(this::tick, TICK_PERIOD, TICK_PERIOD);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Chiede un posto per un cast di {@code ability} con costo stimato {@code baseCost}.
+     * Se c'è posto {@code onAdmit} viene chiamato subito; altrimenti il cast va in coda (e {@code onAdmit}
+     * viene chiamato più tardi sul thread del giocatore) oppure viene rifiutato con un messaggio.
+     * Chi riceve il ticket deve legarlo all'effetto con {@link Ticket#bind} o liberarlo con {@link Ticket#release}.
+     */
+    public void request(Player player, String ability, String displayName, double baseCost, Consumer<Ticket> onAdmit) {
+        double cost = baseCost * config.getAdmissionWeight(ability);
+        if (!config.isAdmissionEnabled() || cost <= 0) {
+            onAdmit.accept(new Ticket(null, ability, 0, null, 0, 0));
+            return;
+        }
+        Location at = player.getLocation();
+        Ticket ticket = new Ticket(this, ability, cost, at.getWorld().getUID(), at.getX(), at.getZ());
+        String message = null;
+        synchronized (this) {
+            purgeFinished();
+            if (queue.isEmpty() && fits(ticket)) {
+                admit(ticket);
+            } else if (!config.isAdmissionQueue() || queue.size() >= config.getAdmissionMaxQueued()) {
+                totalRejected++;
+                message = plugin.getLanguageConfig().format("ability.admission.rejected",
+                        "&c{ability} non disponibile: troppi effetti attivi, riprova tra poco.", Map.of("ability", displayName));
+                ticket = null;
+            } else if (isQueued(player.getUniqueId(), ability)) {
+                message = plugin.getLanguageConfig().format("ability.admission.queued",
+                        "&e{ability} in attesa: troppi effetti attivi (posizione {position}).",
+                        Map.of("ability", displayName, "position", String.valueOf(positionOf(player.getUniqueId(), ability))));
+                ticket = null;
+            } else {
+                queue.addLast(new Waiting(player.getUniqueId(), ticket, displayName,
+                        ticks + config.getAdmissionQueueTimeoutTicks(), onAdmit));
+                totalQueued++;
+                message = plugin.getLanguageConfig().format("ability.admission.queued",
+                        "&e{ability} in attesa: troppi effetti attivi (posizione {position}).",
+                        Map.of("ability", displayName, "position", String.valueOf(queue.size())));
+                ticket = null;
+            }
+        }
+        if (message != null) player.sendMessage(message);
+        if (ticket != null) runAdmitted(ticket, onAdmit);
+    }
+
+    private void tick() {
+        List<Waiting> admitted = new ArrayList<>();
+        List<Waiting> expired = new ArrayList<>();
+        synchronized (this) {
+            ticks += TICK_PERIOD;
+            purgeFinished();
+            while (!queue.isEmpty()) {
+                Waiting head = queue.peekFirst();
+                if (plugin.getServer().getPlayer(head.player()) == null) {
+                    queue.pollFirst();
+                    continue;
+                }
+                if (ticks >= head.expiresAt()) {
+                    queue.pollFirst();
+                    expired.add(head);
+                    totalTimedOut++;
+                    continue;
+                }
+                // FIFO stretto: chi è davanti non viene scavalcato da cast più piccoli
+                if (!fits(head.ticket())) break;
+                queue.pollFirst();
+                admit(head.ticket());
+                admitted.add(head);
+            }
+        }
+        for (Waiting w : expired) {
+            Player player = plugin.getServer().getPlayer(w.player());
+            if (player != null) {
+                player.sendMessage(plugin.getLanguageConfig().format("ability.admission.timeout",
+                        "&c{ability} annullata: il server è ancora troppo carico.", Map.of("ability", w.displayName())));
+            }
+        }
+        for (Waiting w : admitted) {
+            Player player = plugin.getServer().getPlayer(w.player());
+            if (player == null) {
+                w.ticket().release();
+                continue;
+            }
+            plugin.getTaskExecutor().runFor(player, () -> runAdmitted(w.ticket(), w.onAdmit()), w.ticket()::release);
+        }
+    }
+
+    private void runAdmitted(Ticket ticket, Consumer<Ticket> onAdmit) {
+        try {
+            onAdmit.accept(ticket);
+        } catch (Throwable t) {
+            ticket.release();
+            throw t;
+        }
+    }
+
+    private boolean fits(Ticket t) {
+        if (active.isEmpty()) return true;
+        if (globalLoad + t.cost > config.getAdmissionMaxGlobalCost()) return false;
+        double world = worldLoad.getOrDefault(t.world, 0.0);
+        if (world > 0 && world + t.cost > config.getAdmissionMaxWorldCost()) return false;
+        double area = areaLoad(t);
+        return area == 0 || area + t.cost <= config.getAdmissionMaxAreaCost();
+    }
+
+    private double areaLoad(Ticket t) {
+        double r2 = config.getAdmissionAreaRadius() * config.getAdmissionAreaRadius();
+        double load = 0;
+        for (Ticket other : active) {
+            if (!other.world.equals(t.world)) continue;
+            double dx = other.x - t.x;
+            double dz = other.z - t.z;
+            if (dx * dx + dz * dz <= r2) load += other.cost;
+        }
+        return load;
+    }
+
+    private void admit(Ticket t) {
+        active.add(t);
+        globalLoad += t.cost;
+        worldLoad.merge(t.world, t.cost, Double::sum);
+        peakGlobalLoad = Math.max(peakGlobalLoad, globalLoad);
+        totalAdmitted++;
+    }
+
+    private synchronized void release(Ticket t) {
+        if (!active.remove(t)) return;
+        globalLoad = Math.max(0, globalLoad - t.cost);
+        double world = worldLoad.getOrDefault(t.world, 0.0) - t.cost;
+        if (world <= 1e-6) worldLoad.remove(t.world);
+        else worldLoad.put(t.world, world);
+    }
+
+    private void purgeFinished() {
+        for (Ticket t : new ArrayList<>(active)) {
+            if (t.isFinished()) t.release();
+        }
+    }
+
+    private boolean isQueued(UUID player, String ability) {
+        return positionOf(player, ability) > 0;
+    }
+
+    private int positionOf(UUID player, String ability) {
+        int i = 1;
+        for (Waiting w : queue) {
+            if (w.player().equals(player) && w.ticket().ability.equals(ability)) return i;
+            i++;
+        }
+        return 0;
+    }
+
+    public synchronized double getGlobalLoad() { return globalLoad; }
+    public synchronized double getPeakGlobalLoad() { return peakGlobalLoad; }
+    public synchronized int getActiveCount() { return active.size(); }
+    public synchronized int getQueuedCount() { return queue.size(); }
+    public synchronized long getTotalAdmitted() { return totalAdmitted; }
+    public synchronized long getTotalQueued() { return totalQueued; }
+    public synchronized long getTotalRejected() { return totalRejected; }
+    public synchronized long getTotalTimedOut() { return totalTimedOut; }
+
+    /** Carico per mondo, con il nome del mondo come chiave. */
+    public synchronized Map<String, Double> getWorldLoads() {
+        Map<String, Double> out = new HashMap<>();
+        for (Map.Entry<UUID, Double> e : worldLoad.entrySet()) {
+            World world = plugin.getServer().getWorld(e.getKey());
+            out.put(world == null ? e.getKey().toString() : world.getName(), e.getValue());
+        }
+        return Collections.unmodifiableMap(out);
+    }
+}
\ No newline at end of file
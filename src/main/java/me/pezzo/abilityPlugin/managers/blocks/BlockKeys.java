@@ -0,0 +1,31 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+/**
+ * Chiavi di blocco impacchettate in un long: x e z su 26 bit, y su 12 bit
+ * (stesso layout di BlockPos.asLong). Il mondo non fa parte della chiave:
+ * ogni effetto tiene un riferimento al proprio World.
+ */
+public final class BlockKeys {
+
+    private BlockKeys() { }
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int x(long key) { return (int) (key >> 38); }
+    public static int y(long key) { return (int) (key << 52 >> 52); }
+    public static int z(long key) { return (int) (key << 26 >> 38); }
+
+    /** Chiave del chunk (stesso layout di Chunk#getChunkKey). */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    public static long chunkOf(long key) {
+        return chunkKey(x(key) >> 4, z(key) >> 4);
+    }
+
+    public static int chunkX(long chunkKey) { return (int) chunkKey; }
+    public static int chunkZ(long chunkKey) { return (int) (chunkKey >>> 32); }
+}
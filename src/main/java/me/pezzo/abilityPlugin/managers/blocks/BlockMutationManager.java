@@ -0,0 +1,398 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import me.pezzo.abilityPlugin.utils.LongIntHashMap;
+import me.pezzo.abilityPlugin.utils.LongObjectHashMap;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coda condivisa delle scritture di blocchi fatte dagli effetti.
+ * Le scritture sulla stessa posizione vengono fuse (vince l'ultima), raggruppate per chunk
+ * e applicate a ogni tick entro un budget di blocchi/tempo; il resto passa al tick successivo.
+ * Nessuna scrittura forza il caricamento di un chunk: quelle visive su chunk non caricati
+ * vengono scartate, i ripristini vengono rimandati al ChunkLoadEvent.
+ * Su Folia la coda viene riempita da più thread di regione (metodi sincronizzati) e le scritture
+ * di ogni chunk vengono passate al thread della regione che lo possiede.
+ * I ripristini accodati a nome di una sessione del journal vengono contati per sessione finché non
+ * sono scritti nel mondo, anche mentre sono rimandati a un chunk non caricato: il journal chiude la
+ * sessione appena i suoi sono stati applicati, senza aspettare la coda intera, e mai prima.
+ */
+public class BlockMutationManager {
+
+    private final AbilityPlugin plugin;
+    private final PerformanceConfig config;
+
+    private final Map<World, LongObjectHashMap<PendingChunk>> chunksByWorld = new HashMap<>();
+    private final ArrayDeque<PendingChunk> order = new ArrayDeque<>();
+    // ripristini destinati a chunk non caricati: mondo -> chunk -> posizione -> dati e sessione
+    private final Map<World, LongObjectHashMap<LongObjectHashMap<DeferredRestore>>> deferred = new HashMap<>();
+    // sessione del journal -> ripristini non ancora applicati, in coda o rimandati
+    private final Map<Integer, Integer> outstandingBySession = new HashMap<>();
+    private TaskExecutor.Task task;
+
+    private int queueDepth = 0;
+    private int lastAppliedPerTick = 0;
+    private long totalApplied = 0;
+    private long totalCoalesced = 0;
+    private long carriedOverTicks = 0;
+    private long totalSkipped = 0;
+    private long totalDeferred = 0;
+    private int deferredPending = 0;
+
+    private record DeferredRestore(BlockData data, int session) { }
+
+    /**
+     * Scritture in coda di un singolo chunk, in ordine di arrivo. {@code index} mappa
+     * la posizione allo slot ancora da applicare, per fondere le scritture duplicate.
+     */
+    private static final class PendingChunk {
+        final World world;
+        final long chunkKey;
+        final LongIntHashMap index = new LongIntHashMap();
+        long[] keys = new long[32];
+        BlockData[] data = new BlockData[32];
+        boolean[] restore = new boolean[32];
+        int[] sessions = new int[32];
+        int head;
+        int tail;
+
+        PendingChunk(World world, long chunkKey) {
+            this.world = world;
+            this.chunkKey = chunkKey;
+        }
+
+        boolean isEmpty() { return head == tail; }
+
+        /** @return true se è una nuova posizione, false se ha sostituito una scrittura in coda */
+        boolean put(long key, BlockData d, boolean isRestore, int session) {
+            int slot = index.get(key, -1);
+            if (slot >= 0) {
+                data[slot] = d;
+                restore[slot] = isRestore;
+                sessions[slot] = session;
+                return false;
+            }
+            if (tail == keys.length) makeRoom();
+            keys[tail] = key;
+            data[tail] = d;
+            restore[tail] = isRestore;
+            sessions[tail] = session;
+            index.put(key, tail);
+            tail++;
+            return true;
+        }
+
+        private void makeRoom() {
+            int live = tail - head;
+            if (head > 0 && live <= keys.length / 2) {
+                System.arraycopy(keys, head, keys, 0, live);
+                System.arraycopy(data, head, data, 0, live);
+                System.arraycopy(restore, head, restore, 0, live);
+                System.arraycopy(sessions, head, sessions, 0, live);
+                Arrays.fill(data, live, tail, null);
+                head = 0;
+                tail = live;
+                index.clear();
+                for (int i = 0; i < live; i++) index.put(keys[i], i);
+            } else {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                data = Arrays.copyOf(data, data.length * 2);
+                restore = Arrays.copyOf(restore, restore.length * 2);
+                sessions = Arrays.copyOf(sessions, sessions.length * 2);
+            }
+        }
+
+        long peekKey() { return keys[head]; }
+        BlockData peekData() { return data[head]; }
+        boolean peekRestore() { return restore[head]; }
+        int peekSession() { return restore[head] ? sessions[head] : 0; }
+
+        /** Sessione del ripristino in coda sulla posizione, o 0. */
+        int sessionAt(long key) {
+            int slot = index.get(key, -1);
+            return slot >= 0 && restore[slot] ? sessions[slot] : 0;
+        }
+
+        BlockData restoreAt(long key) {
+            int slot = index.get(key, -1);
+            return slot >= 0 && restore[slot] ? data[slot] : null;
+        }
+
+        void pop() {
+            index.remove(keys[head]);
+            data[head] = null;
+            head++;
+        }
+    }
+
+    public BlockMutationManager(AbilityPlugin plugin, PerformanceConfig config) {
+        this.plugin = plugin;
+        this.config = config;
+    }
+
+    public void start() {
+        if (task != null) return;
+        task = plugin.getTaskExecutor().runGlobalTimer(this::tick, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Accoda la scrittura di {@code data} in (x, y, z). Una scrittura ancora in coda
+     * sulla stessa posizione viene sostituita.
+     */
+    public void submit(World world, int x, int y, int z, BlockData data) {
+        submit(world, BlockKeys.pack(x, y, z), data);
+    }
+
+    public void submit(World world, long key, BlockData data) {
+        enqueue(world, key, data, false, 0);
+    }
+
+    /**
+     * Come {@link #submit(World, long, BlockData)}, ma per il ripristino di un blocco originale:
+     * se il chunk non è caricato la scrittura viene rimandata invece che scartata.
+     */
+    public void submitRestore(World world, long key, BlockData data) {
+        enqueue(world, key, data, true, 0);
+    }
+
+    /**
+     * Ripristino a nome della sessione {@code session} del journal: viene contato finché non è
+     * applicato o sostituito da un'altra scrittura. Un ripristino rimandato continua a contare.
+     */
+    public void submitRestore(World world, long key, BlockData data, int session) {
+        enqueue(world, key, data, true, session);
+    }
+
+    /**
+     * true se il chunk della posizione è caricato, quindi leggibile/scrivibile senza caricarlo.
+     * Gli effetti lo usano prima di leggere un blocco; un false viene contato come scrittura saltata.
+     */
+    public boolean isWritable(World world, long key) {
+        if (world.isChunkLoaded(BlockKeys.x(key) >> 4, BlockKeys.z(key) >> 4)) return true;
+        synchronized (this) {
+            totalSkipped++;
+        }
+        return false;
+    }
+
+    private synchronized void enqueue(World world, long key, BlockData data, boolean isRestore, int session) {
+        if (world == null || data == null) return;
+        LongObjectHashMap<PendingChunk> chunks = chunksByWorld.computeIfAbsent(world, w -> new LongObjectHashMap<>());
+        long chunkKey = BlockKeys.chunkOf(key);
+        PendingChunk chunk = chunks.get(chunkKey);
+        if (chunk == null) {
+            chunk = new PendingChunk(world, chunkKey);
+            chunks.put(chunkKey, chunk);
+            order.addLast(chunk);
+        }
+        // il ripristino sostituito non verrà più applicato: non conta più per la sua sessione
+        release(chunk.sessionAt(key));
+        if (chunk.put(key, data, isRestore, session)) {
+            queueDepth++;
+        } else {
+            totalCoalesced++;
+        }
+        if (isRestore && session != 0) outstandingBySession.merge(session, 1, Integer::sum);
+    }
+
+    private void release(int session) {
+        if (session == 0) return;
+        outstandingBySession.computeIfPresent(session, (s, n) -> n > 1 ? n - 1 : null);
+    }
+
+    private synchronized void tick() {
+        if (order.isEmpty()) {
+            lastAppliedPerTick = 0;
+            return;
+        }
+        long deadline = System.nanoTime() + (long) (config.getMaxMillisPerTick() * 1_000_000L);
+        int applied = drain(config.getMaxBlocksPerTick(), deadline, plugin.getTaskExecutor().isRegionThreaded());
+        lastAppliedPerTick = applied;
+        if (queueDepth > 0) carriedOverTicks++;
+    }
+
+    /**
+     * Applica subito tutte le scritture in coda, ignorando il budget. Usato in onDisable,
+     * quando anche su Folia le regioni non girano più e si può scrivere dal thread corrente.
+     */
+    public synchronized void flushAll() {
+        // le scritture sono già una per posizione e raggruppate per chunk: qui si ordinano i chunk
+        List<PendingChunk> sorted = new ArrayList<>(order);
+        sorted.sort(Comparator.comparing((PendingChunk c) -> c.world.getName())
+                .thenComparingInt(c -> BlockKeys.chunkX(c.chunkKey))
+                .thenComparingInt(c -> BlockKeys.chunkZ(c.chunkKey)));
+        order.clear();
+        order.addAll(sorted);
+        int chunks = sorted.size();
+        int applied = drain(Integer.MAX_VALUE, Long.MAX_VALUE, false);
+        if (applied > 0) {
+            plugin.getLogger().info("[Blocks] flush sincrono di " + applied + " blocchi in coda (" + chunks + " chunk).");
+        }
+    }
+
+    /**
+     * @param dispatch true su Folia: le scritture di ogni chunk vengono passate in blocco
+     *                 al thread della sua regione invece di essere applicate qui
+     */
+    private int drain(int maxBlocks, long deadline, boolean dispatch) {
+        int applied = 0;
+        outer:
+        while (!order.isEmpty()) {
+            PendingChunk chunk = order.peekFirst();
+            World world = chunk.world;
+            if (!world.isChunkLoaded(BlockKeys.chunkX(chunk.chunkKey), BlockKeys.chunkZ(chunk.chunkKey))) {
+                deferOrSkip(chunk);
+            }
+            long[] keys = null;
+            BlockData[] data = null;
+            int n = 0;
+            if (dispatch && !chunk.isEmpty()) {
+                int size = Math.min(chunk.tail - chunk.head, maxBlocks - applied);
+                keys = new long[size];
+                data = new BlockData[size];
+            }
+            while (!chunk.isEmpty()) {
+                if (applied >= maxBlocks) break;
+                if ((applied & 63) == 63 && System.nanoTime() > deadline) break;
+
+                if (dispatch) {
+                    keys[n] = chunk.peekKey();
+                    data[n] = chunk.peekData();
+                    n++;
+                } else {
+                    write(world, chunk.peekKey(), chunk.peekData());
+                }
+                release(chunk.peekSession());
+                chunk.pop();
+                queueDepth--;
+                applied++;
+            }
+            if (n > 0) dispatchWrites(world, chunk.chunkKey, keys, data, n);
+            if (!chunk.isEmpty()) break outer;
+            order.pollFirst();
+            LongObjectHashMap<PendingChunk> chunks = chunksByWorld.get(world);
+            if (chunks != null) {
+                chunks.remove(chunk.chunkKey);
+                if (chunks.isEmpty()) chunksByWorld.remove(world);
+            }
+        }
+        totalApplied += applied;
+        return applied;
+    }
+
+    private void dispatchWrites(World world, long chunkKey, long[] keys, BlockData[] data, int n) {
+        plugin.getTaskExecutor().runAt(world, BlockKeys.chunkX(chunkKey), BlockKeys.chunkZ(chunkKey), () -> {
+            for (int i = 0; i < n; i++) write(world, keys[i], data[i]);
+        });
+    }
+
+    private void write(World world, long key, BlockData data) {
+        try {
+            world.getBlockAt(BlockKeys.x(key), BlockKeys.y(key), BlockKeys.z(key)).setBlockData(data, false);
+        } catch (Throwable ex) {
+            plugin.getLogger().warning("[Blocks] scrittura fallita in " + world.getName() + " "
+                    + BlockKeys.x(key) + "," + BlockKeys.y(key) + "," + BlockKeys.z(key) + ": " + ex.getMessage());
+        }
+    }
+
+    // il ripristino rimandato resta contato per la sua sessione fino a onChunkLoad
+    private void deferOrSkip(PendingChunk chunk) {
+        LongObjectHashMap<DeferredRestore> restores = null;
+        while (!chunk.isEmpty()) {
+            if (chunk.peekRestore()) {
+                if (restores == null) {
+                    LongObjectHashMap<LongObjectHashMap<DeferredRestore>> chunks = deferred.computeIfAbsent(chunk.world, w -> new LongObjectHashMap<>());
+                    restores = chunks.get(chunk.chunkKey);
+                    if (restores == null) {
+                        restores = new LongObjectHashMap<>();
+                        chunks.put(chunk.chunkKey, restores);
+                    }
+                }
+                DeferredRestore previous = restores.put(chunk.peekKey(), new DeferredRestore(chunk.peekData(), chunk.peekSession()));
+                if (previous == null) deferredPending++;
+                else release(previous.session());
+                totalDeferred++;
+            } else {
+                totalSkipped++;
+            }
+            chunk.pop();
+            queueDepth--;
+        }
+    }
+
+    /**
+     * Rimette in coda i ripristini rimandati per il chunk appena caricato.
+     */
+    public synchronized void onChunkLoad(Chunk loaded) {
+        if (deferred.isEmpty()) return;
+        World world = loaded.getWorld();
+        LongObjectHashMap<LongObjectHashMap<DeferredRestore>> chunks = deferred.get(world);
+        if (chunks == null) return;
+        LongObjectHashMap<DeferredRestore> restores = chunks.remove(BlockKeys.chunkKey(loaded.getX(), loaded.getZ()));
+        if (restores == null) return;
+        if (chunks.isEmpty()) deferred.remove(world);
+        for (int i = restores.firstSlot(); i >= 0; i = restores.nextSlot(i)) {
+            DeferredRestore r = restores.valueAt(i);
+            // torna in coda con la stessa sessione: conta lì al posto che tra i rimandati
+            enqueue(world, restores.keyAt(i), r.data(), true, r.session());
+            release(r.session());
+        }
+        deferredPending -= restores.size();
+    }
+
+    /**
+     * Ripristino ancora in coda (o rimandato) per la posizione, o null.
+     */
+    public synchronized BlockData pendingRestore(World world, long key) {
+        long chunkKey = BlockKeys.chunkOf(key);
+        LongObjectHashMap<PendingChunk> chunks = chunksByWorld.get(world);
+        if (chunks != null) {
+            PendingChunk chunk = chunks.get(chunkKey);
+            if (chunk != null) {
+                BlockData data = chunk.restoreAt(key);
+                if (data != null) return data;
+            }
+        }
+        LongObjectHashMap<LongObjectHashMap<DeferredRestore>> deferredChunks = deferred.get(world);
+        if (deferredChunks == null) return null;
+        LongObjectHashMap<DeferredRestore> restores = deferredChunks.get(chunkKey);
+        DeferredRestore r = restores == null ? null : restores.get(key);
+        return r == null ? null : r.data();
+    }
+
+    /**
+     * Ripristini della sessione non ancora scritti nel mondo, compresi quelli rimandati a un chunk non caricato.
+     */
+    public synchronized int getOutstandingRestores(int session) {
+        return outstandingBySession.getOrDefault(session, 0);
+    }
+
+    public int getQueueDepth() { return queueDepth; }
+    public int getPendingChunks() { return order.size(); }
+    public int getLastAppliedPerTick() { return lastAppliedPerTick; }
+    public long getTotalApplied() { return totalApplied; }
+    public long getTotalCoalesced() { return totalCoalesced; }
+    public long getCarriedOverTicks() { return carriedOverTicks; }
+    public long getTotalSkipped() { return totalSkipped; }
+    public long getTotalDeferred() { return totalDeferred; }
+    public int getDeferredPending() { return deferredPending; }
+}
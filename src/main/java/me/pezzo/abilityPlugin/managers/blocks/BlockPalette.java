@@ -0,0 +1,38 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * BlockData di default condivisi, uno per Material, creati al primo uso.
+ * Le istanze restituite sono condivise tra tutti gli effetti: non vanno mai modificate.
+ * L'id di palette di uno stato di default è l'ordinal del suo Material.
+ */
+public final class BlockPalette {
+
+    public static final int NO_ID = -1;
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final BlockData[] DEFAULTS = new BlockData[MATERIALS.length];
+
+    private BlockPalette() { }
+
+    public static BlockData of(Material material) {
+        BlockData data = DEFAULTS[material.ordinal()];
+        if (data == null) {
+            data = material.createBlockData();
+            DEFAULTS[material.ordinal()] = data;
+        }
+        return data;
+    }
+
+    /** Id di palette se {@code data} è lo stato di default del suo Material, altrimenti {@link #NO_ID}. */
+    public static int idOf(BlockData data) {
+        Material material = data.getMaterial();
+        return of(material).equals(data) ? material.ordinal() : NO_ID;
+    }
+
+    public static BlockData byId(int id) {
+        return of(MATERIALS[id]);
+    }
+}
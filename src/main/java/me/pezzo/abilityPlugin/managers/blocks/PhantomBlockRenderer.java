@@ -0,0 +1,165 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.utils.LongObjectHashMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Blocchi "fantasma" di un singolo effetto: esistono solo sul client dei viewer vicini.
+ * Le modifiche di un frame vengono accumulate e inviate in {@link #flush(Location)} con
+ * un pacchetto per chunk section; {@link #clear()} rimanda ai client i blocchi reali.
+ */
+public class PhantomBlockRenderer {
+
+    private final World world;
+    private final PhantomPacketSender sender;
+
+    private final LongObjectHashMap<BlockData> shown = new LongObjectHashMap<>();
+    // valore null = rimanda il blocco reale
+    private final LongObjectHashMap<BlockData> frame = new LongObjectHashMap<>();
+    private final Set<UUID> viewers = new HashSet<>();
+
+    private PhantomBlockRenderer(World world, PhantomPacketSender sender) {
+        this.world = world;
+        this.sender = sender;
+    }
+
+    /**
+     * Ritorna null se ProtocolLib non è disponibile: il chiamante deve scrivere nel mondo reale.
+     */
+    public static PhantomBlockRenderer create(World world) {
+        PhantomPacketSender sender = AbilityPlugin.getInstance().getPhantomPacketSender();
+        if (world == null || sender == null) return null;
+        return new PhantomBlockRenderer(world, sender);
+    }
+
+    public void show(long key, BlockData data) {
+        shown.put(key, data);
+        frame.put(key, data);
+    }
+
+    public void hide(long key) {
+        if (shown.remove(key) != null) frame.put(key, null);
+    }
+
+    public int getShownCount() {
+        return shown.size();
+    }
+
+    /**
+     * Invia il frame corrente. I viewer già noti ricevono solo le differenze,
+     * quelli appena entrati in range ricevono lo stato completo e quelli usciti dal range
+     * ricevono i blocchi reali prima di essere dimenticati.
+     */
+    public void flush(Location center) {
+        double range = world.getViewDistance() * 16.0;
+        double range2 = range * range;
+        List<Player> known = new ArrayList<>();
+        List<Player> fresh = new ArrayList<>();
+        Set<UUID> current = new HashSet<>();
+        for (Player p : world.getPlayers()) {
+            if (p.getLocation().distanceSquared(center) > range2) continue;
+            current.add(p.getUniqueId());
+            if (viewers.contains(p.getUniqueId())) known.add(p);
+            else fresh.add(p);
+        }
+        viewers.removeAll(current);
+        List<Player> departed = onlineViewers();
+        viewers.clear();
+        viewers.addAll(current);
+
+        if (!departed.isEmpty() && (!shown.isEmpty() || !frame.isEmpty())) sendGrouped(realStates(), departed);
+        if (!known.isEmpty() && !frame.isEmpty()) sendGrouped(frame, known);
+        if (!fresh.isEmpty() && !shown.isEmpty()) sendGrouped(shown, fresh);
+        frame.clear();
+    }
+
+    /**
+     * Rimanda i blocchi reali a chiunque abbia visto l'effetto e svuota lo stato.
+     */
+    public void clear() {
+        List<Player> targets = onlineViewers();
+        LongObjectHashMap<BlockData> real = realStates();
+        shown.clear();
+        frame.clear();
+        viewers.clear();
+        if (!targets.isEmpty() && !real.isEmpty()) sendGrouped(real, targets);
+    }
+
+    // i viewer ancora online e in questo mondo: chi ha cambiato mondo o è uscito ha già scaricato i chunk
+    private List<Player> onlineViewers() {
+        List<Player> online = new ArrayList<>();
+        for (UUID id : viewers) {
+            Player p = AbilityPlugin.getInstance().getServer().getPlayer(id);
+            if (p != null && p.isOnline() && world.equals(p.getWorld())) online.add(p);
+        }
+        return online;
+    }
+
+    // ogni blocco mostrato o nascosto in questo frame, con valore null = blocco reale
+    private LongObjectHashMap<BlockData> realStates() {
+        LongObjectHashMap<BlockData> real = new LongObjectHashMap<>();
+        for (int i = shown.firstSlot(); i >= 0; i = shown.nextSlot(i)) real.put(shown.keyAt(i), null);
+        for (int i = frame.firstSlot(); i >= 0; i = frame.nextSlot(i)) real.put(frame.keyAt(i), null);
+        return real;
+    }
+
+    private void sendGrouped(LongObjectHashMap<BlockData> changes, List<Player> to) {
+        LongObjectHashMap<SectionBatch> sections = new LongObjectHashMap<>();
+        for (int i = changes.firstSlot(); i >= 0; i = changes.nextSlot(i)) {
+            long key = changes.keyAt(i);
+            int x = BlockKeys.x(key), y = BlockKeys.y(key), z = BlockKeys.z(key);
+            BlockData data = changes.valueAt(i);
+            if (data == null) {
+                // un chunk non caricato non è nemmeno sul client: niente da ripristinare
+                if (!world.isChunkLoaded(x >> 4, z >> 4)) continue;
+                data = world.getBlockAt(x, y, z).getBlockData();
+            }
+            long sectionKey = BlockKeys.pack(x >> 4, y >> 4, z >> 4);
+            SectionBatch batch = sections.get(sectionKey);
+            if (batch == null) {
+                batch = new SectionBatch();
+                sections.put(sectionKey, batch);
+            }
+            batch.add((short) (((x & 15) << 8) | ((z & 15) << 4) | (y & 15)), data);
+        }
+        for (int i = sections.firstSlot(); i >= 0; i = sections.nextSlot(i)) {
+            long sk = sections.keyAt(i);
+            SectionBatch batch = sections.valueAt(i);
+            try {
+                sender.sendSection(to, BlockKeys.x(sk), BlockKeys.y(sk), BlockKeys.z(sk), batch.positions(), batch.data());
+            } catch (Throwable t) {
+                AbilityPlugin.getInstance().getLogger().warning("[Phantom] invio pacchetto fallito: " + t.getMessage());
+            }
+        }
+    }
+
+    private static final class SectionBatch {
+        private short[] positions = new short[16];
+        private BlockData[] data = new BlockData[16];
+        private int size;
+
+        void add(short pos, BlockData d) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                data = Arrays.copyOf(data, size * 2);
+            }
+            positions[size] = pos;
+            data[size] = d;
+            size++;
+        }
+
+        short[] positions() { return Arrays.copyOf(positions, size); }
+        BlockData[] data() { return Arrays.copyOf(data, size); }
+    }
+}
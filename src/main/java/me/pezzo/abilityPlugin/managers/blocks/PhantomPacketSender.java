@@ -0,0 +1,19 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+
+/**
+ * Invio dei cambi blocco solo lato client. L'implementazione concreta dipende da ProtocolLib
+ * ed è istanziata solo se il plugin è presente, così questa interfaccia resta caricabile senza.
+ */
+public interface PhantomPacketSender {
+
+    /**
+     * Invia un singolo pacchetto di cambio multiplo per la chunk section (sx, sy, sz).
+     * {@code positions[i]} è la posizione locale impacchettata come (x &lt;&lt; 8 | z &lt;&lt; 4 | y).
+     */
+    void sendSection(Collection<? extends Player> viewers, int sx, int sy, int sz, short[] positions, BlockData[] data);
+}
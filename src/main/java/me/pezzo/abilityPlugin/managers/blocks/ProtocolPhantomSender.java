@@ -0,0 +1,37 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.BlockPosition;
+import com.comphenix.protocol.wrappers.WrappedBlockData;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+
+/**
+ * Costruisce un MULTI_BLOCK_CHANGE per chunk section e lo invia ai soli viewer indicati.
+ */
+public final class ProtocolPhantomSender implements PhantomPacketSender {
+
+    private final ProtocolManager manager = ProtocolLibrary.getProtocolManager();
+
+    @Override
+    public void sendSection(Collection<? extends Player> viewers, int sx, int sy, int sz, short[] positions, BlockData[] data) {
+        if (viewers.isEmpty() || positions.length == 0) return;
+        WrappedBlockData[] wrapped = new WrappedBlockData[data.length];
+        for (int i = 0; i < data.length; i++) {
+            wrapped[i] = WrappedBlockData.createData(data[i]);
+        }
+        PacketContainer packet = manager.createPacket(PacketType.Play.Server.MULTI_BLOCK_CHANGE);
+        packet.getSectionPositions().writeSafely(0, new BlockPosition(sx, sy, sz));
+        packet.getShortArrays().writeSafely(0, positions);
+        packet.getBlockDataArrays().writeSafely(0, wrapped);
+        for (Player viewer : viewers) {
+            if (!viewer.isOnline()) continue;
+            manager.sendServerPacket(viewer, packet);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import me.pezzo.abilityPlugin.utils.LongObjectHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Journal append-only dei blocchi originali sovrascritti dagli effetti, su file mappato in memoria.
+ * Ogni effetto apre una sessione, dichiara i materiali che piazza e registra lo snapshot prima della
+ * prima sovrascrittura; quando l'effetto termina e i suoi ripristini sono stati applicati la sessione
+ * viene chiusa. Al riavvio le sessioni rimaste aperte (crash, stop a metà effetto) vengono ripristinate
+ * chunk per chunk, ma solo dove il blocco attuale è ancora uno di quei materiali: quello che i giocatori
+ * hanno costruito nel frattempo non viene sovrascritto.
+ *
+ * Formato: header (magic, versione), poi record [tipo][sessione][...] terminati da un byte 0.
+ * Il tipo viene scritto per ultimo, così un record a metà non viene mai letto.
+ * Su Folia gli effetti registrano da thread di regione diversi: i metodi che scrivono sono sincronizzati.
+ */
+public class RestoreJournal {
+
+    private static final int MAGIC = 0x4A4A4B52;
+    private static final int VERSION = 2;
+    // senza record di palette: ripristino senza controllo del blocco attuale
+    private static final int VERSION_NO_PALETTE = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte TYPE_END_OF_LOG = 0;
+    private static final byte TYPE_SNAPSHOT = 1;
+    private static final byte TYPE_SESSION_END = 2;
+    private static final byte TYPE_PALETTE = 3;
+
+    // tipo + sessione + uuid mondo + chiave + lunghezza dati
+    private static final int SNAPSHOT_FIXED_SIZE = 1 + 4 + 16 + 8 + 2;
+    private static final int SESSION_END_SIZE = 1 + 4;
+    // tipo + sessione + lunghezza nome
+    private static final int PALETTE_FIXED_SIZE = 1 + 4 + 2;
+    // spazio tenuto libero per i record di chiusura quando il file ha raggiunto la dimensione massima
+    private static final int END_RESERVE = 4096;
+
+    private final AbilityPlugin plugin;
+    private final PerformanceConfig config;
+    private final BlockMutationManager mutations;
+    private final File file;
+
+    private FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+    private volatile boolean dirty = false;
+    private int position = HEADER_SIZE;
+    private boolean full = false;
+
+    private int nextSession = 1;
+    private final Set<Integer> openSessions = new HashSet<>();
+    // sessioni terminate con il ripristino ancora in coda nel BlockMutationManager
+    private final Set<Integer> closingSessions = new HashSet<>();
+    // materiali piazzati dalle sessioni rimaste aperte all'ultimo avvio; vuoto = journal senza palette
+    private final Set<Material> replayPalette = EnumSet.noneOf(Material.class);
+
+    // ripristini da sessioni non chiuse, per mondo e chunk, in attesa del caricamento del chunk
+    private final Map<UUID, LongObjectHashMap<List<PendingRestore>>> pendingReplay = new HashMap<>();
+    private int pendingReplayCount = 0;
+    private int recoverySession = 0;
+    private long totalReplayed = 0;
+    private long totalReplaySkipped = 0;
+
+    private TaskExecutor.Task maintenanceTask;
+    private TaskExecutor.Task forceTask;
+
+    private record PendingRestore(long key, String data) { }
+
+    private record LoggedSnapshot(int session, UUID world, PendingRestore restore) { }
+
+    public RestoreJournal(AbilityPlugin plugin, PerformanceConfig config, BlockMutationManager mutations) {
+        this.plugin = plugin;
+        this.config = config;
+        this.mutations = mutations;
+        this.file = new File(plugin.getDataFolder(), "restore-journal.dat");
+    }
+
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+
+    /**
+     * Legge le sessioni rimaste aperte dall'ultimo avvio, riparte con un file pulito e avvia i task.
+     * Le impostazioni del journal vengono lette solo qui: un reload non le applica.
+     */
+    public void open() {
+        if (!config.isJournalEnabled()) return;
+        try {
+            if (!file.getParentFile().exists()) file.getParentFile().mkdirs();
+            boolean existed = file.exists() && file.length() >= HEADER_SIZE;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = Math.max(channel.size(), config.getJournalInitialSizeBytes());
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (existed) readLeftovers();
+            reset();
+        } catch (IOException e) {
+            plugin.getLogger().severe("[Journal] impossibile aprire " + file.getName() + ": " + e.getMessage());
+            closeChannel();
+            buffer = null;
+            return;
+        }
+
+        if (pendingReplayCount > 0) {
+            // i ripristini pendenti vengono riscritti subito, così sopravvivono a un altro crash
+            recoverySession = openSession();
+            declarePalette(recoverySession, replayPalette);
+            for (Map.Entry<UUID, LongObjectHashMap<List<PendingRestore>>> e : pendingReplay.entrySet()) {
+                LongObjectHashMap<List<PendingRestore>> chunks = e.getValue();
+                for (int i = chunks.firstSlot(); i >= 0; i = chunks.nextSlot(i)) {
+                    for (PendingRestore r : chunks.valueAt(i)) append(recoverySession, e.getKey(), r.key(), r.data());
+                }
+            }
+            plugin.getLogger().warning("[Journal] trovati " + pendingReplayCount
+                    + " blocchi non ripristinati dall'ultimo avvio: verranno ripristinati al caricamento dei chunk.");
+        }
+
+        maintenanceTask = plugin.getTaskExecutor().runGlobalTimer(this::maintenance, 20L, 20L);
+        long forceInterval = config.getJournalForceIntervalTicks();
+        forceTask = plugin.getTaskExecutor().runAsyncTimer(this::forceIfDirty, forceInterval, forceInterval);
+    }
+
+    public synchronized int openSession() {
+        if (buffer == null) return 0;
+        int id = nextSession++;
+        openSessions.add(id);
+        return id;
+    }
+
+    /**
+     * Materiali che la sessione può piazzare: al riavvio si ripristinano solo i blocchi che sono ancora uno di questi.
+     * Va chiamato una volta, subito dopo {@link #openSession()}.
+     */
+    public synchronized void declarePalette(int session, Collection<Material> materials) {
+        if (buffer == null || session == 0) return;
+        for (Material material : materials) {
+            byte[] bytes = material.name().getBytes(StandardCharsets.UTF_8);
+            int size = PALETTE_FIXED_SIZE + bytes.length;
+            if (!ensureCapacity(size + 1 + END_RESERVE)) return;
+            MappedByteBuffer buf = buffer;
+            buf.putInt(position + 1, session);
+            buf.putShort(position + 5, (short) bytes.length);
+            buf.put(position + PALETTE_FIXED_SIZE, bytes);
+            buf.put(position + size, TYPE_END_OF_LOG);
+            buf.put(position, TYPE_PALETTE);
+            position += size;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Registra lo stato originale di un blocco. Va chiamato prima di accodare la prima sovrascrittura.
+     */
+    public synchronized void record(int session, World world, long key, BlockData original) {
+        if (buffer == null || session == 0 || world == null || original == null) return;
+        append(session, world.getUID(), key, original.getAsString());
+    }
+
+    /**
+     * L'effetto ha accodato il proprio ripristino; il record di chiusura viene scritto appena
+     * i ripristini di questa sessione sono stati applicati o rimandati, indipendentemente dal resto della coda.
+     */
+    public synchronized void closeSession(int session) {
+        if (session == 0) return;
+        if (openSessions.remove(session)) closingSessions.add(session);
+    }
+
+    /**
+     * Da chiamare dopo BlockMutationManager#flushAll: chiude le sessioni il cui ripristino
+     * è stato applicato e rilascia il file. Le sessioni ancora aperte, o con ripristini rimandati
+     * a chunk non caricati, restano nel file e vengono ripristinate al prossimo avvio.
+     */
+    public synchronized void close() {
+        if (maintenanceTask != null) maintenanceTask.cancel();
+        if (forceTask != null) forceTask.cancel();
+        maintenanceTask = null;
+        forceTask = null;
+        if (buffer == null) return;
+        writeSessionEnds();
+        if (openSessions.isEmpty() && closingSessions.isEmpty()) reset();
+        try {
+            buffer.force();
+        } catch (Throwable t) {
+            plugin.getLogger().warning("[Journal] force fallito in chiusura: " + t.getMessage());
+        }
+        closeChannel();
+        buffer = null;
+    }
+
+    private synchronized void maintenance() {
+        if (!closingSessions.isEmpty()) writeSessionEnds();
+        if (openSessions.isEmpty() && closingSessions.isEmpty() && position > HEADER_SIZE) reset();
+    }
+
+    // lock: journal -> BlockMutationManager, mai il contrario
+    private void writeSessionEnds() {
+        for (Iterator<Integer> it = closingSessions.iterator(); it.hasNext(); ) {
+            int session = it.next();
+            if (mutations.getOutstandingRestores(session) > 0) continue;
+            if (!ensureCapacity(SESSION_END_SIZE + 1)) break;
+            buffer.putInt(position + 1, session);
+            buffer.put(position + SESSION_END_SIZE, TYPE_END_OF_LOG);
+            buffer.put(position, TYPE_SESSION_END);
+            position += SESSION_END_SIZE;
+            it.remove();
+            dirty = true;
+        }
+    }
+
+    private void append(int session, UUID world, long key, String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) return;
+        int size = SNAPSHOT_FIXED_SIZE + bytes.length;
+        if (!ensureCapacity(size + 1 + END_RESERVE)) return;
+        MappedByteBuffer buf = buffer;
+        int p = position + 1;
+        buf.putInt(p, session); p += 4;
+        buf.putLong(p, world.getMostSignificantBits()); p += 8;
+        buf.putLong(p, world.getLeastSignificantBits()); p += 8;
+        buf.putLong(p, key); p += 8;
+        buf.putShort(p, (short) bytes.length); p += 2;
+        buf.put(p, bytes);
+        buf.put(position + size, TYPE_END_OF_LOG);
+        buf.put(position, TYPE_SNAPSHOT);
+        position += size;
+        dirty = true;
+    }
+
+    private boolean ensureCapacity(int needed) {
+        if (position + needed <= buffer.capacity()) return true;
+        if (full) return false;
+        long newSize = Math.max((long) buffer.capacity() * 2, position + needed);
+        if (newSize > config.getJournalMaxSizeBytes()) {
+            full = true;
+            plugin.getLogger().warning("[Journal] dimensione massima raggiunta: i nuovi blocchi non vengono più registrati"
+                    + " finché gli effetti attivi non terminano.");
+            return false;
+        }
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+            return true;
+        } catch (IOException e) {
+            full = true;
+            plugin.getLogger().severe("[Journal] impossibile estendere il file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void reset() {
+        MappedByteBuffer buf = buffer;
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, VERSION);
+        buf.put(HEADER_SIZE, TYPE_END_OF_LOG);
+        position = HEADER_SIZE;
+        nextSession = 1;
+        full = false;
+        dirty = true;
+    }
+
+    private void forceIfDirty() {
+        MappedByteBuffer buf = buffer;
+        if (!dirty || buf == null) return;
+        dirty = false;
+        try {
+            buf.force();
+        } catch (Throwable t) {
+            plugin.getLogger().warning("[Journal] force fallito: " + t.getMessage());
+        }
+    }
+
+    private void readLeftovers() {
+        MappedByteBuffer buf = buffer;
+        int version = buf.getInt(4);
+        if (buf.getInt(0) != MAGIC || (version != VERSION && version != VERSION_NO_PALETTE)) {
+            plugin.getLogger().warning("[Journal] " + file.getName() + " non riconosciuto, ignorato.");
+            return;
+        }
+        List<LoggedSnapshot> logged = new ArrayList<>();
+        Set<Integer> ended = new HashSet<>();
+        Map<Integer, List<String>> palettes = new HashMap<>();
+        int p = HEADER_SIZE;
+        int limit = buf.capacity();
+        while (p < limit) {
+            byte type = buf.get(p);
+            if (type == TYPE_SNAPSHOT) {
+                if (p + SNAPSHOT_FIXED_SIZE > limit) break;
+                int session = buf.getInt(p + 1);
+                UUID world = new UUID(buf.getLong(p + 5), buf.getLong(p + 13));
+                long key = buf.getLong(p + 21);
+                int len = buf.getShort(p + 29);
+                if (len < 0 || p + SNAPSHOT_FIXED_SIZE + len > limit) break;
+                byte[] bytes = new byte[len];
+                buf.get(p + SNAPSHOT_FIXED_SIZE, bytes);
+                logged.add(new LoggedSnapshot(session, world, new PendingRestore(key, new String(bytes, StandardCharsets.UTF_8))));
+                p += SNAPSHOT_FIXED_SIZE + len;
+            } else if (type == TYPE_SESSION_END) {
+                if (p + SESSION_END_SIZE > limit) break;
+                ended.add(buf.getInt(p + 1));
+                p += SESSION_END_SIZE;
+            } else if (type == TYPE_PALETTE) {
+                if (p + PALETTE_FIXED_SIZE > limit) break;
+                int session = buf.getInt(p + 1);
+                int len = buf.getShort(p + 5);
+                if (len < 0 || p + PALETTE_FIXED_SIZE + len > limit) break;
+                byte[] bytes = new byte[len];
+                buf.get(p + PALETTE_FIXED_SIZE, bytes);
+                palettes.computeIfAbsent(session, s -> new ArrayList<>()).add(new String(bytes, StandardCharsets.UTF_8));
+                p += PALETTE_FIXED_SIZE + len;
+            } else {
+                break;
+            }
+        }
+
+        for (Map.Entry<Integer, List<String>> e : palettes.entrySet()) {
+            if (ended.contains(e.getKey())) continue;
+            for (String name : e.getValue()) {
+                Material material = Material.matchMaterial(name);
+                if (material != null) replayPalette.add(material);
+            }
+        }
+
+        // a parità di blocco vince lo snapshot più vecchio: è l'unico che vede il blocco originale
+        Map<UUID, LongObjectHashMap<PendingRestore>> firstByKey = new HashMap<>();
+        for (LoggedSnapshot entry : logged) {
+            if (ended.contains(entry.session())) continue;
+            PendingRestore r = entry.restore();
+            LongObjectHashMap<PendingRestore> keys = firstByKey.computeIfAbsent(entry.world(), w -> new LongObjectHashMap<>());
+            if (!keys.containsKey(r.key())) keys.put(r.key(), r);
+        }
+        for (Map.Entry<UUID, LongObjectHashMap<PendingRestore>> e : firstByKey.entrySet()) {
+            LongObjectHashMap<List<PendingRestore>> chunks = pendingReplay.computeIfAbsent(e.getKey(), w -> new LongObjectHashMap<>());
+            LongObjectHashMap<PendingRestore> keys = e.getValue();
+            for (int i = keys.firstSlot(); i >= 0; i = keys.nextSlot(i)) {
+                PendingRestore r = keys.valueAt(i);
+                long chunkKey = BlockKeys.chunkOf(r.key());
+                List<PendingRestore> list = chunks.get(chunkKey);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    chunks.put(chunkKey, list);
+                }
+                list.add(r);
+                pendingReplayCount++;
+            }
+        }
+    }
+
+    /**
+     * Ripristina subito i blocchi dei chunk già caricati; gli altri aspettano {@link #onChunkLoad(Chunk)}.
+     */
+    public synchronized void replayLoadedChunks() {
+        if (pendingReplay.isEmpty()) return;
+        for (World world : plugin.getServer().getWorlds()) {
+            LongObjectHashMap<List<PendingRestore>> chunks = pendingReplay.get(world.getUID());
+            if (chunks == null) continue;
+            List<Long> loaded = new ArrayList<>();
+            for (int i = chunks.firstSlot(); i >= 0; i = chunks.nextSlot(i)) {
+                long chunkKey = chunks.keyAt(i);
+                if (world.isChunkLoaded(BlockKeys.chunkX(chunkKey), BlockKeys.chunkZ(chunkKey))) loaded.add(chunkKey);
+            }
+            for (long chunkKey : loaded) replayChunk(world, chunkKey);
+        }
+    }
+
+    public synchronized void onChunkLoad(Chunk chunk) {
+        if (pendingReplay.isEmpty()) return;
+        replayChunk(chunk.getWorld(), BlockKeys.chunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    private void replayChunk(World world, long chunkKey) {
+        LongObjectHashMap<List<PendingRestore>> chunks = pendingReplay.get(world.getUID());
+        if (chunks == null) return;
+        List<PendingRestore> restores = chunks.remove(chunkKey);
+        if (restores == null) return;
+        if (chunks.isEmpty()) pendingReplay.remove(world.getUID());
+
+        for (PendingRestore r : restores) {
+            // il blocco non è più quello dell'effetto: qualcuno ci ha costruito sopra dopo il ripristino
+            if (!replayPalette.isEmpty()
+                    && !replayPalette.contains(world.getBlockAt(BlockKeys.x(r.key()), BlockKeys.y(r.key()), BlockKeys.z(r.key())).getType())) {
+                totalReplaySkipped++;
+                continue;
+            }
+            try {
+                mutations.submitRestore(world, r.key(), Bukkit.createBlockData(r.data()), recoverySession);
+                totalReplayed++;
+            } catch (IllegalArgumentException ex) {
+                plugin.getLogger().warning("[Journal] blocco non valido in " + world.getName() + ": " + r.data());
+            }
+        }
+        pendingReplayCount -= restores.size();
+        if (pendingReplayCount == 0) {
+            plugin.getLogger().info("[Journal] ripristino dall'ultimo avvio completato (" + totalReplayed + " blocchi, "
+                    + totalReplaySkipped + " già modificati e lasciati com'erano).");
+            closeSession(recoverySession);
+            recoverySession = 0;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    public int getUsedBytes() { return buffer == null ? 0 : position; }
+    public int getCapacityBytes() { return buffer == null ? 0 : buffer.capacity(); }
+    public int getOpenSessions() { return openSessions.size(); }
+    public int getPendingReplay() { return pendingReplayCount; }
+    public long getTotalReplayed() { return totalReplayed; }
+    public long getTotalReplaySkipped() { return totalReplaySkipped; }
+}
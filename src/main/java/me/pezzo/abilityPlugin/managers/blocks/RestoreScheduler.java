@@ -0,0 +1,266 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import me.pezzo.abilityPlugin.utils.LongObjectHashMap;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ripristino dei blocchi originali a fine effetto, distribuito su più tick.
+ * Gli snapshot vengono raggruppati per chunk e passati al BlockMutationManager entro un budget
+ * per tick, partendo dai chunk più vicini ai giocatori online. L'ordine viene ricalcolato ogni
+ * {@value #REORDER_PERIOD_TICKS} tick; nel frattempo i gruppi nuovi vengono inseriti nell'ordine esistente.
+ * In onDisable {@link #flushAll()} accoda tutto quello che resta.
+ * Su Folia gli effetti lo chiamano da thread di regione diversi: i metodi pubblici sono sincronizzati.
+ */
+public class RestoreScheduler {
+
+    private final AbilityPlugin plugin;
+    private final PerformanceConfig config;
+    private final BlockMutationManager mutations;
+    private final RestoreJournal journal;
+
+    // ripristino in chiusura: per mondo e chunk, così i gruppi di effetti diversi sullo stesso chunk sono contigui
+    private static final Comparator<ChunkGroup> CHUNK_ORDER = Comparator
+            .comparing((ChunkGroup g) -> g.world.getName())
+            .thenComparingInt(g -> BlockKeys.chunkX(g.chunkKey))
+            .thenComparingInt(g -> BlockKeys.chunkZ(g.chunkKey));
+
+    // i giocatori si muovono: oltre questo intervallo le distanze in cache sono da rifare
+    private static final int REORDER_PERIOD_TICKS = 20;
+    private static final Comparator<ChunkGroup> DISTANCE_ORDER = Comparator.comparingDouble(g -> g.distance);
+
+    // in ordine di distanza; i gruppi appena schedulati aspettano in added
+    private List<ChunkGroup> groups = new ArrayList<>();
+    private List<ChunkGroup> added = new ArrayList<>();
+    private List<ChunkGroup> merged = new ArrayList<>();
+    private int ticksSinceReorder = REORDER_PERIOD_TICKS;
+    // originali ancora da ripristinare, per chi fa uno snapshot nel frattempo
+    private final Map<World, LongObjectHashMap<BlockData>> pendingByWorld = new HashMap<>();
+    private TaskExecutor.Task task;
+
+    private int pendingBlocks = 0;
+    private int lastSubmittedPerTick = 0;
+    private long totalScheduled = 0;
+
+    /** Un effetto terminato: la sessione del journal si chiude quando tutti i suoi chunk sono stati accodati. */
+    private static final class Batch {
+        final int session;
+        int remainingGroups;
+
+        Batch(int session) {
+            this.session = session;
+        }
+    }
+
+    private static final class ChunkGroup {
+        final World world;
+        final long chunkKey;
+        final Batch batch;
+        long[] keys = new long[16];
+        BlockData[] data = new BlockData[16];
+        int size;
+        int next;
+        double distance;
+
+        ChunkGroup(World world, long chunkKey, Batch batch) {
+            this.world = world;
+            this.chunkKey = chunkKey;
+            this.batch = batch;
+        }
+
+        void add(long key, BlockData d) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                data = Arrays.copyOf(data, size * 2);
+            }
+            keys[size] = key;
+            data[size] = d;
+            size++;
+        }
+
+        boolean isDone() { return next == size; }
+    }
+
+    public RestoreScheduler(AbilityPlugin plugin, PerformanceConfig config, BlockMutationManager mutations, RestoreJournal journal) {
+        this.plugin = plugin;
+        this.config = config;
+        this.mutations = mutations;
+        this.journal = journal;
+    }
+
+    public void start() {
+        if (task != null) return;
+        task = plugin.getTaskExecutor().runGlobalTimer(this::tick, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Prende in carico gli snapshot di un effetto terminato. Lo store viene solo letto:
+     * il chiamante può svuotarlo subito dopo.
+     */
+    public synchronized void schedule(World world, SnapshotStore snapshots, int journalSession) {
+        if (world == null || snapshots.isEmpty()) {
+            journal.closeSession(journalSession);
+            return;
+        }
+        Batch batch = new Batch(journalSession);
+        LongObjectHashMap<ChunkGroup> byChunk = new LongObjectHashMap<>();
+        LongObjectHashMap<BlockData> pending = pendingByWorld.computeIfAbsent(world, w -> new LongObjectHashMap<>());
+        for (int i = snapshots.firstSlot(); i >= 0; i = snapshots.nextSlot(i)) {
+            long key = snapshots.keyAt(i);
+            BlockData data = snapshots.dataAt(i);
+            if (data == null) continue;
+            long chunkKey = BlockKeys.chunkOf(key);
+            ChunkGroup group = byChunk.get(chunkKey);
+            if (group == null) {
+                group = new ChunkGroup(world, chunkKey, batch);
+                byChunk.put(chunkKey, group);
+                added.add(group);
+                batch.remainingGroups++;
+            }
+            group.add(key, data);
+            pending.put(key, data);
+            pendingBlocks++;
+        }
+        totalScheduled += snapshots.size();
+        if (batch.remainingGroups == 0) journal.closeSession(journalSession);
+    }
+
+    /**
+     * Originale di un blocco il cui ripristino non è ancora stato applicato, o null.
+     * Chi fa uno snapshot deve preferirlo al blocco nel mondo, che è ancora quello dell'effetto precedente.
+     */
+    public synchronized BlockData pendingOriginal(World world, long key) {
+        LongObjectHashMap<BlockData> pending = pendingByWorld.get(world);
+        if (pending != null) {
+            BlockData data = pending.get(key);
+            if (data != null) return data;
+        }
+        return mutations.pendingRestore(world, key);
+    }
+
+    private synchronized void tick() {
+        if (groups.isEmpty() && added.isEmpty()) {
+            lastSubmittedPerTick = 0;
+            return;
+        }
+        if (++ticksSinceReorder >= REORDER_PERIOD_TICKS) {
+            groups.addAll(added);
+            added.clear();
+            prioritize(groups);
+            groups.sort(DISTANCE_ORDER);
+            ticksSinceReorder = 0;
+        } else if (!added.isEmpty()) {
+            mergeAdded();
+        }
+        lastSubmittedPerTick = drain(config.getMaxRestoresPerTick());
+    }
+
+    // distanze solo per i gruppi nuovi, poi fusione con l'ordine in cache
+    private void mergeAdded() {
+        prioritize(added);
+        added.sort(DISTANCE_ORDER);
+        merged.clear();
+        int i = 0, j = 0;
+        while (i < groups.size() && j < added.size()) {
+            merged.add(groups.get(i).distance <= added.get(j).distance ? groups.get(i++) : added.get(j++));
+        }
+        while (i < groups.size()) merged.add(groups.get(i++));
+        while (j < added.size()) merged.add(added.get(j++));
+        List<ChunkGroup> previous = groups;
+        groups = merged;
+        merged = previous;
+        merged.clear();
+        added.clear();
+    }
+
+    /**
+     * Accoda subito tutti i ripristini rimasti in un solo passaggio ordinato per chunk, ignorando
+     * budget e priorità. Usato in onDisable, dopo l'interruzione degli effetti e prima di BlockMutationManager#flushAll.
+     */
+    public synchronized void flushAll() {
+        groups.addAll(added);
+        added.clear();
+        groups.sort(CHUNK_ORDER);
+        int submitted = drain(Integer.MAX_VALUE);
+        if (submitted > 0) {
+            plugin.getLogger().info("[Restore] " + submitted + " blocchi ancora da ripristinare accodati in chiusura.");
+        }
+    }
+
+    // distanza al quadrato (in chunk) dal giocatore più vicino nello stesso mondo
+    private static void prioritize(List<ChunkGroup> toMeasure) {
+        Map<World, int[]> playerChunks = new HashMap<>();
+        for (ChunkGroup group : toMeasure) {
+            int[] coords = playerChunks.computeIfAbsent(group.world, RestoreScheduler::playerChunkCoords);
+            int cx = BlockKeys.chunkX(group.chunkKey);
+            int cz = BlockKeys.chunkZ(group.chunkKey);
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < coords.length; i += 2) {
+                double dx = coords[i] - cx;
+                double dz = coords[i + 1] - cz;
+                best = Math.min(best, dx * dx + dz * dz);
+            }
+            group.distance = best;
+        }
+    }
+
+    private static int[] playerChunkCoords(World world) {
+        List<Player> players = world.getPlayers();
+        int[] coords = new int[players.size() * 2];
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.get(i);
+            coords[i * 2] = p.getLocation().getBlockX() >> 4;
+            coords[i * 2 + 1] = p.getLocation().getBlockZ() >> 4;
+        }
+        return coords;
+    }
+
+    private int drain(int budget) {
+        int submitted = 0;
+        int done = 0;
+        for (ChunkGroup group : groups) {
+            if (submitted >= budget) break;
+            LongObjectHashMap<BlockData> pending = pendingByWorld.get(group.world);
+            while (!group.isDone() && submitted < budget) {
+                long key = group.keys[group.next];
+                mutations.submitRestore(group.world, key, group.data[group.next], group.batch.session);
+                if (pending != null) pending.remove(key);
+                group.data[group.next] = null;
+                group.next++;
+                submitted++;
+            }
+            if (!group.isDone()) break;
+            done++;
+            if (--group.batch.remainingGroups == 0) journal.closeSession(group.batch.session);
+        }
+        if (done > 0) {
+            groups.subList(0, done).clear();
+            pendingByWorld.values().removeIf(LongObjectHashMap::isEmpty);
+        }
+        pendingBlocks -= submitted;
+        return submitted;
+    }
+
+    public int getPendingBlocks() { return pendingBlocks; }
+    public int getPendingChunks() { return groups.size() + added.size(); }
+    public int getLastSubmittedPerTick() { return lastSubmittedPerTick; }
+    public long getTotalScheduled() { return totalScheduled; }
+}
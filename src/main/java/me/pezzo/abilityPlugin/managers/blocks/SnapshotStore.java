@@ -0,0 +1,59 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import me.pezzo.abilityPlugin.utils.LongIntHashMap;
+import me.pezzo.abilityPlugin.utils.LongObjectHashMap;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Stato originale dei blocchi modificati da un effetto, per chiave impacchettata.
+ * Gli stati di default (la quasi totalità: pietra, terra, aria...) occupano solo un id di
+ * {@link BlockPalette}; il BlockData completo viene tenuto solo per gli stati particolari.
+ */
+public final class SnapshotStore {
+
+    private final LongIntHashMap ids;
+    private final LongObjectHashMap<BlockData> custom = new LongObjectHashMap<>();
+
+    public SnapshotStore(int expected) {
+        this.ids = new LongIntHashMap(expected);
+    }
+
+    public boolean contains(long key) {
+        return ids.containsKey(key);
+    }
+
+    public void put(long key, BlockData original) {
+        int id = BlockPalette.idOf(original);
+        ids.put(key, id);
+        if (id == BlockPalette.NO_ID) {
+            custom.put(key, original);
+        } else {
+            custom.remove(key);
+        }
+    }
+
+    /** @return lo stato originale, o null se la posizione non è stata modificata */
+    public BlockData get(long key) {
+        int id = ids.get(key, Integer.MIN_VALUE);
+        if (id == Integer.MIN_VALUE) return null;
+        return id == BlockPalette.NO_ID ? custom.get(key) : BlockPalette.byId(id);
+    }
+
+    public int size() { return ids.size(); }
+    public boolean isEmpty() { return ids.isEmpty(); }
+    public int getCustomCount() { return custom.size(); }
+
+    public void clear() {
+        ids.clear();
+        custom.clear();
+    }
+
+    public int firstSlot() { return ids.firstSlot(); }
+    public int nextSlot(int slot) { return ids.nextSlot(slot); }
+    public long keyAt(int slot) { return ids.keyAt(slot); }
+
+    public BlockData dataAt(int slot) {
+        int id = ids.valueAt(slot);
+        return id == BlockPalette.NO_ID ? custom.get(ids.keyAt(slot)) : BlockPalette.byId(id);
+    }
+}
@@ -0,0 +1,168 @@
+package me.pezzo.abilityPlugin.managers.damage;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Danni degli effetti ad area raccolti durante il tick e applicati tutti insieme alla fine.
+ * I colpi dello stesso proprietario sullo stesso bersaglio diventano un solo {@code damage()},
+ * nell'ordine in cui il bersaglio è stato colpito la prima volta. Il danno effettivo si legge una volta
+ * per bersaglio (vita prima e dopo tutti i suoi colpi del flush) e viene diviso tra i proprietari in
+ * proporzione al danno che ognuno ha accodato; il lifesteal viene sommato e curato una volta per proprietario.
+ * <p>
+ * La coda è per thread: l'EffectScheduler la svuota a fine tick, su Folia dopo ogni effetto,
+ * sul thread della regione che l'ha riempita.
+ */
+public class DamageQueue {
+
+    private final AbilityPlugin plugin;
+    private final ThreadLocal<Map<HitKey, Hit>> pending = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    private long totalSubmitted = 0;
+    private long totalApplied = 0;
+    private long totalFlushes = 0;
+
+    private record HitKey(UUID source, UUID target) { }
+
+    /** Colpo in attesa; i modificatori valgono per il danno complessivo sul bersaglio. */
+    public static final class Hit {
+        private final Player source;
+        private final LivingEntity target;
+        private double amount;
+        private double lastAmount;
+        // somma di amount * lifesteal dei singoli colpi di questo proprietario
+        private double lifestealWeight;
+        private double knockbackScale = -1;
+        private Vector velocity;
+        private final List<PotionEffect> potions = new ArrayList<>(1);
+        private final List<Consumer<LivingEntity>> after = new ArrayList<>(1);
+
+        Hit(Player source, LivingEntity target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /** Moltiplica il contraccolpo del danno (0 = nessuno, 1 = invariato). */
+        public Hit knockback(double scale) {
+            knockbackScale = Math.max(0.0, Math.min(1.0, scale));
+            return this;
+        }
+
+        /** Velocità da impostare dopo il danno, se il bersaglio è ancora vivo. */
+        public Hit velocity(Vector v) {
+            velocity = v;
+            return this;
+        }
+
+        public Hit potion(PotionEffect effect) {
+            potions.add(effect);
+            return this;
+        }
+
+        /**
+         * Cura il proprietario di {@code fraction} della sua parte del danno effettivo, per il danno
+         * dell'ultimo colpo accodato (quello restituito da submit).
+         */
+        public Hit lifesteal(double fraction) {
+            lifestealWeight += Math.max(0.0, fraction) * lastAmount;
+            return this;
+        }
+
+        /** Azione dopo il danno, es. particelle e suoni. */
+        public Hit then(Consumer<LivingEntity> action) {
+            after.add(action);
+            return this;
+        }
+    }
+
+    public DamageQueue(AbilityPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Accoda {@code amount} di danno da {@code source} a {@code target}. Se lo stesso proprietario ha già
+     * colpito il bersaglio in questo tick il danno si somma al colpo esistente, che viene restituito.
+     */
+    public Hit submit(Player source, LivingEntity target, double amount) {
+        Hit hit = pending.get().computeIfAbsent(new HitKey(source.getUniqueId(), target.getUniqueId()), k -> new Hit(source, target));
+        hit.amount += amount;
+        hit.lastAmount = amount;
+        synchronized (this) {
+            totalSubmitted++;
+        }
+        return hit;
+    }
+
+    /** Applica i colpi accodati dal thread corrente. */
+    public void flush() {
+        Map<HitKey, Hit> hits = pending.get();
+        if (hits.isEmpty()) return;
+        // per bersaglio, nell'ordine del primo colpo
+        Map<UUID, List<Hit>> byTarget = new LinkedHashMap<>();
+        for (Hit hit : hits.values()) {
+            byTarget.computeIfAbsent(hit.target.getUniqueId(), k -> new ArrayList<>(1)).add(hit);
+        }
+        hits.clear();
+
+        Map<Player, Double> heals = new LinkedHashMap<>();
+        int applied = 0;
+        for (List<Hit> targetHits : byTarget.values()) {
+            LivingEntity target = targetHits.get(0).target;
+            if (target.isDead() || !target.isValid()) continue;
+            double total = 0.0;
+            boolean lifesteal = false;
+            for (Hit hit : targetHits) {
+                total += hit.amount;
+                lifesteal |= hit.lifestealWeight > 0;
+            }
+            // una lettura prima e una dopo per bersaglio, solo se qualcuno ne deve curare una parte
+            double before = lifesteal ? target.getHealth() : 0.0;
+            for (Hit hit : targetHits) {
+                if (target.isDead()) break;
+                try {
+                    target.damage(hit.amount, hit.source);
+                    if (hit.knockbackScale >= 0) target.setVelocity(target.getVelocity().multiply(hit.knockbackScale));
+                    if (hit.velocity != null && !target.isDead()) target.setVelocity(hit.velocity);
+                    for (PotionEffect effect : hit.potions) target.addPotionEffect(effect);
+                    for (Consumer<LivingEntity> action : hit.after) action.accept(target);
+                } catch (Throwable t) {
+                    plugin.getLogger().warning("[Damage] errore applicando un colpo: " + t);
+                }
+                applied++;
+            }
+            if (!lifesteal || total <= 0.0) continue;
+            double dealt = Math.max(0.0, before - (target.isDead() ? 0.0 : target.getHealth()));
+            if (dealt <= 0.0) continue;
+            for (Hit hit : targetHits) {
+                // quota del proprietario = danno effettivo * (suo danno accodato / danno totale) * frazione
+                if (hit.lifestealWeight > 0) heals.merge(hit.source, dealt * hit.lifestealWeight / total, Double::sum);
+            }
+        }
+
+        for (Map.Entry<Player, Double> e : heals.entrySet()) {
+            Player owner = e.getKey();
+            double heal = e.getValue();
+            if (heal <= 0.0 || !owner.isValid()) continue;
+            owner.setHealth(Math.min(owner.getMaxHealth(), owner.getHealth() + heal));
+        }
+
+        synchronized (this) {
+            totalApplied += applied;
+            totalFlushes++;
+        }
+    }
+
+    public synchronized long getTotalSubmitted() { return totalSubmitted; }
+    public synchronized long getTotalApplied() { return totalApplied; }
+    public synchronized long getTotalFlushes() { return totalFlushes; }
+}
\ No newline at end of file
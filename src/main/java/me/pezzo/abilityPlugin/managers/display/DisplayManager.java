@@ -0,0 +1,84 @@
+package me.pezzo.abilityPlugin.managers.display;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro dei BlockDisplay creati dagli effetti.
+ * I display non sono persistenti (non finiscono nel salvataggio del chunk) e portano un tag PDC:
+ * quelli sopravvissuti a un reload o a un crash vengono rimossi all'avvio e al caricamento delle entità.
+ */
+public class DisplayManager {
+
+    private final AbilityPlugin plugin;
+    private final NamespacedKey tagKey;
+    // su Folia i display vengono creati dai thread di regione degli effetti
+    private final Set<BlockDisplay> live = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder totalSpawned = new LongAdder();
+    private final LongAdder totalOrphansRemoved = new LongAdder();
+
+    public DisplayManager(AbilityPlugin plugin) {
+        this.plugin = plugin;
+        this.tagKey = new NamespacedKey(plugin, "effect_display");
+    }
+
+    public BlockDisplay spawn(Location origin, BlockData data) {
+        World world = origin.getWorld();
+        BlockDisplay display = world.spawn(origin, BlockDisplay.class, d -> {
+            d.setPersistent(false);
+            d.getPersistentDataContainer().set(tagKey, PersistentDataType.BYTE, (byte) 1);
+            d.setBlock(data);
+        });
+        live.add(display);
+        totalSpawned.increment();
+        return display;
+    }
+
+    public void remove(BlockDisplay display) {
+        live.remove(display);
+        if (display.isValid()) display.remove();
+    }
+
+    /** Rimuove tutti i display ancora vivi. Usato in onDisable. */
+    public void removeAll() {
+        for (BlockDisplay display : live) {
+            if (display.isValid()) display.remove();
+        }
+        live.clear();
+    }
+
+    /** Rimuove i display taggati non registrati in questa sessione (reload, crash). */
+    public void sweep(Iterable<? extends Entity> entities) {
+        List<Entity> orphans = new ArrayList<>();
+        for (Entity e : entities) {
+            if (!(e instanceof BlockDisplay) || live.contains(e)) continue;
+            if (e.getPersistentDataContainer().has(tagKey, PersistentDataType.BYTE)) orphans.add(e);
+        }
+        for (Entity e : orphans) e.remove();
+        if (!orphans.isEmpty()) {
+            totalOrphansRemoved.add(orphans.size());
+            plugin.getLogger().info("[Display] rimossi " + orphans.size() + " display orfani.");
+        }
+    }
+
+    public void sweepLoadedWorlds() {
+        for (World world : plugin.getServer().getWorlds()) sweep(world.getEntities());
+    }
+
+    public int getLiveCount() { return live.size(); }
+    public long getTotalSpawned() { return totalSpawned.sum(); }
+    public long getTotalOrphansRemoved() { return totalOrphansRemoved.sum(); }
+}
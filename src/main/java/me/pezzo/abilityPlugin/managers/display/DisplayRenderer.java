@@ -0,0 +1,69 @@
+package me.pezzo.abilityPlugin.managers.display;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.Location;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.util.Transformation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BlockDisplay animati di un singolo effetto, tutti ancorati allo stesso punto.
+ * Ogni aggiornamento imposta la trasformazione di destinazione e lascia al client
+ * l'interpolazione: un pacchetto di metadata per display, nessuna scrittura nel mondo.
+ */
+public class DisplayRenderer {
+
+    private final Location origin;
+    private final List<BlockDisplay> displays = new ArrayList<>();
+
+    public DisplayRenderer(Location origin) {
+        this.origin = origin.clone();
+    }
+
+    /** @return indice del display, da passare a {@link #move} */
+    public int spawn(BlockData data) {
+        displays.add(manager().spawn(origin, data));
+        return displays.size() - 1;
+    }
+
+    public int size() {
+        return displays.size();
+    }
+
+    /**
+     * Porta il centro del blocco del display in (x, y, z) rispetto all'origine, ruotato di
+     * {@code yaw} radianti attorno a Y, entro {@code ticks} tick.
+     */
+    public void move(int index, float x, float y, float z, float yaw, float scale, int ticks) {
+        BlockDisplay display = displays.get(index);
+        if (!display.isValid()) return;
+        // il modello ruota attorno al proprio angolo: si compensa per ruotare attorno al centro
+        float half = scale * 0.5f;
+        float cos = (float) Math.cos(yaw);
+        float sin = (float) Math.sin(yaw);
+        float cx = half * cos + half * sin;
+        float cz = -half * sin + half * cos;
+        display.setInterpolationDelay(0);
+        display.setInterpolationDuration(ticks);
+        display.setTransformation(new Transformation(
+                new Vector3f(x - cx, y - half, z - cz),
+                new Quaternionf().rotationY(yaw),
+                new Vector3f(scale, scale, scale),
+                new Quaternionf()));
+    }
+
+    public void removeAll() {
+        DisplayManager manager = manager();
+        for (BlockDisplay display : displays) manager.remove(display);
+        displays.clear();
+    }
+
+    private static DisplayManager manager() {
+        return AbilityPlugin.getInstance().getDisplayManager();
+    }
+}
@@ -1,100 +1,185 @@
 package me.pezzo.abilityPlugin.managers.effects;
 
 import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.enums.AnimationBackend;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+import me.pezzo.abilityPlugin.enums.RenderMode;
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import me.pezzo.abilityPlugin.managers.blocks.BlockMutationManager;
+import me.pezzo.abilityPlugin.managers.blocks.BlockPalette;
+import me.pezzo.abilityPlugin.managers.blocks.PhantomBlockRenderer;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreJournal;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreScheduler;
+import me.pezzo.abilityPlugin.managers.blocks.SnapshotStore;
+import me.pezzo.abilityPlugin.managers.damage.DamageQueue;
+import me.pezzo.abilityPlugin.managers.display.DisplayRenderer;
+import me.pezzo.abilityPlugin.managers.entities.EntityIndex;
+import me.pezzo.abilityPlugin.managers.entities.PullSolver;
+import me.pezzo.abilityPlugin.managers.entities.TargetFilter;
+import me.pezzo.abilityPlugin.managers.geometry.FastTrig;
+import me.pezzo.abilityPlugin.managers.geometry.GeometryWorker;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencil;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencilCache;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.Tickable;
+import me.pezzo.abilityPlugin.utils.LongArrayList;
+import me.pezzo.abilityPlugin.utils.LongHashSet;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.util.Vector;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 public class BlackholeEffect {
 
     private final Player owner;
     private final Location center;
+    private final World world;
     private final double damageValue;
     private final double rangeValue;
+    private final RenderMode renderMode;
+    private PhantomBlockRenderer phantom;
+    private final AnimationBackend animationBackend;
+    private DisplayRenderer displays;
+    private int orbitDisplays;
+    private int coreRings;
+    private int journalSession;
 
     private static final int DURATION_TICKS = 400;
     private static final int DAMAGE_INTERVAL_TICKS = 40;
     private static final double MAX_PULL = 3.5;
+    // con i display la posa viene aggiornata ogni N tick e interpolata dal client
+    private static final int DISPLAY_STEP_TICKS = 2;
+    private static final int CORE_DISPLAYS_PER_RING = 4;
 
     private final Material shellMaterial = Material.BLACK_STAINED_GLASS;
     private final Material shellAccentMaterial = Material.RED_STAINED_GLASS;
     private final Material armMaterial = Material.POLISHED_BLACKSTONE;
     private final Material armAccentMaterial = Material.RED_CONCRETE;
 
-    private final Map<BlockKey, BlockSnapshot> modifiedBlocks = new HashMap<>();
-    private final Set<BlockKey> currentShellBlocks = new HashSet<>();
-    private final Set<BlockKey> currentArmBlocks = new HashSet<>();
-    private final Set<BlockKey> currentFloatingBlocks = new HashSet<>();
-    private final Set<BlockKey> currentCoreBlocks = new HashSet<>();
-
-    private static final class BlockSnapshot {
-        final Material material;
-        final BlockData data;
-        BlockSnapshot(Material material, BlockData data) {
-            this.material = material;
-            this.data = data;
-        }
+    private static final Material[] CORE_PALETTE = {
+            Material.BLACK_STAINED_GLASS,
+            Material.GRAY_STAINED_GLASS,
+            Material.LIGHT_GRAY_STAINED_GLASS,
+            Material.BLACK_CONCRETE,
+            Material.GRAY_CONCRETE,
+            Material.POLISHED_BLACKSTONE
+    };
+
+    private final SnapshotStore modifiedBlocks = new SnapshotStore(1024);
+    private final LongHashSet currentShellBlocks = new LongHashSet(1024);
+    private final LongHashSet currentArmBlocks = new LongHashSet();
+    private final LongHashSet currentFloatingBlocks = new LongHashSet();
+    private final LongHashSet currentCoreBlocks = new LongHashSet();
+
+    // chiavi da ripristinare, buffer riusato a ogni tick
+    private final LongArrayList staleBlocks = new LongArrayList(256);
+
+    /** Geometria di un tick. Due buffer alternati per parità del tick: uno applicato, l'altro in calcolo. */
+    private static final class Frame {
+        final LongHashSet shell = new LongHashSet(1024);
+        final LongHashSet arms = new LongHashSet();
+        final LongHashSet floating = new LongHashSet();
+        final LongHashSet core = new LongHashSet();
+        int tick = -1;
+        boolean animated;
     }
 
-    private static final class BlockKey {
-        final UUID world;
-        final int x, y, z;
-        BlockKey(World w, int x, int y, int z) {
-            this.world = w.getUID();
-            this.x = x; this.y = y; this.z = z;
-        }
-        Location toLocation() {
-            World w = AbilityPlugin.getInstance().getServer().getWorld(world);
-            return w == null ? null : new Location(w, x, y, z);
-        }
-        @Override public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof BlockKey)) return false;
-            BlockKey b = (BlockKey) o;
-            return x==b.x && y==b.y && z==b.z && Objects.equals(world, b.world);
-        }
-        @Override public int hashCode() { return Objects.hash(world, x, y, z); }
-    }
+    private final Frame[] frames = { new Frame(), new Frame() };
+    private CompletableFuture<Frame> pendingFrame;
+    // usato solo dal calcolo della geometria, un frame alla volta
+    private final Random geometryRnd = new Random();
+    // riusata a ogni query sull'indice delle entità
+    private final List<Entity> nearby = new ArrayList<>();
+    private final PullSolver pull = new PullSolver();
+    private final TargetFilter targets = TargetFilter.forAbility("blackhole", TargetFilter.ALL);
 
     public BlackholeEffect(Player owner, Location center, double damageValue, double rangeValue) {
+        this(owner, center, damageValue, rangeValue, RenderMode.WORLD);
+    }
+
+    public BlackholeEffect(Player owner, Location center, double damageValue, double rangeValue, RenderMode renderMode) {
+        this(owner, center, damageValue, rangeValue, renderMode, AnimationBackend.BLOCKS);
+    }
+
+    public BlackholeEffect(Player owner, Location center, double damageValue, double rangeValue, RenderMode renderMode, AnimationBackend animationBackend) {
         this.owner = owner;
         this.center = center.clone();
+        this.world = center.getWorld();
         this.damageValue = damageValue;
         this.rangeValue = Math.max(1.0, rangeValue);
+        this.renderMode = renderMode == null ? RenderMode.WORLD : renderMode;
+        this.animationBackend = animationBackend == null ? AnimationBackend.BLOCKS : animationBackend;
     }
 
-    public void start() {
+    /**
+     * Blocchi toccati per tick a qualità piena (guscio, bracci, orbite) per un dato range:
+     * il costo con cui l'AdmissionController conta un Blackhole.
+     */
+    public static int estimateBlocksPerTick(double range) {
+        double r = Math.max(1.0, range);
+        int arms = Math.max(3, (int) Math.min(6, r));
+        double armLen = Math.max(2.0, r * 0.9);
+        return SphereStencilCache.shell(r, 0.6, 0.5).size() + (int) Math.ceil(arms * armLen / 0.8) + orbCount(r);
+    }
+
+    public EffectHandle start() {
         final double visualOffsetFactor = Math.min(0.7, 0.9);
         final double visualOffset = Math.min(4.5, Math.max(1.8, rangeValue * 0.45));
 
+        if (renderMode == RenderMode.PACKETS) {
+            // null senza ProtocolLib: si ricade sulle scritture nel mondo
+            phantom = PhantomBlockRenderer.create(world);
+        }
+        journalSession = journal().openSession();
+        List<Material> placed = new ArrayList<>(List.of(shellMaterial, shellAccentMaterial, armMaterial, armAccentMaterial, Material.AIR));
+        placed.addAll(List.of(CORE_PALETTE));
+        journal().declarePalette(journalSession, placed);
+
+        final double coreRadius = Math.max(1.0, Math.min(4.0, rangeValue * 0.32));
+        if (animationBackend == AnimationBackend.DISPLAYS) {
+            spawnDisplays(center.clone().add(0.0, visualOffset, 0.0), coreRadius);
+        }
+
         center.getWorld().playSound(center, Sound.ENTITY_WITHER_SPAWN, 1f, 0.7f);
 
-        new BukkitRunnable() {
+        // copia letta dai worker della geometria: non va mai modificata
+        final Location geometryCenter = center.clone().add(0.0, visualOffset, 0.0);
+
+        return AbilityPlugin.getInstance().getEffectScheduler().schedule(owner.getUniqueId(), "blackhole", new Tickable() {
             int tick = 0;
             final Random rnd = new Random();
 
             @Override
-            public void run() {
+            public void onAbort() {
+                restoreAllModifiedBlocks();
+            }
+
+            @Override
+            public Location anchor() {
+                return center;
+            }
+
+            @Override
+            public void tick(EffectHandle handle) {
                 if (!owner.isOnline()) {
                     restoreAllModifiedBlocks();
-                    cancel();
+                    handle.cancel();
                     return;
                 }
 
                 if (tick >= DURATION_TICKS) {
                     center.getWorld().playSound(center.clone().add(0, visualOffset, 0), Sound.ENTITY_WITHER_DEATH, 1f, 0.6f);
                     restoreAllModifiedBlocks();
-                    cancel();
+                    handle.cancel();
                     return;
                 }
 
@@ -102,47 +187,82 @@ public class BlackholeEffect {
 
                 maybePlayAmbientSounds(tick, rnd, visualCenter);
 
-                Set<BlockKey> newShell = computeHollowSphereKeys(visualCenter, rangeValue, 0.6);
-                updateTemporaryBlocksWithAccent(currentShellBlocks, newShell, shellMaterial, shellAccentMaterial, 0.12, rnd);
-
-                Set<BlockKey> newArms = computeRotatingArmsKeys(visualCenter, rangeValue, tick);
-                updateTemporaryBlocksWithAccent(currentArmBlocks, newArms, armMaterial, armAccentMaterial, 0.18, rnd);
-
-                Set<BlockKey> newFloating = computeFloatingOrbitKeys(visualCenter, rangeValue, tick, rnd);
-                updateTemporaryBlocksWithAccent(currentFloatingBlocks, newFloating, shellMaterial, shellAccentMaterial, 0.5, rnd);
-
-                double coreRadius = Math.max(1.0, Math.min(4.0, rangeValue * 0.32));
-                Set<BlockKey> newCore = computeCoreSwirlKeys(visualCenter, coreRadius, tick, rnd);
-                Material[] corePalette = new Material[] {
-                        Material.BLACK_STAINED_GLASS,
-                        Material.GRAY_STAINED_GLASS,
-                        Material.LIGHT_GRAY_STAINED_GLASS,
-                        Material.BLACK_CONCRETE,
-                        Material.GRAY_CONCRETE,
-                        Material.POLISHED_BLACKSTONE
-                };
-                updateTemporaryBlocksWithPalette(currentCoreBlocks, newCore, corePalette, rnd);
-
-                for (Entity e : center.getWorld().getNearbyEntities(center, rangeValue, rangeValue, rangeValue)) {
-                    if (e.equals(owner) || e.isDead()) continue;
-                    Location eloc = e.getLocation().clone();
-                    Vector toCenter = center.toVector().subtract(eloc.toVector());
-                    double distance = toCenter.length();
-                    if (distance <= 0.001) continue;
-                    double strengthFactor = 1.0 + ((rangeValue - Math.min(distance, rangeValue)) / rangeValue);
-                    double pull = Math.min(1.0 * strengthFactor, MAX_PULL);
-                    Vector vel = toCenter.normalize().multiply(pull);
-                    vel.setY(Math.max(vel.getY(), -0.5) + 0.12);
-                    e.setVelocity(vel);
-
-                    if (tick % DAMAGE_INTERVAL_TICKS == 0 && e instanceof LivingEntity) {
-                        ((LivingEntity)e).damage(damageValue, owner);
+                // con il server in affanno le parti animate si aggiornano meno spesso e con meno blocchi
+                QualityLevel quality = quality();
+                Frame frame = takeFrame(tick, geometryCenter, coreRadius, quality);
+                // il prossimo frame si calcola nel pool mentre questo viene applicato
+                if (tick + 1 < DURATION_TICKS) prefetchFrame(tick + 1, geometryCenter, coreRadius, quality);
+
+                updateTemporaryBlocksWithAccent(currentShellBlocks, frame.shell, shellMaterial, shellAccentMaterial, 0.12, rnd);
+                if (frame.animated) {
+                    updateTemporaryBlocksWithAccent(currentArmBlocks, frame.arms, armMaterial, armAccentMaterial, 0.18, rnd);
+                }
+
+                if (displays != null) {
+                    int step = DISPLAY_STEP_TICKS * quality.getFrameInterval();
+                    if (tick % step == 0) animateDisplays(tick, coreRadius, step);
+                } else if (frame.animated) {
+                    updateTemporaryBlocksWithAccent(currentFloatingBlocks, frame.floating, shellMaterial, shellAccentMaterial, 0.5, rnd);
+                    updateTemporaryBlocksWithPalette(currentCoreBlocks, frame.core, CORE_PALETTE, rnd);
+                }
+                if (phantom != null) phantom.flush(visualCenter);
+
+                boolean pullDue = pull.isDue(tick);
+                boolean damageDue = tick % DAMAGE_INTERVAL_TICKS == 0;
+                if (pullDue || damageDue) {
+                    entities().querySphere(center, rangeValue, targets, nearby);
+                    if (pullDue) pull.solve(nearby, owner, center, rangeValue, MAX_PULL, tick);
+                    if (damageDue) {
+                        for (Entity e : nearby) {
+                            if (e.equals(owner) || e.isDead()) continue;
+                            if (e instanceof LivingEntity) damage().submit(owner, (LivingEntity) e, damageValue);
+                        }
                     }
+                    nearby.clear();
                 }
 
                 tick++;
             }
-        }.runTaskTimer(AbilityPlugin.getInstance(), 0L, 1L);
+        }, 0L, 1L);
+    }
+
+    /**
+     * Frame del tick corrente: quello precalcolato se corrisponde, altrimenti calcolato ora.
+     */
+    private Frame takeFrame(int tick, Location geometryCenter, double coreRadius, QualityLevel quality) {
+        Frame frame = null;
+        if (pendingFrame != null) {
+            frame = geometry().join(pendingFrame);
+            pendingFrame = null;
+        }
+        if (frame == null || frame.tick != tick) {
+            frame = frames[tick & 1];
+            computeFrame(frame, tick, geometryCenter, coreRadius, quality, displays == null);
+        }
+        return frame;
+    }
+
+    private void prefetchFrame(int tick, Location geometryCenter, double coreRadius, QualityLevel quality) {
+        Frame target = frames[tick & 1];
+        boolean blockLayers = displays == null;
+        pendingFrame = geometry().submit(() -> {
+            computeFrame(target, tick, geometryCenter, coreRadius, quality, blockLayers);
+            return target;
+        });
+    }
+
+    // solo geometria: può girare fuori dal main thread
+    private void computeFrame(Frame frame, int tick, Location geometryCenter, double coreRadius, QualityLevel quality, boolean blockLayers) {
+        computeHollowSphereKeys(frame.shell, geometryCenter, rangeValue, 0.6);
+        frame.animated = quality.isFrameTick(tick);
+        if (frame.animated) {
+            computeRotatingArmsKeys(frame.arms, geometryCenter, rangeValue, tick, quality);
+            if (blockLayers) {
+                computeFloatingOrbitKeys(frame.floating, geometryCenter, rangeValue, tick, geometryRnd, quality);
+                computeCoreSwirlKeys(frame.core, geometryCenter, coreRadius, tick, geometryRnd, quality);
+            }
+        }
+        frame.tick = tick;
     }
 
     // suoni ambient sul centro visivo
@@ -156,137 +276,155 @@ public class BlackholeEffect {
         }
     }
 
-    private void updateTemporaryBlocksWithAccent(Set<BlockKey> currentSet, Set<BlockKey> targetSet, Material placeMaterial, Material accentMaterial, double accentChance, Random rnd) {
-        Set<BlockKey> toRemove = new HashSet<>(currentSet);
-        toRemove.removeAll(targetSet);
-        for (BlockKey key : toRemove) {
-            BlockSnapshot snap = modifiedBlocks.get(key);
-            Location loc = key.toLocation();
-            if (loc == null) continue;
-            Block b = loc.getBlock();
-            if (snap != null) {
-                try {
-                    b.setType(snap.material, false);
-                    try { b.setBlockData(snap.data, false); } catch (Throwable ignored) {}
-                } catch (Throwable ignored) {}
-            } else {
-                try { b.setType(Material.AIR, false); } catch (Throwable ignored) {}
-            }
-            currentSet.remove(key);
+    private void updateTemporaryBlocksWithAccent(LongHashSet currentSet, LongHashSet targetSet, Material placeMaterial, Material accentMaterial, double accentChance, Random rnd) {
+        removeStaleBlocks(currentSet, targetSet);
+        for (int i = targetSet.firstSlot(); i >= 0; i = targetSet.nextSlot(i)) {
+            long key = targetSet.keyAt(i);
+            if (currentSet.contains(key)) continue;
+            Material chosen = (rnd.nextDouble() < accentChance) ? accentMaterial : placeMaterial;
+            if (placeTemporaryBlock(key, chosen)) currentSet.add(key);
         }
+    }
 
-        for (BlockKey key : targetSet) {
+    private void updateTemporaryBlocksWithPalette(LongHashSet currentSet, LongHashSet targetSet, Material[] palette, Random rnd) {
+        removeStaleBlocks(currentSet, targetSet);
+        for (int i = targetSet.firstSlot(); i >= 0; i = targetSet.nextSlot(i)) {
+            long key = targetSet.keyAt(i);
             if (currentSet.contains(key)) continue;
-            Location loc = key.toLocation();
-            if (loc == null) continue;
-            Block b = loc.getBlock();
-            Material orig = b.getType();
-            if (orig == Material.BEDROCK) continue;
-            if (!modifiedBlocks.containsKey(key)) {
-                try {
-                    modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData().clone()));
-                } catch (Throwable ex) {
-                    modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData()));
-                }
-            }
-            Material chosen = (rnd.nextDouble() < accentChance) ? accentMaterial : placeMaterial;
-            try {
-                b.setType(chosen, false);
-                try { b.setBlockData(chosen.createBlockData(), false); } catch (Throwable ignored) {}
-            } catch (Throwable ignored) {}
-            currentSet.add(key);
+            Material chosen = palette[rnd.nextInt(palette.length)];
+            if (placeTemporaryBlock(key, chosen)) currentSet.add(key);
         }
     }
 
-    private void updateTemporaryBlocksWithPalette(Set<BlockKey> currentSet, Set<BlockKey> targetSet, Material[] palette, Random rnd) {
-        Set<BlockKey> toRemove = new HashSet<>(currentSet);
-        toRemove.removeAll(targetSet);
-        for (BlockKey key : toRemove) {
-            BlockSnapshot snap = modifiedBlocks.get(key);
-            Location loc = key.toLocation();
-            if (loc == null) continue;
-            Block b = loc.getBlock();
-            if (snap != null) {
-                try {
-                    b.setType(snap.material, false);
-                    try { b.setBlockData(snap.data, false); } catch (Throwable ignored) {}
-                } catch (Throwable ignored) {}
+    // ripristina i blocchi del layer che non fanno più parte del frame
+    private void removeStaleBlocks(LongHashSet currentSet, LongHashSet targetSet) {
+        staleBlocks.clear();
+        for (int i = currentSet.firstSlot(); i >= 0; i = currentSet.nextSlot(i)) {
+            long key = currentSet.keyAt(i);
+            if (!targetSet.contains(key)) staleBlocks.add(key);
+        }
+        for (int i = 0, n = staleBlocks.size(); i < n; i++) {
+            long key = staleBlocks.get(i);
+            currentSet.remove(key);
+            if (phantom != null) {
+                phantom.hide(key);
+                continue;
+            }
+            BlockData original = modifiedBlocks.get(key);
+            if (original != null) {
+                mutations().submitRestore(world, key, original);
             } else {
-                try { b.setType(Material.AIR, false); } catch (Throwable ignored) {}
+                mutations().submit(world, key, BlockPalette.of(Material.AIR));
             }
-            currentSet.remove(key);
         }
+    }
 
-        for (BlockKey key : targetSet) {
-            if (currentSet.contains(key)) continue;
-            Location loc = key.toLocation();
-            if (loc == null) continue;
-            Block b = loc.getBlock();
-            Material orig = b.getType();
-            if (orig == Material.BEDROCK) continue;
-            if (!modifiedBlocks.containsKey(key)) {
-                try {
-                    modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData().clone()));
-                } catch (Throwable ex) {
-                    modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData()));
-                }
-            }
-            Material chosen = palette[rnd.nextInt(palette.length)];
-            try {
-                b.setType(chosen, false);
-                try { b.setBlockData(chosen.createBlockData(), false); } catch (Throwable ignored) {}
-            } catch (Throwable ignored) {}
-            currentSet.add(key);
+    private boolean placeTemporaryBlock(long key, Material chosen) {
+        if (phantom != null) {
+            phantom.show(key, BlockPalette.of(chosen));
+            return true;
         }
+        // mai caricare un chunk per un blocco decorativo: verrà ritentato al prossimo frame
+        if (!mutations().isWritable(world, key)) return false;
+        if (!modifiedBlocks.contains(key)) {
+            BlockData current = world.getBlockAt(BlockKeys.x(key), BlockKeys.y(key), BlockKeys.z(key)).getBlockData();
+            if (current.getMaterial() == Material.BEDROCK) return false;
+            // se un effetto terminato deve ancora ripristinare il blocco, l'originale è il suo snapshot
+            BlockData pending = restores().pendingOriginal(world, key);
+            BlockData original = pending != null ? pending : current;
+            modifiedBlocks.put(key, original);
+            journal().record(journalSession, world, key, original);
+        }
+        mutations().submit(world, key, BlockPalette.of(chosen));
+        return true;
     }
 
-    private Set<BlockKey> computeHollowSphereKeys(Location center, double radius, double shellThickness) {
-        Set<BlockKey> out = new HashSet<>();
-        int cr = (int)Math.ceil(radius);
+    private void computeHollowSphereKeys(LongHashSet out, Location center, double radius, double shellThickness) {
+        out.clear();
+        SphereStencil stencil = SphereStencilCache.shell(radius, shellThickness, 0.5);
         int cx = center.getBlockX();
         int cy = center.getBlockY();
         int cz = center.getBlockZ();
-        double r2 = radius*radius;
-        double inner = Math.max(0.5, radius - shellThickness);
-        double inner2 = inner*inner;
-        for (int x = -cr; x <= cr; x++) {
-            for (int y = -cr; y <= cr; y++) {
-                for (int z = -cr; z <= cr; z++) {
-                    double dx = x + 0.5;
-                    double dy = y + 0.5;
-                    double dz = z + 0.5;
-                    double d2 = dx*dx + dy*dy + dz*dz;
-                    if (d2 <= r2 && d2 >= inner2) {
-                        out.add(new BlockKey(center.getWorld(), cx + x, cy + y, cz + z));
-                    }
-                }
-            }
+        for (int i = 0, n = stencil.size(); i < n; i++) {
+            out.add(BlockKeys.pack(cx + stencil.dx(i), cy + stencil.dy(i), cz + stencil.dz(i)));
         }
-        return out;
     }
 
-    private Set<BlockKey> computeRotatingArmsKeys(Location center, double radius, int tick) {
-        Set<BlockKey> out = new HashSet<>();
+    private void computeRotatingArmsKeys(LongHashSet out, Location center, double radius, int tick, QualityLevel quality) {
+        out.clear();
         int arms = Math.max(3, (int)Math.min(6, radius));
         double armLen = Math.max(2.0, radius * 0.9);
         double spin = tick * 0.08;
+        double armStep = Math.min(armLen, 0.8 / quality.getDensity());
         for (int a = 0; a < arms; a++) {
             double baseAngle = (a * (2 * Math.PI / arms)) + spin;
-            for (double d = 0.6; d <= armLen; d += 0.8) {
-                double angle = baseAngle + Math.sin(tick * 0.06 + d) * 0.25;
-                double x = Math.cos(angle) * d;
-                double z = Math.sin(angle) * d;
-                double y = Math.sin(d * 0.6 + tick * 0.06) * 0.6;
-                Location pos = center.clone().add(x, y, z);
-                out.add(new BlockKey(center.getWorld(), pos.getBlockX(), pos.getBlockY(), pos.getBlockZ()));
+            for (double d = 0.6; d <= armLen; d += armStep) {
+                double angle = baseAngle + FastTrig.sin(tick * 0.06 + d) * 0.25;
+                double x = FastTrig.cos(angle) * d;
+                double z = FastTrig.sin(angle) * d;
+                double y = FastTrig.sin(d * 0.6 + tick * 0.06) * 0.6;
+                out.add(blockKeyAt(center, x, y, z));
+            }
+        }
+    }
+
+    private static int orbCount(double radius) {
+        return Math.max(8, (int)Math.min(36, Math.ceil(radius * 4)));
+    }
+
+    private void spawnDisplays(Location visualCenter, double coreRadius) {
+        displays = new DisplayRenderer(visualCenter);
+        orbitDisplays = orbCount(rangeValue);
+        for (int i = 0; i < orbitDisplays; i++) {
+            displays.spawn(BlockPalette.of(i % 4 == 0 ? shellAccentMaterial : shellMaterial));
+        }
+        coreRings = 3 + (int)Math.floor(coreRadius);
+        for (int ring = 0; ring < coreRings; ring++) {
+            for (int p = 0; p < CORE_DISPLAYS_PER_RING; p++) {
+                displays.spawn(BlockPalette.of(CORE_PALETTE[(ring + p) % CORE_PALETTE.length]));
+            }
+        }
+    }
+
+    /**
+     * Stesse traiettorie di computeFloatingOrbitKeys/computeCoreSwirlKeys, senza jitter casuale:
+     * si invia la posa del prossimo step e il client interpola.
+     */
+    private void animateDisplays(int tick, double coreRadius, int step) {
+        int t = tick == 0 ? 0 : tick + step;
+        int duration = tick == 0 ? 0 : step;
+
+        double baseRadius = Math.max(0.8, rangeValue * 0.6);
+        for (int i = 0; i < orbitDisplays; i++) {
+            double speedFactor = 0.03 + (i % 5) * 0.007;
+            double angle = (t * speedFactor) + (i * (2 * Math.PI / orbitDisplays)) + FastTrig.sin(i * 0.37) * 0.2;
+            double pulse = 0.7 + 0.3 * FastTrig.sin(t * 0.02 + i);
+            double orbitR = baseRadius * (0.4 + (i % 6) * 0.08) * pulse;
+            double layerFactor = ((i % Math.max(1, orbitDisplays/6)) / (double)Math.max(1, (orbitDisplays/6)));
+            double yBase = -0.1 + layerFactor;
+            double yOsc = FastTrig.sin(t * (0.04 + (i % 3) * 0.01) + i * 0.5) * (rangeValue * 0.35);
+            displays.move(i, (float) (FastTrig.cos(angle) * orbitR), (float) (yBase * rangeValue + yOsc), (float) (FastTrig.sin(angle) * orbitR),
+                    (float) -angle, 0.8f, duration);
+        }
+
+        int index = orbitDisplays;
+        for (int ring = 0; ring < coreRings; ring++) {
+            double ringFactor = 1.0 - (ring / (double)coreRings) * 0.85;
+            double ringR = coreRadius * (0.12 + ringFactor * 0.6);
+            double ringSpin = t * (0.18 + ring * 0.06) * (ring % 2 == 0 ? 1.0 : -1.0);
+            for (int p = 0; p < CORE_DISPLAYS_PER_RING; p++) {
+                double baseAngle = (p * (2 * Math.PI / CORE_DISPLAYS_PER_RING)) + ringSpin;
+                double r = ringR * (0.7 + 0.6 * FastTrig.sin(t * 0.03 + p));
+                double y = (FastTrig.sin(t * 0.09 + p * 0.21) * 0.18) + (ring - coreRings/2.0) * 0.14;
+                displays.move(index++, (float) (FastTrig.cos(baseAngle) * r), (float) y, (float) (FastTrig.sin(baseAngle) * r),
+                        (float) -baseAngle, 0.55f, duration);
             }
         }
-        return out;
     }
 
-    private Set<BlockKey> computeFloatingOrbitKeys(Location center, double radius, int tick, Random rnd) {
-        Set<BlockKey> out = new HashSet<>();
-        int totalOrbs = Math.max(8, (int)Math.min(36, Math.ceil(radius * 4)));
+    private void computeFloatingOrbitKeys(LongHashSet out, Location center, double radius, int tick, Random rnd, QualityLevel quality) {
+        out.clear();
+        int totalOrbs = quality.scale(orbCount(radius));
         double baseRadius = Math.max(0.8, radius * 0.6);
 
         double minYFactor = -0.1;
@@ -294,57 +432,52 @@ public class BlackholeEffect {
 
         for (int i = 0; i < totalOrbs; i++) {
             double speedFactor = 0.03 + (i % 5) * 0.007;
-            double angle = (tick * speedFactor) + (i * (2 * Math.PI / totalOrbs)) + Math.sin(i * 0.37) * 0.2;
-            double pulse = 0.7 + 0.3 * Math.sin(tick * 0.02 + i);
+            double angle = (tick * speedFactor) + (i * (2 * Math.PI / totalOrbs)) + FastTrig.sin(i * 0.37) * 0.2;
+            double pulse = 0.7 + 0.3 * FastTrig.sin(tick * 0.02 + i);
             double orbitR = baseRadius * (0.4 + (i % 6) * 0.08) * pulse;
-            double x = Math.cos(angle) * orbitR;
-            double z = Math.sin(angle) * orbitR;
+            double x = FastTrig.cos(angle) * orbitR;
+            double z = FastTrig.sin(angle) * orbitR;
             double layerFactor = ((i % Math.max(1, totalOrbs/6)) / (double)Math.max(1, (totalOrbs/6)));
             double yBase = minYFactor + layerFactor * (maxYFactor - minYFactor);
-            double yOsc = Math.sin(tick * (0.04 + (i % 3) * 0.01) + i * 0.5) * (radius * 0.35);
+            double yOsc = FastTrig.sin(tick * (0.04 + (i % 3) * 0.01) + i * 0.5) * (radius * 0.35);
             double y = (yBase * radius) + yOsc;
-            Location pos = center.clone().add(x, y, z);
-            out.add(new BlockKey(center.getWorld(), pos.getBlockX(), pos.getBlockY(), pos.getBlockZ()));
+            out.add(blockKeyAt(center, x, y, z));
             if (rnd.nextDouble() < 0.12) {
                 double sx = x + (rnd.nextDouble()-0.5)*0.6;
                 double sz = z + (rnd.nextDouble()-0.5)*0.6;
                 double sy = y + (rnd.nextDouble()-0.5)*0.5;
-                Location p2 = center.clone().add(sx, sy, sz);
-                out.add(new BlockKey(center.getWorld(), p2.getBlockX(), p2.getBlockY(), p2.getBlockZ()));
+                out.add(blockKeyAt(center, sx, sy, sz));
             }
         }
-        return out;
     }
 
-    private Set<BlockKey> computeCoreSwirlKeys(Location center, double coreRadius, int tick, Random rnd) {
-        Set<BlockKey> out = new HashSet<>();
+    private void computeCoreSwirlKeys(LongHashSet out, Location center, double coreRadius, int tick, Random rnd, QualityLevel quality) {
+        out.clear();
 
         int rings = 3 + (int)Math.floor(coreRadius); // numero anelli
         for (int ring = 0; ring < rings; ring++) {
             double ringFactor = 1.0 - (ring / (double)rings) * 0.85; // anelli più interni sono più densi
             double ringR = coreRadius * (0.12 + ringFactor * 0.6);
-            int points = Math.max(10, (int)(12 + coreRadius * 8 * ringFactor));
+            int points = quality.scale(Math.max(10, (int)(12 + coreRadius * 8 * ringFactor)));
             double ringSpin = tick * (0.18 + ring * 0.06) * (ring % 2 == 0 ? 1.0 : -1.0);
 
             for (int p = 0; p < points; p++) {
-                double baseAngle = (p * (2 * Math.PI / points)) + ringSpin + Math.sin(p * 0.37 + tick * 0.06) * 0.25;
-                double radiusJitter = ringR * (0.7 + 0.6 * Math.sin(tick * 0.03 + p));
-                double x = Math.cos(baseAngle) * radiusJitter;
-                double z = Math.sin(baseAngle) * radiusJitter;
+                double baseAngle = (p * (2 * Math.PI / points)) + ringSpin + FastTrig.sin(p * 0.37 + tick * 0.06) * 0.25;
+                double radiusJitter = ringR * (0.7 + 0.6 * FastTrig.sin(tick * 0.03 + p));
+                double x = FastTrig.cos(baseAngle) * radiusJitter;
+                double z = FastTrig.sin(baseAngle) * radiusJitter;
 
-                double y = (Math.sin(tick * 0.09 + p * 0.21) * 0.18) + (ring - rings/2.0) * 0.14;
+                double y = (FastTrig.sin(tick * 0.09 + p * 0.21) * 0.18) + (ring - rings/2.0) * 0.14;
                 double jx = (rnd.nextDouble() - 0.5) * 0.18;
                 double jz = (rnd.nextDouble() - 0.5) * 0.18;
                 double jy = (rnd.nextDouble() - 0.5) * 0.06;
 
-                Location pos = center.clone().add(x + jx, y + jy, z + jz);
-                out.add(new BlockKey(center.getWorld(), pos.getBlockX(), pos.getBlockY(), pos.getBlockZ()));
+                out.add(blockKeyAt(center, x + jx, y + jy, z + jz));
 
                 if (rnd.nextDouble() < 0.2) {
-                    double smallR = Math.random() * (coreRadius * 0.18);
-                    double a2 = baseAngle + (Math.random() - 0.5) * 0.7;
-                    Location p2 = center.clone().add(Math.cos(a2) * smallR, y + (Math.random()-0.5)*0.06, Math.sin(a2) * smallR);
-                    out.add(new BlockKey(center.getWorld(), p2.getBlockX(), p2.getBlockY(), p2.getBlockZ()));
+                    double smallR = rnd.nextDouble() * (coreRadius * 0.18);
+                    double a2 = baseAngle + (rnd.nextDouble() - 0.5) * 0.7;
+                    out.add(blockKeyAt(center, FastTrig.cos(a2) * smallR, y + (rnd.nextDouble()-0.5)*0.06, FastTrig.sin(a2) * smallR));
                 }
             }
         }
@@ -352,39 +485,62 @@ public class BlackholeEffect {
         for (int i = 0; i < Math.max(3, (int)(coreRadius * 3)); i++) {
             double ang = rnd.nextDouble() * Math.PI * 2;
             double r = rnd.nextDouble() * (coreRadius * 0.18);
-            double x = Math.cos(ang) * r;
-            double z = Math.sin(ang) * r;
+            double x = FastTrig.cos(ang) * r;
+            double z = FastTrig.sin(ang) * r;
             double y = (rnd.nextDouble() - 0.5) * 0.12;
-            Location p = center.clone().add(x, y, z);
-            out.add(new BlockKey(center.getWorld(), p.getBlockX(), p.getBlockY(), p.getBlockZ()));
+            out.add(blockKeyAt(center, x, y, z));
         }
-
-        return out;
     }
 
     private void restoreAllModifiedBlocks() {
-        Map<BlockKey, BlockSnapshot> toRestore = new HashMap<>(modifiedBlocks);
-        modifiedBlocks.clear();
         currentShellBlocks.clear();
         currentArmBlocks.clear();
         currentFloatingBlocks.clear();
         currentCoreBlocks.clear();
-        for (Map.Entry<BlockKey, BlockSnapshot> e : toRestore.entrySet()) {
-            BlockKey key = e.getKey();
-            BlockSnapshot snap = e.getValue();
-            Location loc = key.toLocation();
-            if (loc == null) continue;
-            try {
-                Block b = loc.getBlock();
-                if (snap.material == Material.AIR) {
-                    b.setType(Material.AIR, false);
-                } else {
-                    b.setType(snap.material, false);
-                    try { b.setBlockData(snap.data, false); } catch (Throwable ignored) {}
-                }
-            } catch (Throwable ex) {
-                AbilityPlugin.getInstance().getLogger().warning("Impossibile ripristinare blocco in " + loc + ": " + ex.getMessage());
-            }
+        if (phantom != null) phantom.clear();
+        pull.clear();
+        if (displays != null) {
+            displays.removeAll();
+            displays = null;
         }
+        // ripristino distribuito su più tick; chiude anche la sessione del journal
+        restores().schedule(world, modifiedBlocks, journalSession);
+        modifiedBlocks.clear();
+        journalSession = 0;
+    }
+
+    private static long blockKeyAt(Location center, double x, double y, double z) {
+        return BlockKeys.pack(
+                Location.locToBlock(center.getX() + x),
+                Location.locToBlock(center.getY() + y),
+                Location.locToBlock(center.getZ() + z));
+    }
+
+    private static BlockMutationManager mutations() {
+        return AbilityPlugin.getInstance().getBlockMutationManager();
+    }
+
+    private static RestoreScheduler restores() {
+        return AbilityPlugin.getInstance().getRestoreScheduler();
+    }
+
+    private static RestoreJournal journal() {
+        return AbilityPlugin.getInstance().getRestoreJournal();
+    }
+
+    private static GeometryWorker geometry() {
+        return AbilityPlugin.getInstance().getGeometryWorker();
+    }
+
+    private static EntityIndex entities() {
+        return AbilityPlugin.getInstance().getEntityIndex();
+    }
+
+    private static DamageQueue damage() {
+        return AbilityPlugin.getInstance().getDamageQueue();
+    }
+
+    private static QualityLevel quality() {
+        return AbilityPlugin.getInstance().getQualityGovernor().getLevel();
     }
 }
\ No newline at end of file
@@ -1,25 +1,50 @@
 package me.pezzo.abilityPlugin.managers.effects;
 
 import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+import me.pezzo.abilityPlugin.enums.RenderMode;
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import me.pezzo.abilityPlugin.managers.blocks.BlockMutationManager;
+import me.pezzo.abilityPlugin.managers.blocks.BlockPalette;
+import me.pezzo.abilityPlugin.managers.blocks.PhantomBlockRenderer;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreJournal;
+import me.pezzo.abilityPlugin.managers.blocks.RestoreScheduler;
+import me.pezzo.abilityPlugin.managers.blocks.SnapshotStore;
+import me.pezzo.abilityPlugin.managers.damage.DamageQueue;
+import me.pezzo.abilityPlugin.managers.entities.EntityIndex;
+import me.pezzo.abilityPlugin.managers.entities.TargetFilter;
+import me.pezzo.abilityPlugin.managers.geometry.FastTrig;
+import me.pezzo.abilityPlugin.managers.geometry.ShapeTables;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencil;
+import me.pezzo.abilityPlugin.managers.geometry.SphereStencilCache;
+import me.pezzo.abilityPlugin.managers.geometry.StencilDelta;
+import me.pezzo.abilityPlugin.managers.particles.ParticleBatch;
+import me.pezzo.abilityPlugin.managers.particles.ParticleLod;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.Tickable;
+import me.pezzo.abilityPlugin.utils.LongArrayList;
+import me.pezzo.abilityPlugin.utils.LongHashSet;
 import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.Sound;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class BluHollowEffect {
 
     private final Player owner;
+    private final World world;
     private Location position;
     private final double damage;
     private final double radius;
@@ -29,49 +54,42 @@ public class BluHollowEffect {
     private Vector velocity = new Vector(0, 0, 0);
     private final double offsetDistance;
     private final Material shellMaterial = Material.BLUE_STAINED_GLASS;
+    private static final double SHELL_THICKNESS = 0.7;
+    private static final double MIN_INNER_RADIUS = 0.6;
+    private final RenderMode renderMode;
+    private PhantomBlockRenderer phantom;
+    private int journalSession;
+
+    private static final Particle.DustOptions INNER_DUST = new Particle.DustOptions(Color.fromRGB(90, 170, 255), 0.9f);
+    private final ParticleBatch particles = new ParticleBatch(ParticleLod.forAbility("bluhollow"));
+    // riusata a ogni query sull'indice delle entità
+    private final List<Entity> nearby = new ArrayList<>();
+    private final TargetFilter targets = TargetFilter.forAbility("bluhollow", TargetFilter.LIVING);
+
+    // blocco centrale dell'ultimo frame applicato; la sfera viene aggiornata solo quando cambia
+    private boolean framePlaced = false;
+    private int lastCx, lastCy, lastCz;
+
+    private final SnapshotStore modifiedBlocks = new SnapshotStore(1024);
+    // blocchi svuotati dall'interno: restano aria anche quando la shell ci passa sopra
+    private final LongHashSet clearedInterior = new LongHashSet(1024);
+    // blocchi della sfera saltati perché il chunk non era scrivibile: riprovati finché restano nella sfera
+    private final LongHashSet skippedShell = new LongHashSet(64);
+    private final LongHashSet skippedInterior = new LongHashSet(64);
+    private final LongArrayList retryScratch = new LongArrayList(64);
 
-
-    private final Set<BlockKey> currentShellBlocks = new HashSet<>();
-
-    private final Map<BlockKey, BlockSnapshot> modifiedBlocks = new HashMap<>();
-
-    private static final class BlockSnapshot {
-        final Material material;
-        final BlockData data;
-        final boolean persistent;
-        BlockSnapshot(Material material, BlockData data, boolean persistent) {
-            this.material = material;
-            this.data = data;
-            this.persistent = persistent;
-        }
-    }
-
-    private static final class BlockKey {
-        final UUID world;
-        final int x, y, z;
-        BlockKey(World w, int x, int y, int z) {
-            this.world = w.getUID();
-            this.x = x; this.y = y; this.z = z;
-        }
-        Location toLocation() {
-            World w = AbilityPlugin.getInstance().getServer().getWorld(world);
-            return w == null ? null : new Location(w, x, y, z);
-        }
-        @Override public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof BlockKey)) return false;
-            BlockKey b = (BlockKey) o;
-            return x==b.x && y==b.y && z==b.z && Objects.equals(world, b.world);
-        }
-        @Override public int hashCode() { return Objects.hash(world, x, y, z); }
+    public BluHollowEffect(Player owner, Location start, Vector initialDirection, double damage, double radius, double speed, int durationTicks, boolean destroyBlocks, double anchorDistance) {
+        this(owner, start, initialDirection, damage, radius, speed, durationTicks, destroyBlocks, anchorDistance, RenderMode.WORLD);
     }
 
-    public BluHollowEffect(Player owner, Location start, Vector initialDirection, double damage, double radius, double speed, int durationTicks, boolean destroyBlocks, double anchorDistance) {
+    public BluHollowEffect(Player owner, Location start, Vector initialDirection, double damage, double radius, double speed, int durationTicks, boolean destroyBlocks, double anchorDistance, RenderMode renderMode) {
         this.owner = owner;
+        this.renderMode = renderMode == null ? RenderMode.WORLD : renderMode;
         this.offsetDistance = Math.max(0.1, anchorDistance);
         Location eye = owner.getEyeLocation();
         Vector look = eye.getDirection().normalize();
         this.position = eye.clone().add(look.multiply(this.offsetDistance));
+        this.world = this.position.getWorld();
         this.damage = damage;
         this.radius = Math.max(0.5, radius);
         this.speed = Math.max(0.05, speed);
@@ -80,18 +98,53 @@ public class BluHollowEffect {
         this.velocity = initialDirection == null ? new Vector(0,0,0) : initialDirection.clone().normalize().multiply(this.speed);
     }
 
-    public void start() {
+    /**
+     * Blocchi toccati per tick, il costo con cui l'AdmissionController conta un BluHollow: il primo frame
+     * (shell e interno svuotato) distribuito sulla durata, più la differenza di un frame che si sposta
+     * di {@code speed} blocchi, cioè quello che {@link #translateFrame} scrive a ogni tick.
+     */
+    public static int estimateBlocksPerTick(double radius, double speed, int durationTicks) {
+        double r = Math.max(0.5, radius);
+        SphereStencil shell = SphereStencilCache.shell(r, SHELL_THICKNESS, MIN_INNER_RADIUS);
+        SphereStencil interior = SphereStencilCache.interior(r, SHELL_THICKNESS, MIN_INNER_RADIUS);
+        int firstFrame = shell.size() + interior.size();
+        int step = Math.max(1, (int) Math.ceil(speed));
+        StencilDelta shellDelta = shell.translate(step, 0, 0);
+        int perTick = shellDelta.removedSize() + shellDelta.addedSize() + interior.translate(step, 0, 0).addedSize();
+        return (int) Math.ceil(firstFrame / (double) Math.max(1, durationTicks)) + Math.min(perTick, firstFrame);
+    }
+
+    public EffectHandle start() {
+        if (renderMode == RenderMode.PACKETS) {
+            // solo la shell è visiva: l'interno distrutto resta una modifica reale
+            phantom = PhantomBlockRenderer.create(world);
+        }
+        journalSession = journal().openSession();
+        journal().declarePalette(journalSession, List.of(shellMaterial, Material.AIR));
+
         position.getWorld().playSound(position, Sound.ENTITY_ELDER_GUARDIAN_CURSE, 1.2f, 0.7f);
 
-        new BukkitRunnable() {
+        return AbilityPlugin.getInstance().getEffectScheduler().schedule(owner.getUniqueId(), "bluhollow", new Tickable() {
             int tick = 0;
             final Random rnd = new Random();
 
             @Override
-            public void run() {
-                if (!owner.isOnline()) {
+            public void onAbort() {
+                restoreAllModifiedBlocks();
+            }
+
+            // la sfera si muove: su Folia l'effetto passa alla regione in cui si trova
+            @Override
+            public Location anchor() {
+                return position;
+            }
+
+            @Override
+            public void tick(EffectHandle handle) {
+                // le chiavi dei blocchi non contengono il mondo: l'effetto resta nel mondo di partenza
+                if (!owner.isOnline() || !world.equals(owner.getWorld())) {
                     restoreAllModifiedBlocks();
-                    cancel();
+                    handle.cancel();
                     return;
                 }
 
@@ -99,7 +152,7 @@ public class BluHollowEffect {
                     position.getWorld().spawnParticle(Particle.EXPLOSION_LARGE, position.clone(), 6, 0.8, 0.8, 0.8, 0.0);
                     position.getWorld().playSound(position, Sound.ENTITY_GENERIC_EXPLODE, 1.1f, 0.6f);
                     restoreAllModifiedBlocks();
-                    cancel();
+                    handle.cancel();
                     return;
                 }
                 try {
@@ -110,205 +163,225 @@ public class BluHollowEffect {
                     position.add(velocity);
                 }
 
-                spawnInternalParticles(tick);
-
-                Set<BlockKey> newShell = computeShellBlockKeys(position, radius);
-
-                Set<BlockKey> toRemoveShell = new HashSet<>(currentShellBlocks);
-                toRemoveShell.removeAll(newShell);
-                for (BlockKey key : toRemoveShell) {
-                    BlockSnapshot snap = modifiedBlocks.get(key);
-                    Location loc = key.toLocation();
-                    if (loc == null) continue;
-                    Block b = loc.getBlock();
-                    if (snap != null && snap.persistent) {
-                        try { b.setType(Material.AIR, false); } catch (Throwable ignored) {}
-                    } else {
-                        if (snap != null) {
-                            try {
-                                b.setType(snap.material, false);
-                                try { b.setBlockData(snap.data, false); } catch (Throwable ignored) {}
-                            } catch (Throwable ignored) {}
-                        } else {
-                            try { b.setType(Material.AIR, false); } catch (Throwable ignored) {}
-                        }
-                    }
-                }
-
-                for (BlockKey key : newShell) {
-                    Location loc = key.toLocation();
-                    if (loc == null) continue;
-                    Block b = loc.getBlock();
-                    Material orig = b.getType();
-                    if (orig == Material.BEDROCK) continue;
-
-
-                    if (!modifiedBlocks.containsKey(key)) {
-                        try {
-                            modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData().clone(), false));
-                        } catch (Throwable ex) {
-                            modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData(), false));
-                        }
-                    }
-
-                    try {
-                        b.setType(shellMaterial, false);
-                        try { b.setBlockData(shellMaterial.createBlockData(), false); } catch (Throwable ignored) {}
-                    } catch (Throwable ignored) {}
+                QualityLevel quality = quality();
+                spawnInternalParticles(tick, quality);
+
+                int cx = position.getBlockX();
+                int cy = position.getBlockY();
+                int cz = position.getBlockZ();
+                boolean moved = cx != lastCx || cy != lastCy || cz != lastCz;
+                if (!framePlaced || (moved && quality.isFrameTick(tick))) {
+                    // a qualità ridotta la sfera segue il centro solo ogni frameInterval tick
+                    if (!framePlaced) placeFullFrame(cx, cy, cz);
+                    else translateFrame(cx, cy, cz);
+                    framePlaced = true;
+                    lastCx = cx;
+                    lastCy = cy;
+                    lastCz = cz;
                 }
-
-                Set<BlockKey> interior = computeInteriorBlockKeys(position, radius);
-                for (BlockKey key : interior) {
-                    Location loc = key.toLocation();
-                    if (loc == null) continue;
-                    Block b = loc.getBlock();
-                    Material orig = b.getType();
-                    if (orig == Material.BEDROCK) continue;
-
-                    if (!modifiedBlocks.containsKey(key)) {
-                        try {
-                            modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData().clone(), true));
-                        } catch (Throwable ex) {
-                            modifiedBlocks.put(key, new BlockSnapshot(orig, b.getBlockData(), true));
-                        }
-                    } else {
-                        BlockSnapshot existing = modifiedBlocks.get(key);
-                        if (!existing.persistent) {
-                            modifiedBlocks.put(key, new BlockSnapshot(existing.material, existing.data, true));
-                        }
-                    }
-
-                    try { b.setType(Material.AIR, false); } catch (Throwable ignored) {}
-                }
-
-                currentShellBlocks.clear();
-                currentShellBlocks.addAll(newShell);
+                if (!skippedShell.isEmpty() || !skippedInterior.isEmpty()) retrySkipped();
+                if (phantom != null) phantom.flush(position);
 
                 damageEntitiesInSphere(position, radius);
 
                 tick++;
             }
-        }.runTaskTimer(AbilityPlugin.getInstance(), 0L, 1L);
+        }, 0L, 1L);
     }
 
-    private void spawnInternalParticles(int tick) {
-        int particlesPerTick = 20;
+    private void spawnInternalParticles(int tick, QualityLevel quality) {
+        double px = position.getX(), py = position.getY(), pz = position.getZ();
+        int particlesPerTick = quality.scale(20);
+        // campioni dalla sfera unitaria precalcolata, scalati al volume interno
+        double[] ball = ShapeTables.unitBall();
+        double inner = radius * 0.7;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
         for (int i = 0; i < particlesPerTick; i++) {
-            double u = Math.random() * 2.0 - 1.0;
-            double theta = Math.random() * Math.PI * 2.0;
-            double r = Math.cbrt(Math.random()) * (radius * 0.7); // distribuirle nel volume
-            double x = r * Math.sqrt(1 - u * u) * Math.cos(theta);
-            double y = r * u;
-            double z = r * Math.sqrt(1 - u * u) * Math.sin(theta);
-            Location p = position.clone().add(x, y, z);
-            position.getWorld().spawnParticle(Particle.REDSTONE, p, 1, 0, 0, 0, 0, new Particle.DustOptions(Color.fromRGB(90, 170, 255), 0.9f));
+            int j = rnd.nextInt(ShapeTables.unitBallSize()) * 3;
+            particles.add(Particle.REDSTONE, px + ball[j] * inner, py + ball[j + 1] * inner, pz + ball[j + 2] * inner, 1, 0, 0, 0, 0, INNER_DUST);
         }
-        int ringPoints = 14;
+        int ringPoints = quality.scale(14);
+        double[] ring = ShapeTables.ring(ringPoints);
+        double spin = tick * 0.12;
+        double c = FastTrig.cos(spin), sn = FastTrig.sin(spin);
+        double ringR = radius * 0.95;
+        double ringY = py + FastTrig.sin(tick * 0.08) * 0.2;
         for (int i = 0; i < ringPoints; i++) {
-            double ang = (tick * 0.12) + (i * (Math.PI * 2) / ringPoints);
-            double rx = Math.cos(ang) * (radius * 0.95);
-            double rz = Math.sin(ang) * (radius * 0.95);
-            Location p = position.clone().add(rx, Math.sin(tick * 0.08) * 0.2, rz);
-            position.getWorld().spawnParticle(Particle.SPELL, p, 1, 0.02, 0.02, 0.02, 0.01);
+            double rx = ShapeTables.rotateX(ring, i, c, sn) * ringR;
+            double rz = ShapeTables.rotateZ(ring, i, c, sn) * ringR;
+            particles.add(Particle.SPELL, px + rx, ringY, pz + rz, 1, 0.02, 0.02, 0.02, 0.01, null);
         }
         if (tick % 10 == 0) {
-            position.getWorld().spawnParticle(Particle.END_ROD, position.clone(), 8, radius*0.4, radius*0.4, radius*0.4, 0.01);
+            particles.add(Particle.END_ROD, position, 8, radius*0.4, radius*0.4, radius*0.4, 0.01);
         }
+        particles.flush(world);
     }
 
     private void damageEntitiesInSphere(Location center, double radius) {
-        Set<UUID> damaged = new HashSet<>();
-        for (Entity e : center.getWorld().getNearbyEntities(center, radius, radius, radius)) {
+        Vector push = velocity.clone().normalize().multiply(0.6);
+        push.setY(Math.max(push.getY(), 0.2));
+        for (Entity e : entities().querySphere(center, radius, targets, nearby)) {
             if (!(e instanceof LivingEntity)) continue;
             if (e.equals(owner)) continue;
             if (e.isDead()) continue;
-            double d = e.getLocation().distance(center);
-            if (d <= radius) {
-                UUID id = e.getUniqueId();
-                if (damaged.add(id)) {
-                    LivingEntity le = (LivingEntity) e;
-                    le.damage(damage, owner);
-                    if (!le.isDead()) {
-                        Vector push = velocity.clone().normalize().multiply(0.6);
-                        push.setY(Math.max(push.getY(), 0.2));
-                        le.setVelocity(push);
-                    }
-                }
-            }
+            damage().submit(owner, (LivingEntity) e, damage).velocity(push);
         }
     }
 
-    private Set<BlockKey> computeShellBlockKeys(Location center, double radius) {
-        Set<BlockKey> out = new HashSet<>();
-        int cr = (int) Math.ceil(radius);
-        int cx = center.getBlockX();
-        int cy = center.getBlockY();
-        int cz = center.getBlockZ();
-        double r2 = radius * radius;
-        double innerThreshold = Math.max(0.6, radius - 0.7);
-        double inner2 = innerThreshold * innerThreshold;
-        for (int x = -cr; x <= cr; x++) {
-            for (int y = -cr; y <= cr; y++) {
-                for (int z = -cr; z <= cr; z++) {
-                    double dx = x + 0.5;
-                    double dy = y + 0.5;
-                    double dz = z + 0.5;
-                    double dist2 = dx*dx + dy*dy + dz*dz;
-                    if (dist2 <= r2 && dist2 >= inner2) {
-                        out.add(new BlockKey(center.getWorld(), cx + x, cy + y, cz + z));
-                    }
-                }
-            }
+    private SphereStencil shellStencil() {
+        return SphereStencilCache.shell(radius, SHELL_THICKNESS, MIN_INNER_RADIUS);
+    }
+
+    private SphereStencil interiorStencil() {
+        return SphereStencilCache.interior(radius, SHELL_THICKNESS, MIN_INNER_RADIUS);
+    }
+
+    private void placeFullFrame(int cx, int cy, int cz) {
+        SphereStencil shell = shellStencil();
+        for (int i = 0, n = shell.size(); i < n; i++) {
+            placeShellBlock(cx + shell.dx(i), cy + shell.dy(i), cz + shell.dz(i));
+        }
+        SphereStencil interior = interiorStencil();
+        for (int i = 0, n = interior.size(); i < n; i++) {
+            clearInteriorBlock(cx + interior.dx(i), cy + interior.dy(i), cz + interior.dz(i));
         }
-        return out;
     }
 
-    private Set<BlockKey> computeInteriorBlockKeys(Location center, double radius) {
-        Set<BlockKey> out = new HashSet<>();
-        int cr = (int) Math.ceil(radius);
-        int cx = center.getBlockX();
-        int cy = center.getBlockY();
-        int cz = center.getBlockZ();
-        double r2 = radius * radius;
-        double innerThreshold = Math.max(0.6, radius - 0.7);
-        double inner2 = innerThreshold * innerThreshold;
-        for (int x = -cr; x <= cr; x++) {
-            for (int y = -cr; y <= cr; y++) {
-                for (int z = -cr; z <= cr; z++) {
-                    double dx = x + 0.5;
-                    double dy = y + 0.5;
-                    double dz = z + 0.5;
-                    double dist2 = dx*dx + dy*dy + dz*dz;
-                    if (dist2 < inner2) {
-                        out.add(new BlockKey(center.getWorld(), cx + x, cy + y, cz + z));
-                    }
-                }
+    /**
+     * Sposta la sfera dal centro precedente a (cx, cy, cz) toccando solo i blocchi che cambiano.
+     * L'interno già svuotato resta tale fino al ripristino finale, quindi conta solo la parte aggiunta.
+     */
+    private void translateFrame(int cx, int cy, int cz) {
+        StencilDelta shell = shellStencil().translate(cx - lastCx, cy - lastCy, cz - lastCz);
+        for (int i = 0, n = shell.removedSize(); i < n; i++) {
+            removeShellBlock(BlockKeys.pack(lastCx + shell.removedDx(i), lastCy + shell.removedDy(i), lastCz + shell.removedDz(i)));
+        }
+        for (int i = 0, n = shell.addedSize(); i < n; i++) {
+            placeShellBlock(cx + shell.addedDx(i), cy + shell.addedDy(i), cz + shell.addedDz(i));
+        }
+        StencilDelta interior = interiorStencil().translate(cx - lastCx, cy - lastCy, cz - lastCz);
+        for (int i = 0, n = interior.addedSize(); i < n; i++) {
+            clearInteriorBlock(cx + interior.addedDx(i), cy + interior.addedDy(i), cz + interior.addedDz(i));
+        }
+    }
+
+    /**
+     * Riprova i blocchi saltati per chunk non scrivibili che fanno ancora parte del frame attuale:
+     * translateFrame tocca solo la differenza tra due frame e da solo non ci ripasserebbe.
+     */
+    private void retrySkipped() {
+        retry(skippedShell, shellStencil(), true);
+        retry(skippedInterior, interiorStencil(), false);
+    }
+
+    private void retry(LongHashSet skipped, SphereStencil stencil, boolean shell) {
+        retryScratch.clear();
+        for (int i = skipped.firstSlot(); i >= 0; i = skipped.nextSlot(i)) retryScratch.add(skipped.keyAt(i));
+        for (int i = 0, n = retryScratch.size(); i < n; i++) {
+            long key = retryScratch.get(i);
+            int x = BlockKeys.x(key), y = BlockKeys.y(key), z = BlockKeys.z(key);
+            if (!stencil.contains(x - lastCx, y - lastCy, z - lastCz)) {
+                // la sfera si è spostata: il blocco non va più toccato
+                skipped.remove(key);
+            } else if (mutations().isWritable(world, key)) {
+                skipped.remove(key);
+                if (shell) placeShellBlock(x, y, z);
+                else clearInteriorBlock(x, y, z);
             }
         }
-        return out;
+    }
+
+    private void removeShellBlock(long key) {
+        if (phantom != null) {
+            phantom.hide(key);
+            return;
+        }
+        BlockData original = modifiedBlocks.get(key);
+        // nessuno snapshot = blocco mai toccato (es. bedrock)
+        if (original == null) return;
+        if (!clearedInterior.contains(key)) {
+            mutations().submitRestore(world, key, original);
+        } else {
+            mutations().submit(world, key, BlockPalette.of(Material.AIR));
+        }
+    }
+
+    private void placeShellBlock(int x, int y, int z) {
+        long key = BlockKeys.pack(x, y, z);
+        if (phantom != null) {
+            phantom.show(key, BlockPalette.of(shellMaterial));
+            return;
+        }
+        // chunk non caricato: niente lettura/scrittura, che lo caricherebbe in modo sincrono
+        if (!mutations().isWritable(world, key)) {
+            skippedShell.add(key);
+            return;
+        }
+        if (!snapshot(key, x, y, z)) return;
+        mutations().submit(world, key, BlockPalette.of(shellMaterial));
+    }
+
+    private void clearInteriorBlock(int x, int y, int z) {
+        long key = BlockKeys.pack(x, y, z);
+        if (!mutations().isWritable(world, key)) {
+            skippedInterior.add(key);
+            return;
+        }
+        if (!snapshot(key, x, y, z)) return;
+        clearedInterior.add(key);
+        mutations().submit(world, key, BlockPalette.of(Material.AIR));
+    }
+
+    /**
+     * Salva lo stato originale alla prima modifica della posizione.
+     * @return false se il blocco non va toccato (bedrock)
+     */
+    private boolean snapshot(long key, int x, int y, int z) {
+        if (modifiedBlocks.contains(key)) return true;
+        BlockData current = world.getBlockAt(x, y, z).getBlockData();
+        if (current.getMaterial() == Material.BEDROCK) return false;
+        // se un effetto terminato deve ancora ripristinare il blocco, l'originale è il suo snapshot
+        BlockData pending = restores().pendingOriginal(world, key);
+        BlockData original = pending != null ? pending : current;
+        modifiedBlocks.put(key, original);
+        journal().record(journalSession, world, key, original);
+        return true;
     }
 
     private void restoreAllModifiedBlocks() {
-        Map<BlockKey, BlockSnapshot> toRestore = new HashMap<>(modifiedBlocks);
+        framePlaced = false;
+        if (phantom != null) phantom.clear();
+
+        // ripristino distribuito su più tick; chiude anche la sessione del journal
+        restores().schedule(world, modifiedBlocks, journalSession);
         modifiedBlocks.clear();
-        currentShellBlocks.clear();
-
-        for (Map.Entry<BlockKey, BlockSnapshot> e : toRestore.entrySet()) {
-            BlockKey key = e.getKey();
-            BlockSnapshot snap = e.getValue();
-            Location loc = key.toLocation();
-            if (loc == null) continue;
-            try {
-                Block b = loc.getBlock();
-                if (snap.material == Material.AIR) {
-                    b.setType(Material.AIR, false);
-                } else {
-                    b.setType(snap.material, false);
-                    try { b.setBlockData(snap.data, false); } catch (Throwable ignored) {}
-                }
-            } catch (Throwable ex) {
-                AbilityPlugin.getInstance().getLogger().warning("Impossibile ripristinare blocco in " + loc + ": " + ex.getMessage());
-            }
-        }
+        clearedInterior.clear();
+        skippedShell.clear();
+        skippedInterior.clear();
+        journalSession = 0;
+    }
+
+    private static BlockMutationManager mutations() {
+        return AbilityPlugin.getInstance().getBlockMutationManager();
+    }
+
+    private static RestoreScheduler restores() {
+        return AbilityPlugin.getInstance().getRestoreScheduler();
+    }
+
+    private static RestoreJournal journal() {
+        return AbilityPlugin.getInstance().getRestoreJournal();
+    }
+
+    private static EntityIndex entities() {
+        return AbilityPlugin.getInstance().getEntityIndex();
+    }
+
+    private static DamageQueue damage() {
+        return AbilityPlugin.getInstance().getDamageQueue();
+    }
+
+    private static QualityLevel quality() {
+        return AbilityPlugin.getInstance().getQualityGovernor().getLevel();
     }
 }
\ No newline at end of file
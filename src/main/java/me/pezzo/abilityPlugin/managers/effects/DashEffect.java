@@ -1,13 +1,17 @@
 package me.pezzo.abilityPlugin.managers.effects;
 
 import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+import me.pezzo.abilityPlugin.managers.particles.ParticleBatch;
+import me.pezzo.abilityPlugin.managers.particles.ParticleLod;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.Tickable;
 import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.Particle.DustOptions;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
 public class DashEffect {
@@ -16,6 +20,7 @@ public class DashEffect {
     private final Player owner;
     private final double chargeRatio;
     private final int trailTicksBase = 6;
+    private final ParticleBatch particles = new ParticleBatch(ParticleLod.forAbility("dash"));
 
     public DashEffect(Player owner, double multiplier) {
         this(owner, multiplier, 0.0);
@@ -40,46 +45,57 @@ public class DashEffect {
         DustOptions blue = new DustOptions(lightBlue, (float) (0.8 + chargeRatio * 1.2));
         DustOptions yellow = new DustOptions(warmYellow, (float) (0.6 + chargeRatio * 1.0));
 
-        int blastCount = 10 + (int) (chargeRatio * 30);
+        Location origin = owner.getLocation();
+        double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+        QualityLevel quality = AbilityPlugin.getInstance().getQualityGovernor().getLevel();
+        int blastCount = quality.scale(10 + (int) (chargeRatio * 30));
         for (int i = 0; i < blastCount; i++) {
             double rx = (Math.random() - 0.5) * (1.5 + chargeRatio * 2.5);
             double ry = (Math.random() - 0.5) * (0.8 + chargeRatio * 1.2);
             double rz = (Math.random() - 0.5) * (1.5 + chargeRatio * 2.5);
-            owner.getWorld().spawnParticle(Particle.REDSTONE, owner.getLocation().clone().add(rx, ry + 0.8, rz), 1, 0, 0, 0, 0, (Math.random() < 0.6) ? blue : yellow);
-            owner.getWorld().spawnParticle(Particle.EXPLOSION_NORMAL, owner.getLocation().clone().add(rx*0.4, ry*0.4 + 0.6, rz*0.4), 1, 0.1, 0.1, 0.1, 0.02);
+            particles.add(Particle.REDSTONE, ox + rx, oy + ry + 0.8, oz + rz, 1, 0, 0, 0, 0, (Math.random() < 0.6) ? blue : yellow);
+            particles.add(Particle.EXPLOSION_NORMAL, ox + rx*0.4, oy + ry*0.4 + 0.6, oz + rz*0.4, 1, 0.1, 0.1, 0.1, 0.02, null);
         }
+        particles.flush(origin.getWorld());
 
         int trailTicks = trailTicksBase + (int) (chargeRatio * 24);
 
-        new BukkitRunnable() {
+        AbilityPlugin.getInstance().getEffectScheduler().schedule(owner.getUniqueId(), "dash", new Tickable() {
             int tick = 0;
 
             @Override
-            public void run() {
+            public void tick(EffectHandle handle) {
                 if (!owner.isOnline()) {
-                    cancel();
+                    handle.cancel();
                     return;
                 }
 
                 if (tick >= trailTicks) {
                     owner.getWorld().spawnParticle(Particle.SMOKE_LARGE, owner.getLocation().clone().add(0, 0.5, 0), 8, 0.4, 0.2, 0.4, 0.02);
-                    cancel();
+                    handle.cancel();
+                    return;
+                }
+
+                // scia meno frequente se il server è sotto carico
+                if (!AbilityPlugin.getInstance().getQualityGovernor().getLevel().isFrameTick(tick)) {
+                    tick++;
                     return;
                 }
 
                 Location loc = owner.getLocation().clone().add(0, 0.5, 0);
 
                 // cloud base + colored streaks
-                owner.getWorld().spawnParticle(Particle.CLOUD, loc, 6 + (int)(chargeRatio*6), 0.2, 0.2, 0.2, 0.02);
-                owner.getWorld().spawnParticle(Particle.REDSTONE, loc, 2 + (int)(chargeRatio*8), 0.15, 0.15, 0.15, 0, blue);
-                owner.getWorld().spawnParticle(Particle.REDSTONE, loc.clone().add(0, 0.15, 0), 1 + (int)(chargeRatio*6), 0.12, 0.12, 0.12, 0, yellow);
+                particles.add(Particle.CLOUD, loc, 6 + (int)(chargeRatio*6), 0.2, 0.2, 0.2, 0.02);
+                particles.add(Particle.REDSTONE, loc, 2 + (int)(chargeRatio*8), 0.15, 0.15, 0.15, 0, blue);
+                particles.add(Particle.REDSTONE, loc.getX(), loc.getY() + 0.15, loc.getZ(), 1 + (int)(chargeRatio*6), 0.12, 0.12, 0.12, 0, yellow);
                 // occasional sparks
                 if (Math.random() < 0.35 + 0.5*chargeRatio) {
-                    owner.getWorld().spawnParticle(Particle.CRIT, loc, 2, 0.1, 0.1, 0.1, 0.02);
+                    particles.add(Particle.CRIT, loc, 2, 0.1, 0.1, 0.1, 0.02);
                 }
+                particles.flush(loc.getWorld());
 
                 tick++;
             }
-        }.runTaskTimer(AbilityPlugin.getInstance(), 0L, 1L);
+        }, 0L, 1L);
     }
 }
\ No newline at end of file
@@ -2,6 +2,15 @@ package me.pezzo.abilityPlugin.managers.effects;
 
 import me.pezzo.abilityPlugin.AbilityPlugin;
 import me.pezzo.abilityPlugin.config.data.ability.LeechFieldData;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+import me.pezzo.abilityPlugin.managers.damage.DamageQueue;
+import me.pezzo.abilityPlugin.managers.entities.EntityIndex;
+import me.pezzo.abilityPlugin.managers.entities.TargetFilter;
+import me.pezzo.abilityPlugin.managers.geometry.ShapeTables;
+import me.pezzo.abilityPlugin.managers.particles.ParticleBatch;
+import me.pezzo.abilityPlugin.managers.particles.ParticleLod;
+import me.pezzo.abilityPlugin.managers.scheduler.EffectHandle;
+import me.pezzo.abilityPlugin.managers.scheduler.Tickable;
 import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.Particle;
@@ -12,14 +21,20 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class LeechFieldEffect {
 
     private final Player owner;
     private final Location center;
     private final LeechFieldData data;
+    private final ParticleBatch particles = new ParticleBatch(ParticleLod.forAbility("leechfield"));
+    private final List<Entity> nearby = new ArrayList<>();
+    private final TargetFilter targets = TargetFilter.forAbility("leechfield", TargetFilter.LIVING);
+    private static final DustOptions SUCK_DUST = new DustOptions(Color.fromRGB(200, 40, 40), 0.9f);
 
     public LeechFieldEffect(Player owner, LeechFieldData data) {
         this.owner = owner;
@@ -32,28 +47,38 @@ public class LeechFieldEffect {
 
         DustOptions redDust = new DustOptions(Color.fromRGB(255, 30, 30), 1.0f);
 
-        new BukkitRunnable() {
+        AbilityPlugin.getInstance().getEffectScheduler().schedule(owner.getUniqueId(), "leechfield", new Tickable() {
             int tick = 0;
             final int radiusBlocks = Math.max(1, (int) Math.ceil(data.getRadius()));
+            // il perimetro non cambia durante l'effetto: calcolato al primo disegno
+            double[] square;
 
             @Override
-            public void run() {
+            public Location anchor() {
+                return center;
+            }
+
+            @Override
+            public void tick(EffectHandle handle) {
                 if (!owner.isOnline() || owner.isDead()) {
-                    cancel();
+                    handle.cancel();
                     return;
                 }
 
                 if (tick >= data.getDurationTicks()) {
                     center.getWorld().spawnParticle(Particle.EXPLOSION_NORMAL, center.clone(), 6, 0.6, 0.6, 0.6, 0.0);
                     center.getWorld().playSound(center, Sound.ENTITY_PLAYER_LEVELUP, 0.8f, 1.0f);
-                    cancel();
+                    handle.cancel();
                     return;
                 }
 
 
-                if (tick % 2 == 0) drawSquareParticles(redDust);
+                QualityLevel quality = AbilityPlugin.getInstance().getQualityGovernor().getLevel();
+                EntityIndex entities = AbilityPlugin.getInstance().getEntityIndex();
+                DamageQueue damage = AbilityPlugin.getInstance().getDamageQueue();
+                if (tick % (2 * quality.getFrameInterval()) == 0) drawSquareParticles(redDust);
                 if (tick % data.getTickInterval() == 0) {
-                    for (Entity e : center.getWorld().getNearbyEntities(center, data.getRadius(), data.getRadius(), data.getRadius())) {
+                    for (Entity e : entities.queryBox(center, data.getRadius(), data.getRadius(), data.getRadius(), targets, nearby)) {
                         if (e == null || e.isDead()) continue;
                         if (!(e instanceof LivingEntity)) continue;
                         if (e.equals(owner)) continue;
@@ -63,67 +88,43 @@ public class LeechFieldEffect {
                         double dz = Math.abs(eloc.getZ() - center.getZ());
                         if (dx > data.getRadius() || dz > data.getRadius()) continue;
 
-                        LivingEntity le = (LivingEntity) e;
-
-                        Vector preVel = le.getVelocity().clone();
-
-                        double beforeHealth = le.getHealth();
-                        le.damage(data.getDamagePerTick(), owner);
-
-                        Vector afterVel = le.getVelocity();
-                        double k = Math.max(0.0, Math.min(1.0, data.getKnockbackReduce()));
-                        afterVel.multiply(k);
-                        le.setVelocity(afterVel);
-
-                        double actualDamage = Math.max(0.0, beforeHealth - (le.isDead() ? 0.0 : le.getHealth()));
-                        double heal = actualDamage * 0.5;
-                        if (heal > 0.0 && owner.isValid()) {
-                            double newHealth = Math.min(owner.getMaxHealth(), owner.getHealth() + heal);
-                            owner.setHealth(newHealth);
-                        }
-
-
                         int slownessAmplifier = Math.max(0, data.getSlownessLevel() - 1);
                         int slownessDuration = Math.max(1, data.getTickInterval() * 2);
-                        le.addPotionEffect(new PotionEffect(PotionEffectType.SLOW, slownessDuration, slownessAmplifier, false, false, false));
 
-                        spawnSuckParticles(le);
+                        // danno, cura (metà del danno effettivo, sommata per proprietario) e rallentamento a fine tick
+                        LivingEntity le = (LivingEntity) e;
+                        damage.submit(owner, le, data.getDamagePerTick())
+                                .knockback(data.getKnockbackReduce())
+                                .lifesteal(0.5)
+                                .potion(new PotionEffect(PotionEffectType.SLOW, slownessDuration, slownessAmplifier, false, false, false))
+                                .then(hit -> hit.getWorld().playSound(hit.getLocation(), Sound.ENTITY_WITHER_SKELETON_HURT, 0.45f, 1.2f));
 
-                        le.getWorld().playSound(le.getLocation(), Sound.ENTITY_WITHER_SKELETON_HURT, 0.45f, 1.2f);
+                        spawnSuckParticles(le);
                     }
                 } else {
                     if (tick % 4 == 0) {
-                        for (Entity e : center.getWorld().getNearbyEntities(center, data.getRadius(), data.getRadius(), data.getRadius())) {
+                        for (Entity e : entities.queryBox(center, data.getRadius(), data.getRadius(), data.getRadius(), targets, nearby)) {
                             if (!(e instanceof LivingEntity)) continue;
                             if (e.equals(owner)) continue;
-                            Location el = e.getLocation().clone().add(0, 0.6, 0);
-                            center.getWorld().spawnParticle(Particle.SPELL_WITCH, el, 2, 0.15, 0.15, 0.15, 0.01);
+                            Location el = e.getLocation();
+                            particles.add(Particle.SPELL_WITCH, el.getX(), el.getY() + 0.6, el.getZ(), 2, 0.15, 0.15, 0.15, 0.01, null);
                         }
                     }
                 }
+                particles.flush(center.getWorld());
 
                 tick++;
             }
 
             private void drawSquareParticles(DustOptions dust) {
-                double r = data.getRadius();
-                double step = Math.max(0.3, (r * 2) / Math.max(8, (int) (r * 6)));
-
-                for (double x = -r; x <= r; x += step) {
-                    Location loc = center.clone().add(x, 0.5, r);
-                    center.getWorld().spawnParticle(Particle.REDSTONE, loc, 1, 0, 0, 0, 0, dust);
-                }
-                for (double x = -r; x <= r; x += step) {
-                    Location loc = center.clone().add(x, 0.5, -r);
-                    center.getWorld().spawnParticle(Particle.REDSTONE, loc, 1, 0, 0, 0, 0, dust);
-                }
-                for (double z = -r; z <= r; z += step) {
-                    Location loc = center.clone().add(r, 0.5, z);
-                    center.getWorld().spawnParticle(Particle.REDSTONE, loc, 1, 0, 0, 0, 0, dust);
+                if (square == null) {
+                    double r = data.getRadius();
+                    double step = Math.max(0.3, (r * 2) / Math.max(8, (int) (r * 6)));
+                    square = ShapeTables.squarePerimeter(r, step);
                 }
-                for (double z = -r; z <= r; z += step) {
-                    Location loc = center.clone().add(-r, 0.5, z);
-                    center.getWorld().spawnParticle(Particle.REDSTONE, loc, 1, 0, 0, 0, 0, dust);
+                double cx = center.getX(), y = center.getY() + 0.5, cz = center.getZ();
+                for (int i = 0; i < square.length; i += 2) {
+                    particles.add(Particle.REDSTONE, cx + square[i], y, cz + square[i + 1], 1, 0, 0, 0, 0, dust);
                 }
             }
 
@@ -136,12 +137,14 @@ public class LeechFieldEffect {
                 int points = 4;
                 for (int i = 1; i <= points; i++) {
                     double factor = (double) i / (points + 1);
-                    Location loc = tloc.clone().add(dir.clone().multiply(factor * dist));
-                    center.getWorld().spawnParticle(Particle.SPELL_WITCH, loc, 3, 0.12, 0.12, 0.12, 0.01);
-                    center.getWorld().spawnParticle(Particle.REDSTONE, loc.clone().add(0, 0.15, 0), 1, 0, 0, 0, 0, new DustOptions(Color.fromRGB(200, 40, 40), 0.9f));
+                    double x = tloc.getX() + dir.getX() * factor * dist;
+                    double y = tloc.getY() + dir.getY() * factor * dist;
+                    double z = tloc.getZ() + dir.getZ() * factor * dist;
+                    particles.add(Particle.SPELL_WITCH, x, y, z, 3, 0.12, 0.12, 0.12, 0.01, null);
+                    particles.add(Particle.REDSTONE, x, y + 0.15, z, 1, 0, 0, 0, 0, SUCK_DUST);
                 }
             }
 
-        }.runTaskTimer(AbilityPlugin.getInstance(), 0L, 1L);
+        }, 0L, 1L);
     }
 }
\ No newline at end of file
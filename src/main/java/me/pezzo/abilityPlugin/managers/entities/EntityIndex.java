@@ -0,0 +1,242 @@
+package me.pezzo.abilityPlugin.managers.entities;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import me.pezzo.abilityPlugin.utils.LongArrayList;
+import me.pezzo.abilityPlugin.utils.LongObjectHashMap;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.BoundingBox;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Indice delle entità per chunk, condiviso da tutti gli effetti al posto di un getNearbyEntities
+ * per effetto. Un chunk viene letto ({@code chunk.getEntities()}) alla prima query del tick che lo copre
+ * e riusato dalle altre query dello stesso tick: si legge solo la zona attorno agli effetti attivi,
+ * non il mondo intero. I chunk non interrogati nel tick precedente vengono scartati.
+ * I display degli effetti non vengono indicizzati.
+ * Le query scartano i tipi esclusi dal {@link TargetFilter} prima ancora di guardare la posizione.
+ * Come getNearbyEntities, un'entità viene presa se la sua hitbox tocca la forma cercata, non solo la sua posizione.
+ * <p>
+ * Su Folia un thread di regione non può leggere tutte le entità del mondo: le query passano
+ * a getNearbyEntities, con lo stesso filtro per forma e distanza.
+ */
+public class EntityIndex {
+
+    // semi-larghezza massima delle hitbox cercate nei chunk vicini, lo stesso margine del server
+    private static final double MAX_HALF_WIDTH = 2.0;
+
+    private final AbilityPlugin plugin;
+    private final boolean direct;
+    // weak: un mondo scaricato non resta in memoria per colpa dell'indice
+    private final Map<World, WorldIndex> worlds = new WeakHashMap<>();
+
+    // su Folia le query arrivano da più thread di regione
+    private final LongAdder totalRebuilds = new LongAdder();
+    private final LongAdder totalQueries = new LongAdder();
+    private final LongAdder totalCandidates = new LongAdder();
+    // scritti solo dall'indice condiviso (main thread), letti dai comandi
+    private volatile int lastIndexed = 0;
+    private volatile int indexedTick = Integer.MIN_VALUE;
+
+    /** Chunk letti di recente in un mondo. */
+    private static final class WorldIndex {
+        int tick = Integer.MIN_VALUE;
+        final LongObjectHashMap<ChunkEntities> chunks = new LongObjectHashMap<>();
+        final LongArrayList stale = new LongArrayList();
+    }
+
+    /** Entità di un chunk al tick {@code builtTick}, con hitbox e tipo letti in quel momento. */
+    private static final class ChunkEntities {
+        int builtTick = Integer.MIN_VALUE;
+        int size;
+        Entity[] entities = new Entity[16];
+        // minX, minY, minZ, maxX, maxY, maxZ per entità
+        double[] boxes = new double[16 * 6];
+        int[] types = new int[16];
+
+        void ensure(int n) {
+            if (entities.length >= n) return;
+            int cap = Math.max(n, entities.length * 2);
+            entities = Arrays.copyOf(entities, cap);
+            boxes = Arrays.copyOf(boxes, cap * 6);
+            types = Arrays.copyOf(types, cap);
+        }
+    }
+
+    public EntityIndex(AbilityPlugin plugin) {
+        this.plugin = plugin;
+        this.direct = plugin.getTaskExecutor().isRegionThreaded();
+    }
+
+    /** Entità con la hitbox entro {@code radius} dal centro, confrontando le distanze al quadrato. */
+    public List<Entity> querySphere(Location center, double radius, TargetFilter filter, List<Entity> out) {
+        double x = center.getX(), y = center.getY(), z = center.getZ();
+        double r2 = radius * radius;
+        return query(center.getWorld(), x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, filter, out,
+                (b, i) -> {
+                    double dx = gap(x, b[i], b[i + 3]), dy = gap(y, b[i + 1], b[i + 4]), dz = gap(z, b[i + 2], b[i + 5]);
+                    return dx * dx + dy * dy + dz * dz <= r2;
+                });
+    }
+
+    /** Entità nel box di semi-lati (hx, hy, hz) centrato in {@code center}. */
+    public List<Entity> queryBox(Location center, double hx, double hy, double hz, TargetFilter filter, List<Entity> out) {
+        double x = center.getX(), y = center.getY(), z = center.getZ();
+        return query(center.getWorld(), x - hx, y - hy, z - hz, x + hx, y + hy, z + hz, filter, out, (b, i) -> true);
+    }
+
+    /** Entità con la hitbox nel cilindro verticale di raggio {@code radius} attorno a (x, z), tra minY e maxY. */
+    public List<Entity> queryColumn(Location center, double radius, double minY, double maxY, TargetFilter filter, List<Entity> out) {
+        double x = center.getX(), z = center.getZ();
+        double r2 = radius * radius;
+        return query(center.getWorld(), x - radius, minY, z - radius, x + radius, maxY, z + radius, filter, out,
+                (b, i) -> {
+                    double dx = gap(x, b[i], b[i + 3]), dz = gap(z, b[i + 2], b[i + 5]);
+                    return dx * dx + dz * dz <= r2;
+                });
+    }
+
+    /** Forma della query, provata sulle hitbox che toccano già il box che la contiene. */
+    @FunctionalInterface
+    private interface Shape {
+        /** Hitbox in {@code boxes[i..i+5]} come minX, minY, minZ, maxX, maxY, maxZ. */
+        boolean intersects(double[] boxes, int i);
+    }
+
+    // distanza da v all'intervallo [min, max] su un asse, 0 se v è dentro
+    private static double gap(double v, double min, double max) {
+        return v < min ? min - v : v > max ? v - max : 0;
+    }
+
+    private List<Entity> query(World world, double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                               TargetFilter filter, List<Entity> out, Shape shape) {
+        out.clear();
+        totalQueries.increment();
+        if (world == null) return out;
+        if (direct) return queryDirect(world, minX, minY, minZ, maxX, maxY, maxZ, filter, out, shape);
+
+        WorldIndex index = indexFor(world);
+        int candidates = 0;
+        // un'entità nel chunk accanto può sporgere nel box con la sua hitbox
+        int cx0 = (int) Math.floor(minX - MAX_HALF_WIDTH) >> 4, cx1 = (int) Math.floor(maxX + MAX_HALF_WIDTH) >> 4;
+        int cz0 = (int) Math.floor(minZ - MAX_HALF_WIDTH) >> 4, cz1 = (int) Math.floor(maxZ + MAX_HALF_WIDTH) >> 4;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cz = cz0; cz <= cz1; cz++) {
+                ChunkEntities chunk = chunkFor(world, index, cx, cz);
+                if (chunk == null) continue;
+                candidates += chunk.size;
+                for (int i = 0, n = chunk.size; i < n; i++) {
+                    if (!filter.acceptsType(chunk.types[i])) continue;
+                    double[] b = chunk.boxes;
+                    int j = i * 6;
+                    if (b[j + 3] < minX || b[j] > maxX || b[j + 4] < minY || b[j + 1] > maxY || b[j + 5] < minZ || b[j + 2] > maxZ) continue;
+                    if (shape.intersects(b, j) && filter.acceptsState(chunk.entities[i])) out.add(chunk.entities[i]);
+                }
+            }
+        }
+        totalCandidates.add(candidates);
+        return out;
+    }
+
+    private List<Entity> queryDirect(World world, double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                     TargetFilter filter, List<Entity> out, Shape shape) {
+        Location center = new Location(world, (minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+        int candidates = 0;
+        double[] box = new double[6];
+        for (Entity e : world.getNearbyEntities(center, (maxX - minX) / 2, (maxY - minY) / 2, (maxZ - minZ) / 2)) {
+            candidates++;
+            if (e instanceof Display || !filter.acceptsType(e.getType().ordinal())) continue;
+            copyBox(e.getBoundingBox(), box, 0);
+            if (shape.intersects(box, 0) && filter.acceptsState(e)) out.add(e);
+        }
+        totalCandidates.add(candidates);
+        return out;
+    }
+
+    private WorldIndex indexFor(World world) {
+        WorldIndex index = worlds.computeIfAbsent(world, w -> new WorldIndex());
+        int tick = plugin.getServer().getCurrentTick();
+        if (index.tick != tick) {
+            evictStale(index, tick);
+            index.tick = tick;
+        }
+        if (indexedTick != tick) {
+            indexedTick = tick;
+            lastIndexed = 0;
+        }
+        return index;
+    }
+
+    // i chunk fuori dalle query dell'ultimo tick non trattengono entità rimosse
+    private static void evictStale(WorldIndex index, int tick) {
+        LongObjectHashMap<ChunkEntities> chunks = index.chunks;
+        index.stale.clear();
+        for (int i = chunks.firstSlot(); i >= 0; i = chunks.nextSlot(i)) {
+            if (tick - chunks.valueAt(i).builtTick > 1) index.stale.add(chunks.keyAt(i));
+        }
+        for (int i = 0, n = index.stale.size(); i < n; i++) chunks.remove(index.stale.get(i));
+    }
+
+    /** Entità del chunk al tick corrente, lette alla prima query che lo copre; null se il chunk non è caricato. */
+    private ChunkEntities chunkFor(World world, WorldIndex index, int cx, int cz) {
+        long key = BlockKeys.chunkKey(cx, cz);
+        ChunkEntities chunk = index.chunks.get(key);
+        if (chunk != null && chunk.builtTick == index.tick) return chunk;
+        // isChunkLoaded prima di getChunkAt: una query non deve mai caricare un chunk
+        if (!world.isChunkLoaded(cx, cz)) {
+            if (chunk != null) index.chunks.remove(key);
+            return null;
+        }
+        if (chunk == null) {
+            chunk = new ChunkEntities();
+            index.chunks.put(key, chunk);
+        }
+        rebuild(world.getChunkAt(cx, cz), chunk, index.tick);
+        return chunk;
+    }
+
+    private void rebuild(Chunk source, ChunkEntities chunk, int tick) {
+        Entity[] all = source.getEntities();
+        chunk.ensure(all.length);
+        int n = 0;
+        for (Entity e : all) {
+            if (e instanceof Display || e.isDead()) continue;
+            chunk.entities[n] = e;
+            copyBox(e.getBoundingBox(), chunk.boxes, n * 6);
+            chunk.types[n] = e.getType().ordinal();
+            n++;
+        }
+        // niente riferimenti a entità rimosse fino al prossimo rebuild
+        Arrays.fill(chunk.entities, n, chunk.size, null);
+        chunk.size = n;
+        chunk.builtTick = tick;
+        lastIndexed += n;
+        totalRebuilds.increment();
+    }
+
+    private static void copyBox(BoundingBox box, double[] to, int i) {
+        to[i] = box.getMinX();
+        to[i + 1] = box.getMinY();
+        to[i + 2] = box.getMinZ();
+        to[i + 3] = box.getMaxX();
+        to[i + 4] = box.getMaxY();
+        to[i + 5] = box.getMaxZ();
+    }
+
+    public boolean isDirect() { return direct; }
+    /** Chunk letti dall'avvio. */
+    public long getTotalRebuilds() { return totalRebuilds.sum(); }
+    public long getTotalQueries() { return totalQueries.sum(); }
+    public long getTotalCandidates() { return totalCandidates.sum(); }
+    /** Entità lette nel tick dell'ultima query. */
+    public int getLastIndexed() { return lastIndexed; }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package me.pezzo.abilityPlugin.managers.entities;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.Vector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attrazione verso un centro, calcolata in un solo passaggio per tutte le entità di un effetto.
+ * Gira ogni {@code pull.interval_ticks}: nel frattempo le entità proseguono con l'ultima velocità
+ * (fisica del server, interpolata dal client). Attrito dell'aria e gravità la riducono a ogni tick,
+ * quindi la velocità applicata viene aumentata in modo che lo spostamento sull'intervallo sia quello
+ * di una velocità riapplicata a ogni tick. Un'entità viene saltata solo se la sua velocità attuale è già
+ * entro {@code pull.min_delta} da quella calcolata (inviarla non cambierebbe nulla); in ogni caso
+ * viene riapplicata dopo {@code pull.refresh_ticks}.
+ */
+public class PullSolver {
+
+    // fisica delle entità vive in aria: attrito orizzontale, attrito verticale e gravità per tick
+    private static final double HORIZONTAL_DRAG = 0.91;
+    private static final double VERTICAL_DRAG = 0.98;
+    private static final double GRAVITY = 0.08;
+
+    private static final AtomicLong totalComputed = new AtomicLong();
+    private static final AtomicLong totalSent = new AtomicLong();
+    private static final AtomicLong totalPasses = new AtomicLong();
+
+    private final int interval;
+    private final double minDelta2;
+    private final int refreshTicks;
+    // velocità da applicare = velocità per tick * scale (+ bias in verticale)
+    private final double horizontalScale;
+    private final double verticalScale;
+    private final double verticalBias;
+
+    // ultimo invio per entità; le voci non viste in un passaggio vengono scartate
+    private final Map<UUID, Sent> sent = new HashMap<>();
+    private int pass = 0;
+
+    private Entity[] batch = new Entity[16];
+    private double[] velocities = new double[16 * 3];
+
+    private static final class Sent {
+        int tick;
+        int pass;
+    }
+
+    public PullSolver() {
+        this(AbilityPlugin.getInstance().getPerformanceConfig());
+    }
+
+    private PullSolver(PerformanceConfig config) {
+        this(config.getPullIntervalTicks(), config.getPullMinDelta(), config.getPullRefreshTicks());
+    }
+
+    PullSolver(int interval, double minDelta, int refreshTicks) {
+        this.interval = Math.max(1, interval);
+        this.minDelta2 = minDelta * minDelta;
+        this.refreshTicks = refreshTicks;
+        // in n tick senza riapplicarla una velocità v0 percorre v0 * Σ drag^j meno quanto toglie la gravità:
+        // si sceglie v0 perché il percorso sia n * v, come con la velocità riapplicata a ogni tick
+        double horizontal = 0, vertical = 0, fall = 0;
+        double h = 1, v = 1, lost = 0;
+        for (int j = 0; j < this.interval; j++) {
+            horizontal += h;
+            vertical += v;
+            fall += lost;
+            h *= HORIZONTAL_DRAG;
+            v *= VERTICAL_DRAG;
+            lost = (lost + GRAVITY) * VERTICAL_DRAG;
+        }
+        this.horizontalScale = this.interval / horizontal;
+        this.verticalScale = this.interval / vertical;
+        this.verticalBias = fall / vertical;
+    }
+
+    /** true se al tick dato tocca a un passaggio del solver. */
+    public boolean isDue(int tick) {
+        return tick % interval == 0;
+    }
+
+    /**
+     * Calcola la velocità di tutte le entità in {@code entities} (escluso {@code exclude}) verso {@code center}
+     * e la applica a quelle che non si muovono già così. Più vicine al centro, più forte l'attrazione,
+     * fino a {@code maxPull}.
+     */
+    public void solve(List<Entity> entities, Entity exclude, Location center, double range, double maxPull, int tick) {
+        int n = 0;
+        if (batch.length < entities.size()) {
+            batch = Arrays.copyOf(batch, entities.size());
+            velocities = Arrays.copyOf(velocities, entities.size() * 3);
+        }
+        double cx = center.getX(), cy = center.getY(), cz = center.getZ();
+        for (Entity e : entities) {
+            if (e.equals(exclude) || e.isDead()) continue;
+            Location l = e.getLocation();
+            double dx = cx - l.getX(), dy = cy - l.getY(), dz = cz - l.getZ();
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (distance <= 0.001) continue;
+            double strengthFactor = 1.0 + ((range - Math.min(distance, range)) / range);
+            double scale = Math.min(strengthFactor, maxPull) / distance;
+            batch[n] = e;
+            velocities[n * 3] = dx * scale * horizontalScale;
+            velocities[n * 3 + 1] = (Math.max(dy * scale, -0.5) + 0.12) * verticalScale + verticalBias;
+            velocities[n * 3 + 2] = dz * scale * horizontalScale;
+            n++;
+        }
+
+        pass++;
+        int applied = 0;
+        for (int i = 0; i < n; i++) {
+            Entity e = batch[i];
+            double vx = velocities[i * 3], vy = velocities[i * 3 + 1], vz = velocities[i * 3 + 2];
+            batch[i] = null;
+            Sent last = sent.get(e.getUniqueId());
+            if (last == null) {
+                last = new Sent();
+                sent.put(e.getUniqueId(), last);
+            } else if (tick - last.tick < refreshTicks) {
+                // conta la velocità che l'entità ha davvero: attrito e collisioni la cambiano dopo l'invio
+                Vector current = e.getVelocity();
+                double cdx = vx - current.getX(), cdy = vy - current.getY(), cdz = vz - current.getZ();
+                if (cdx * cdx + cdy * cdy + cdz * cdz <= minDelta2) {
+                    last.pass = pass;
+                    continue;
+                }
+            }
+            e.setVelocity(new Vector(vx, vy, vz));
+            last.tick = tick;
+            last.pass = pass;
+            applied++;
+        }
+        for (Iterator<Sent> it = sent.values().iterator(); it.hasNext(); ) {
+            if (it.next().pass != pass) it.remove();
+        }
+        totalPasses.incrementAndGet();
+        totalComputed.addAndGet(n);
+        totalSent.addAndGet(applied);
+    }
+
+    public void clear() {
+        sent.clear();
+    }
+
+    public static long getTotalPasses() { return totalPasses.get(); }
+    public static long getTotalComputed() { return totalComputed.get(); }
+    public static long getTotalSent() { return totalSent.get(); }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package me.pezzo.abilityPlugin.managers.entities;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.data.AbilityData;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Tameable;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Quali entità un effetto può colpire, configurato in ogni file abilità sotto {@code targets}.
+ * Le liste allow/deny e i flag sul tipo vengono compilati al caricamento in un bitset indicizzato
+ * per {@link EntityType}, controllato dall'EntityIndex prima ancora della distanza; restano per entità
+ * solo i controlli che dipendono dallo stato (animali addomesticati, nomi).
+ */
+public final class TargetFilter {
+
+    private static final EntityType[] TYPES = EntityType.values();
+
+    /** Tutte le entità indicizzate. */
+    public static final TargetFilter ALL = new TargetFilter(allTypes(false), false, false, false);
+    /** Solo entità vive, il comportamento di LeechField e BluHollow senza {@code targets}. */
+    public static final TargetFilter LIVING = new TargetFilter(allTypes(true), true, false, false);
+
+    private final long[] types;
+    private final boolean livingOnly;
+    private final boolean skipTamed;
+    private final boolean skipNamed;
+
+    private TargetFilter(long[] types, boolean livingOnly, boolean skipTamed, boolean skipNamed) {
+        this.types = types;
+        this.livingOnly = livingOnly;
+        this.skipTamed = skipTamed;
+        this.skipNamed = skipNamed;
+    }
+
+    /** Controllo sul solo tipo, per ordinale di {@link EntityType}. */
+    public boolean acceptsType(int ordinal) {
+        return (types[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /** true se il filtro ammette solo entità vive: chi lo usa può fare il cast a LivingEntity. */
+    public boolean isLivingOnly() {
+        return livingOnly;
+    }
+
+    /** Controlli che dipendono dallo stato dell'entità, dopo {@link #acceptsType}. */
+    public boolean acceptsState(Entity e) {
+        if (skipTamed && e instanceof Tameable && ((Tameable) e).isTamed()) return false;
+        return !skipNamed || e.customName() == null;
+    }
+
+    public boolean test(Entity e) {
+        return acceptsType(e.getType().ordinal()) && acceptsState(e);
+    }
+
+    /** Filtro configurato per un'abilità (chiave del file, es. "blackhole"), o {@code fallback}. */
+    public static TargetFilter forAbility(String key, TargetFilter fallback) {
+        AbilityPlugin plugin = AbilityPlugin.getInstance();
+        if (plugin == null || plugin.getAbilityConfig() == null) return fallback;
+        AbilityData data = plugin.getAbilityConfig().getAbility(key);
+        return data == null || data.getTargetFilter() == null ? fallback : data.getTargetFilter();
+    }
+
+    /**
+     * Compila la sezione {@code targets}: {@code allow} (vuota = tutti i tipi), {@code deny},
+     * {@code living_only}, {@code players_only}, {@code skip_tamed}, {@code skip_named}.
+     * Tipi sconosciuti (es. rinominati tra versioni) vengono ignorati con un warning.
+     * Senza sezione si usa {@code fallback}.
+     */
+    public static TargetFilter parse(ConfigurationSection section, TargetFilter fallback, String fileName, Logger logger) {
+        if (section == null) return fallback;
+        boolean playersOnly = section.getBoolean("players_only", false);
+        boolean livingOnly = playersOnly || section.getBoolean("living_only", fallback.livingOnly);
+        long[] bits;
+        List<String> allow = section.getStringList("allow");
+        if (playersOnly) {
+            bits = new long[words()];
+            set(bits, EntityType.PLAYER);
+        } else if (allow.isEmpty()) {
+            bits = allTypes(livingOnly);
+        } else {
+            bits = new long[words()];
+            for (String raw : allow) {
+                EntityType type = parseType(raw, fileName, logger);
+                if (type != null && (!livingOnly || type.isAlive())) set(bits, type);
+            }
+        }
+        for (String raw : section.getStringList("deny")) {
+            EntityType type = parseType(raw, fileName, logger);
+            if (type != null) bits[type.ordinal() >>> 6] &= ~(1L << type.ordinal());
+        }
+        return new TargetFilter(bits, livingOnly,
+                section.getBoolean("skip_tamed", false),
+                section.getBoolean("skip_named", false));
+    }
+
+    private static EntityType parseType(String raw, String fileName, Logger logger) {
+        if (raw == null) return null;
+        try {
+            return EntityType.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("targets in " + fileName + ": tipo di entità sconosciuto '" + raw + "', ignorato");
+            return null;
+        }
+    }
+
+    private static long[] allTypes(boolean livingOnly) {
+        long[] bits = new long[words()];
+        for (EntityType type : TYPES) {
+            if (livingOnly && !type.isAlive()) continue;
+            set(bits, type);
+        }
+        return bits;
+    }
+
+    private static void set(long[] bits, EntityType type) {
+        bits[type.ordinal() >>> 6] |= 1L << type.ordinal();
+    }
+
+    private static int words() {
+        return (TYPES.length + 63) >>> 6;
+    }
+}
\ No newline at end of file
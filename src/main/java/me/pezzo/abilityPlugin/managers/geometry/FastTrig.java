@@ -0,0 +1,37 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+/**
+ * Seno e coseno da tabella per i loop degli effetti. Errore massimo ~4e-4, ben sotto la
+ * risoluzione di un blocco o di una particella; non usarli dove serve precisione.
+ */
+public final class FastTrig {
+
+    private static final int BITS = 14;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+    private static final int QUARTER = SIZE / 4;
+    private static final double SCALE = SIZE / (Math.PI * 2.0);
+
+    private static final float[] SIN = new float[SIZE];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            SIN[i] = (float) Math.sin(i / SCALE);
+        }
+    }
+
+    private FastTrig() { }
+
+    public static double sin(double rad) {
+        return SIN[index(rad) & MASK];
+    }
+
+    public static double cos(double rad) {
+        return SIN[(index(rad) + QUARTER) & MASK];
+    }
+
+    private static int index(double rad) {
+        double scaled = rad * SCALE;
+        return (int) (scaled >= 0 ? scaled + 0.5 : scaled - 0.5);
+    }
+}
@@ -0,0 +1,69 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Pool per calcolare in anticipo la geometria degli effetti (solo funzioni di tick, centro, raggio e RNG,
+ * mai stato del mondo). Il main thread applica il frame N mentre il pool calcola il N+1.
+ * Con 0 thread i calcoli avvengono subito sul chiamante.
+ */
+public class GeometryWorker {
+
+    private final ForkJoinPool pool;
+
+    // su Folia submit e join arrivano da più thread di regione
+    private final LongAdder totalSubmitted = new LongAdder();
+    private final LongAdder totalWaited = new LongAdder();
+
+    public GeometryWorker(AbilityPlugin plugin, int threads) {
+        if (threads <= 0) {
+            this.pool = null;
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("AbilityPlugin-Geometry-" + counter.incrementAndGet());
+            return t;
+        }, (t, e) -> plugin.getLogger().warning("[Geometry] errore nel worker: " + e.getMessage()), true);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        totalSubmitted.increment();
+        if (pool == null) return CompletableFuture.completedFuture(task.get());
+        return CompletableFuture.supplyAsync(task, pool);
+    }
+
+    /**
+     * Risultato di un calcolo inviato con {@link #submit}. Se non è ancora pronto il main thread aspetta:
+     * il contatore dice quanto spesso succede.
+     */
+    public <T> T join(CompletableFuture<T> future) {
+        if (!future.isDone()) totalWaited.increment();
+        return future.join();
+    }
+
+    public void shutdown() {
+        if (pool == null) return;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(2, TimeUnit.SECONDS)) pool.shutdownNow();
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isParallel() { return pool != null; }
+    public int getThreads() { return pool == null ? 0 : pool.getParallelism(); }
+    public long getTotalSubmitted() { return totalSubmitted.sum(); }
+    public long getTotalWaited() { return totalWaited.sum(); }
+}
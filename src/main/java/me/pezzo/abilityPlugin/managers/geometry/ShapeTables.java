@@ -0,0 +1,98 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Forme unitarie precalcolate da cui gli effetti campionano i punti invece di ricalcolare
+ * seni, coseni e radici a ogni tick. Gli array restituiti sono condivisi: non modificarli.
+ */
+public final class ShapeTables {
+
+    private static final int MAX_CACHED_RING = 256;
+    private static final int BALL_POINTS = 1024;
+
+    private static final AtomicReferenceArray<double[]> RINGS = new AtomicReferenceArray<>(MAX_CACHED_RING + 1);
+    private static final double[] UNIT_BALL = buildUnitBall();
+
+    private ShapeTables() { }
+
+    /**
+     * {@code points} punti equidistanti sulla circonferenza unitaria, a coppie (cos, sin),
+     * partendo dall'angolo 0. Ruotarli con {@link #rotateX}/{@link #rotateZ}.
+     */
+    public static double[] ring(int points) {
+        if (points > MAX_CACHED_RING) return buildRing(points);
+        double[] ring = RINGS.get(points);
+        if (ring == null) {
+            // due thread possono costruirlo insieme: il risultato è identico
+            ring = buildRing(points);
+            RINGS.set(points, ring);
+        }
+        return ring;
+    }
+
+    /** Coordinata x del punto i dell'anello ruotato di un angolo con coseno c e seno s. */
+    public static double rotateX(double[] ring, int i, double c, double s) {
+        return ring[i * 2] * c - ring[i * 2 + 1] * s;
+    }
+
+    /** Coordinata z del punto i dell'anello ruotato di un angolo con coseno c e seno s. */
+    public static double rotateZ(double[] ring, int i, double c, double s) {
+        return ring[i * 2] * s + ring[i * 2 + 1] * c;
+    }
+
+    /**
+     * Punti distribuiti uniformemente nel volume della sfera unitaria, a terne (x, y, z).
+     * Generati una volta con seed fisso; per un campione casuale usare un indice casuale.
+     */
+    public static double[] unitBall() {
+        return UNIT_BALL;
+    }
+
+    public static int unitBallSize() {
+        return BALL_POINTS;
+    }
+
+    /**
+     * Perimetro del quadrato di semilato {@code half} sul piano xz, a coppie (x, z), con passo {@code step}.
+     * Stesso ordine del disegno lato per lato: z = +half, z = -half, x = +half, x = -half.
+     * Da calcolare una volta per effetto: la forma dipende solo da lato e passo.
+     */
+    public static double[] squarePerimeter(double half, double step) {
+        int perSide = 0;
+        for (double v = -half; v <= half; v += step) perSide++;
+        double[] out = new double[perSide * 8];
+        int n = 0;
+        for (double x = -half; x <= half; x += step) { out[n++] = x; out[n++] = half; }
+        for (double x = -half; x <= half; x += step) { out[n++] = x; out[n++] = -half; }
+        for (double z = -half; z <= half; z += step) { out[n++] = half; out[n++] = z; }
+        for (double z = -half; z <= half; z += step) { out[n++] = -half; out[n++] = z; }
+        return out;
+    }
+
+    private static double[] buildRing(int points) {
+        double[] out = new double[points * 2];
+        for (int i = 0; i < points; i++) {
+            double angle = i * (Math.PI * 2) / points;
+            out[i * 2] = Math.cos(angle);
+            out[i * 2 + 1] = Math.sin(angle);
+        }
+        return out;
+    }
+
+    private static double[] buildUnitBall() {
+        Random rnd = new Random(0x5EED);
+        double[] out = new double[BALL_POINTS * 3];
+        for (int i = 0; i < BALL_POINTS; i++) {
+            double u = rnd.nextDouble() * 2.0 - 1.0;
+            double theta = rnd.nextDouble() * Math.PI * 2.0;
+            double r = Math.cbrt(rnd.nextDouble());
+            double s = Math.sqrt(1 - u * u);
+            out[i * 3] = r * s * Math.cos(theta);
+            out[i * 3 + 1] = r * u;
+            out[i * 3 + 2] = r * s * Math.sin(theta);
+        }
+        return out;
+    }
+}
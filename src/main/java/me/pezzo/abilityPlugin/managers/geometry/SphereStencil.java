@@ -0,0 +1,97 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Offset relativi (dx, dy, dz) dei blocchi di una sfera, rispetto al blocco centrale.
+ * Gli offset sono immutabili e impacchettati in un unico int[] a terne consecutive;
+ * le differenze per traslazione ({@link #translate}) vengono calcolate al primo uso.
+ */
+public final class SphereStencil {
+
+    // spostamenti per tick oltre questo valore non vengono messi in cache
+    private static final int MAX_CACHED_STEP = 2;
+    private static final int MAX_CACHED_DELTAS = 64;
+
+    private final int[] offsets;
+    private final int extent;
+    private final int side;
+    private final long[] mask;
+
+    private final Map<Integer, StencilDelta> deltas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, StencilDelta> eldest) {
+            return size() > MAX_CACHED_DELTAS;
+        }
+    };
+
+    SphereStencil(int[] offsets, int extent) {
+        this.offsets = offsets;
+        this.extent = extent;
+        this.side = extent * 2 + 1;
+        this.mask = new long[(side * side * side + 63) >>> 6];
+        for (int i = 0, n = size(); i < n; i++) {
+            int bit = bitIndex(dx(i), dy(i), dz(i));
+            mask[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public int size() { return offsets.length / 3; }
+
+    /** Massimo |offset| su ciascun asse. */
+    public int extent() { return extent; }
+
+    public int dx(int i) { return offsets[i * 3]; }
+    public int dy(int i) { return offsets[i * 3 + 1]; }
+    public int dz(int i) { return offsets[i * 3 + 2]; }
+
+    public boolean contains(int dx, int dy, int dz) {
+        if (Math.abs(dx) > extent || Math.abs(dy) > extent || Math.abs(dz) > extent) return false;
+        int bit = bitIndex(dx, dy, dz);
+        return (mask[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Differenza tra lo stencil centrato in C e lo stesso centrato in C + (tx, ty, tz).
+     * Gli spostamenti piccoli (il caso tipico di un effetto che segue il giocatore) sono in cache.
+     */
+    public StencilDelta translate(int tx, int ty, int tz) {
+        if (Math.abs(tx) > MAX_CACHED_STEP || Math.abs(ty) > MAX_CACHED_STEP || Math.abs(tz) > MAX_CACHED_STEP) {
+            return computeDelta(tx, ty, tz);
+        }
+        int key = ((tx + MAX_CACHED_STEP) * 8 + (ty + MAX_CACHED_STEP)) * 8 + (tz + MAX_CACHED_STEP);
+        synchronized (deltas) {
+            StencilDelta cached = deltas.get(key);
+            if (cached == null) {
+                cached = computeDelta(tx, ty, tz);
+                deltas.put(key, cached);
+            }
+            return cached;
+        }
+    }
+
+    private StencilDelta computeDelta(int tx, int ty, int tz) {
+        int n = size();
+        int[] removed = new int[n * 3];
+        int[] added = new int[n * 3];
+        int r = 0, a = 0;
+        for (int i = 0; i < n; i++) {
+            int x = dx(i), y = dy(i), z = dz(i);
+            // offset o dal vecchio centro: resta coperto se o - t appartiene allo stencil
+            if (!contains(x - tx, y - ty, z - tz)) {
+                removed[r++] = x; removed[r++] = y; removed[r++] = z;
+            }
+            // offset o dal nuovo centro: era già coperto se o + t apparteneva allo stencil
+            if (!contains(x + tx, y + ty, z + tz)) {
+                added[a++] = x; added[a++] = y; added[a++] = z;
+            }
+        }
+        return new StencilDelta(Arrays.copyOf(removed, r), Arrays.copyOf(added, a));
+    }
+
+    private int bitIndex(int dx, int dy, int dz) {
+        return ((dx + extent) * side + (dy + extent)) * side + (dz + extent);
+    }
+}
@@ -0,0 +1,91 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache condivisa degli stencil sferici. La geometria di shell/interno dipende solo da
+ * raggio e spessore, quindi viene calcolata una volta e riusata da tutti gli effetti e tick.
+ * Eviction LRU per non accumulare raggi configurati una tantum.
+ */
+public final class SphereStencilCache {
+
+    public enum Kind { SHELL, INTERIOR }
+
+    private static final int MAX_ENTRIES = 32;
+
+    private record Key(double radius, double thickness, double minInner, Kind kind) { }
+
+    private static final Map<Key, SphereStencil> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SphereStencil> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private SphereStencilCache() { }
+
+    /**
+     * Blocchi con distanza dal centro (misurata dal centro del blocco) in [inner, radius],
+     * dove inner = max(minInner, radius - thickness).
+     */
+    public static SphereStencil shell(double radius, double thickness, double minInner) {
+        return get(new Key(radius, thickness, minInner, Kind.SHELL));
+    }
+
+    /**
+     * Blocchi strettamente dentro la shell con gli stessi parametri.
+     */
+    public static SphereStencil interior(double radius, double thickness, double minInner) {
+        return get(new Key(radius, thickness, minInner, Kind.INTERIOR));
+    }
+
+    private static synchronized SphereStencil get(Key key) {
+        SphereStencil cached = CACHE.get(key);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        SphereStencil computed = compute(key);
+        CACHE.put(key, computed);
+        return computed;
+    }
+
+    private static SphereStencil compute(Key key) {
+        int cr = (int) Math.ceil(key.radius());
+        double r2 = key.radius() * key.radius();
+        double inner = Math.max(key.minInner(), key.radius() - key.thickness());
+        double inner2 = inner * inner;
+
+        int[] out = new int[64];
+        int n = 0;
+        for (int x = -cr; x <= cr; x++) {
+            for (int y = -cr; y <= cr; y++) {
+                for (int z = -cr; z <= cr; z++) {
+                    double dx = x + 0.5;
+                    double dy = y + 0.5;
+                    double dz = z + 0.5;
+                    double d2 = dx * dx + dy * dy + dz * dz;
+                    boolean match = key.kind() == Kind.SHELL
+                            ? (d2 <= r2 && d2 >= inner2)
+                            : d2 < inner2;
+                    if (!match) continue;
+                    if (n + 3 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                    out[n++] = x;
+                    out[n++] = y;
+                    out[n++] = z;
+                }
+            }
+        }
+        return new SphereStencil(Arrays.copyOf(out, n), cr);
+    }
+
+    public static synchronized int size() { return CACHE.size(); }
+    public static synchronized long getHits() { return hits; }
+    public static synchronized long getMisses() { return misses; }
+}
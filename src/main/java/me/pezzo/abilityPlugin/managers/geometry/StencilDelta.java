@@ -0,0 +1,26 @@
+package me.pezzo.abilityPlugin.managers.geometry;
+
+/**
+ * Blocchi che cambiano quando uno stencil trasla di un vettore intero.
+ * Gli offset di {@code removed} sono relativi al vecchio centro, quelli di {@code added} al nuovo.
+ */
+public final class StencilDelta {
+
+    private final int[] removed;
+    private final int[] added;
+
+    StencilDelta(int[] removed, int[] added) {
+        this.removed = removed;
+        this.added = added;
+    }
+
+    public int removedSize() { return removed.length / 3; }
+    public int removedDx(int i) { return removed[i * 3]; }
+    public int removedDy(int i) { return removed[i * 3 + 1]; }
+    public int removedDz(int i) { return removed[i * 3 + 2]; }
+
+    public int addedSize() { return added.length / 3; }
+    public int addedDx(int i) { return added[i * 3]; }
+    public int addedDy(int i) { return added[i * 3 + 1]; }
+    public int addedDz(int i) { return added[i * 3 + 2]; }
+}
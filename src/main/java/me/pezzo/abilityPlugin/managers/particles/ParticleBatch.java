@@ -0,0 +1,183 @@
+package me.pezzo.abilityPlugin.managers.particles;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Particelle di un effetto accumulate durante il tick e inviate insieme in {@link #flush(World)}.
+ * I viewer vengono risolti una volta sola per flush (distanza dal box che contiene i punti),
+ * invece che a ogni spawnParticle, e filtrati secondo il {@link ParticleLod} dell'abilità.
+ * Riutilizzabile: flush svuota il batch.
+ */
+public final class ParticleBatch {
+
+    private static final int STRIDE = 7;
+
+    private Particle[] types = new Particle[32];
+    private int[] counts = new int[32];
+    // x, y, z, offsetX, offsetY, offsetZ, extra per punto
+    private double[] values = new double[32 * STRIDE];
+    private Object[] data = new Object[32];
+    private int size;
+
+    private double minX, minY, minZ, maxX, maxY, maxZ;
+
+    private final ParticleLod lod;
+    // viewer raggruppati per frazione di dettaglio, riutilizzati tra un flush e l'altro
+    private final List<List<Player>> groupViewers = new ArrayList<>();
+    private double[] groupRatios = new double[4];
+    private int groupCount;
+
+    public ParticleBatch() {
+        this(ParticleLod.DEFAULT);
+    }
+
+    public ParticleBatch(ParticleLod lod) {
+        this.lod = lod == null ? ParticleLod.DEFAULT : lod;
+    }
+
+    public void add(Particle particle, Location loc, int count, double ox, double oy, double oz, double extra) {
+        add(particle, loc.getX(), loc.getY(), loc.getZ(), count, ox, oy, oz, extra, null);
+    }
+
+    public void add(Particle particle, Location loc, int count, double ox, double oy, double oz, double extra, Object options) {
+        add(particle, loc.getX(), loc.getY(), loc.getZ(), count, ox, oy, oz, extra, options);
+    }
+
+    public void add(Particle particle, double x, double y, double z, int count, double ox, double oy, double oz, double extra, Object options) {
+        if (size == types.length) grow();
+        types[size] = particle;
+        counts[size] = count;
+        data[size] = options;
+        int base = size * STRIDE;
+        values[base] = x;
+        values[base + 1] = y;
+        values[base + 2] = z;
+        values[base + 3] = ox;
+        values[base + 4] = oy;
+        values[base + 5] = oz;
+        values[base + 6] = extra;
+        if (size == 0) {
+            minX = maxX = x;
+            minY = maxY = y;
+            minZ = maxZ = z;
+        } else {
+            minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+            minZ = Math.min(minZ, z); maxZ = Math.max(maxZ, z);
+        }
+        size++;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    Particle type(int i) { return types[i]; }
+    Object data(int i) { return data[i]; }
+    double x(int i) { return values[i * STRIDE]; }
+    double y(int i) { return values[i * STRIDE + 1]; }
+    double z(int i) { return values[i * STRIDE + 2]; }
+    double offsetX(int i) { return values[i * STRIDE + 3]; }
+    double offsetY(int i) { return values[i * STRIDE + 4]; }
+    double offsetZ(int i) { return values[i * STRIDE + 5]; }
+    double extra(int i) { return values[i * STRIDE + 6]; }
+
+    /**
+     * Invia tutti i punti accumulati ai giocatori abbastanza vicini e svuota il batch.
+     * Ogni viewer riceve la frazione di punti del proprio livello di dettaglio; chi non ha il chunk
+     * sul client non riceve nulla. I viewer con la stessa frazione condividono gli stessi pacchetti.
+     */
+    public void flush(World world) {
+        if (size == 0 || world == null) return;
+        flush(world, AbilityPlugin.getInstance().getParticleManager());
+    }
+
+    void flush(World world, ParticleManager manager) {
+        if (size == 0 || world == null) return;
+        try {
+            double cx = (minX + maxX) * 0.5, cy = (minY + maxY) * 0.5, cz = (minZ + maxZ) * 0.5;
+            long chunkKey = BlockKeys.chunkKey((int) Math.floor(cx) >> 4, (int) Math.floor(cz) >> 4);
+            double range = lod.maxDistance();
+            double range2 = range * range;
+            groupCount = 0;
+            for (Player p : world.getPlayers()) {
+                Location l = p.getLocation();
+                double dx = Math.max(0, Math.max(minX - l.getX(), l.getX() - maxX));
+                double dy = Math.max(0, Math.max(minY - l.getY(), l.getY() - maxY));
+                double dz = Math.max(0, Math.max(minZ - l.getZ(), l.getZ() - maxZ));
+                double d2 = dx * dx + dy * dy + dz * dz;
+                if (d2 > range2) continue;
+                if (!manager.canSeeChunk(p, chunkKey)) {
+                    manager.countCulled();
+                    continue;
+                }
+                // dietro = il centro del batch è alle spalle dello sguardo (il box non contiene il viewer)
+                boolean behind = false;
+                if (d2 > 0) {
+                    Vector look = l.getDirection();
+                    behind = look.getX() * (cx - l.getX()) + look.getY() * (cy - l.getY() - 1.62) + look.getZ() * (cz - l.getZ()) < 0;
+                }
+                double ratio = lod.ratioFor(d2, behind);
+                if (ratio <= 0.0) {
+                    manager.countCulled();
+                    continue;
+                }
+                viewersFor(ratio).add(p);
+            }
+            for (int g = 0; g < groupCount; g++) {
+                manager.send(groupViewers.get(g), this, groupRatios[g]);
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Count da inviare per il punto i con la frazione data, o -1 se il punto va saltato.
+     * La scelta dipende solo dall'indice, quindi è stabile tra viewer con lo stesso livello.
+     */
+    int scaledCount(int i, double ratio) {
+        if (ratio >= 1.0) return counts[i];
+        // parte frazionaria senza %: il resto tra double non viene compilato in un'istruzione ed è molto più lento
+        double dither = i * 0.6180339887498949;
+        dither -= (long) dither;
+        int count = counts[i];
+        if (count <= 0) return ratio > dither ? count : -1;
+        int scaled = (int) (count * ratio + dither);
+        return scaled > 0 ? scaled : -1;
+    }
+
+    private List<Player> viewersFor(double ratio) {
+        for (int g = 0; g < groupCount; g++) {
+            if (groupRatios[g] == ratio) return groupViewers.get(g);
+        }
+        if (groupCount == groupRatios.length) groupRatios = Arrays.copyOf(groupRatios, groupCount * 2);
+        if (groupCount == groupViewers.size()) groupViewers.add(new ArrayList<>());
+        groupRatios[groupCount] = ratio;
+        return groupViewers.get(groupCount++);
+    }
+
+    public void clear() {
+        Arrays.fill(data, 0, size, null);
+        size = 0;
+        for (int g = 0; g < groupCount; g++) groupViewers.get(g).clear();
+        groupCount = 0;
+    }
+
+    private void grow() {
+        int cap = types.length * 2;
+        types = Arrays.copyOf(types, cap);
+        counts = Arrays.copyOf(counts, cap);
+        data = Arrays.copyOf(data, cap);
+        values = Arrays.copyOf(values, cap * STRIDE);
+    }
+}
@@ -0,0 +1,105 @@
+package me.pezzo.abilityPlugin.managers.particles;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.data.AbilityData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Livelli di dettaglio delle particelle di un'abilità: frazione dei punti inviata a un viewer
+ * in base alla distanza, ridotta ulteriormente per chi guarda dall'altra parte.
+ * Configurato in ogni file abilità sotto {@code particle_lod}.
+ */
+public final class ParticleLod {
+
+    public static final ParticleLod DEFAULT = new ParticleLod(
+            new double[] {12.0, 24.0, 32.0},
+            new double[] {1.0, 0.5, 0.25},
+            0.5);
+
+    /** Oltre questa distanza il client scarta comunque le particelle non forzate. */
+    public static final double MAX_DISTANCE = 32.0;
+
+    private final double[] distances;
+    private final double[] ratios;
+    private final double behindRatio;
+
+    private ParticleLod(double[] distances, double[] ratios, double behindRatio) {
+        this.distances = distances;
+        this.ratios = ratios;
+        this.behindRatio = behindRatio;
+    }
+
+    public double maxDistance() {
+        return distances[distances.length - 1];
+    }
+
+    /**
+     * Frazione dei punti per un viewer a distanza^2 {@code distance2}; 0 = niente particelle.
+     */
+    public double ratioFor(double distance2, boolean behind) {
+        for (int i = 0; i < distances.length; i++) {
+            if (distance2 <= distances[i] * distances[i]) {
+                return behind ? ratios[i] * behindRatio : ratios[i];
+            }
+        }
+        return 0.0;
+    }
+
+    /** LOD configurato per un'abilità (chiave del file, es. "dash"), o {@link #DEFAULT}. */
+    public static ParticleLod forAbility(String key) {
+        AbilityPlugin plugin = AbilityPlugin.getInstance();
+        if (plugin == null || plugin.getAbilityConfig() == null) return DEFAULT;
+        AbilityData data = plugin.getAbilityConfig().getAbility(key);
+        return data == null ? DEFAULT : data.getParticleLod();
+    }
+
+    /**
+     * Legge i livelli nel formato {@code "distanza:frazione"}, in ordine di distanza crescente.
+     * Voci non valide vengono ignorate con un warning; se non ne resta nessuna si usa {@link #DEFAULT}.
+     */
+    public static ParticleLod parse(List<String> tiers, double behindRatio, String fileName, Logger logger) {
+        if (tiers == null || tiers.isEmpty()) return DEFAULT;
+        List<double[]> parsed = new ArrayList<>();
+        double last = 0.0;
+        for (String raw : tiers) {
+            String[] parts = raw == null ? new String[0] : raw.trim().toLowerCase(Locale.ROOT).split(":");
+            try {
+                if (parts.length != 2) throw new NumberFormatException();
+                double distance = Math.min(MAX_DISTANCE, Double.parseDouble(parts[0].trim()));
+                double ratio = Math.max(0.0, Math.min(1.0, Double.parseDouble(parts[1].trim())));
+                if (distance <= last) {
+                    logger.warning("particle_lod in " + fileName + ": '" + raw + "' non è in ordine di distanza crescente, ignorato");
+                    continue;
+                }
+                parsed.add(new double[] {distance, ratio});
+                last = distance;
+            } catch (NumberFormatException e) {
+                logger.warning("particle_lod non valido in " + fileName + ": '" + raw + "' (formato distanza:frazione)");
+            }
+        }
+        if (parsed.isEmpty()) return DEFAULT;
+        double[] distances = new double[parsed.size()];
+        double[] ratios = new double[parsed.size()];
+        for (int i = 0; i < parsed.size(); i++) {
+            distances[i] = parsed.get(i)[0];
+            ratios[i] = parsed.get(i)[1];
+        }
+        return new ParticleLod(distances, ratios, Math.max(0.0, Math.min(1.0, behindRatio)));
+    }
+
+    public static List<String> defaultTiers() {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < DEFAULT.distances.length; i++) {
+            out.add(formatNumber(DEFAULT.distances[i]) + ":" + formatNumber(DEFAULT.ratios[i]));
+        }
+        return out;
+    }
+
+    private static String formatNumber(double v) {
+        return v == Math.rint(v) ? Long.toString((long) v) : Double.toString(v);
+    }
+}
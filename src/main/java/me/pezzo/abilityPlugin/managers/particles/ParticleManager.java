@@ -0,0 +1,101 @@
+package me.pezzo.abilityPlugin.managers.particles;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invio dei {@link ParticleBatch} e contatori per confrontare il costo con lo spawn punto per punto.
+ * I punti tagliati dal LOD e i viewer esclusi (chunk non visibile o fuori dai livelli) sono contati a parte.
+ * Con ProtocolLib i punti vanno in pacchetti BUNDLE; senza, si usa Player#spawnParticle per viewer.
+ */
+public class ParticleManager {
+
+    private final AbilityPlugin plugin;
+    // su Folia send() arriva dai thread di regione: sender e flag sono volatile, i contatori LongAdder
+    private volatile ParticlePacketSender sender;
+    private final AtomicBoolean senderFailed = new AtomicBoolean();
+
+    private final LongAdder totalPoints = new LongAdder();
+    private final LongAdder totalFlushes = new LongAdder();
+    private final LongAdder totalPackets = new LongAdder();
+    private final LongAdder totalBundles = new LongAdder();
+    private final LongAdder totalLodDropped = new LongAdder();
+    private final LongAdder totalCulledViewers = new LongAdder();
+    private volatile boolean chunkSentAvailable = true;
+
+    public ParticleManager(AbilityPlugin plugin, ParticlePacketSender sender) {
+        this.plugin = plugin;
+        this.sender = sender;
+    }
+
+    void send(List<Player> viewers, ParticleBatch batch, double ratio) {
+        int points = batch.size();
+        int selected = 0;
+        for (int i = 0; i < points; i++) {
+            if (batch.scaledCount(i, ratio) >= 0) selected++;
+        }
+        totalPoints.add(points);
+        totalFlushes.increment();
+        totalPackets.add((long) selected * viewers.size());
+        totalLodDropped.add((long) (points - selected) * viewers.size());
+        if (selected == 0) return;
+
+        ParticlePacketSender bundled = sender;
+        if (bundled != null) {
+            try {
+                totalBundles.add(bundled.sendBundled(viewers, batch, ratio));
+                return;
+            } catch (Throwable t) {
+                // es. versione di ProtocolLib senza bundle: si ricade sull'API Bukkit
+                if (senderFailed.compareAndSet(false, true)) {
+                    plugin.getLogger().warning("[Particles] invio in bundle non disponibile, uso spawnParticle: " + t.getMessage());
+                }
+                sender = null;
+            }
+        }
+        for (Player viewer : viewers) {
+            for (int i = 0; i < points; i++) {
+                int count = batch.scaledCount(i, ratio);
+                if (count < 0) continue;
+                viewer.spawnParticle(batch.type(i), batch.x(i), batch.y(i), batch.z(i), count,
+                        batch.offsetX(i), batch.offsetY(i), batch.offsetZ(i), batch.extra(i), batch.data(i));
+            }
+        }
+    }
+
+    /**
+     * true se il client del giocatore ha ricevuto il chunk. Fuori da Paper si usa la view distance.
+     */
+    boolean canSeeChunk(Player player, long chunkKey) {
+        if (chunkSentAvailable) {
+            try {
+                return player.isChunkSent(chunkKey);
+            } catch (NoSuchMethodError e) {
+                chunkSentAvailable = false;
+            }
+        }
+        Location l = player.getLocation();
+        int view = Math.min(player.getClientViewDistance(), player.getWorld().getViewDistance());
+        int dx = Math.abs(BlockKeys.chunkX(chunkKey) - (l.getBlockX() >> 4));
+        int dz = Math.abs(BlockKeys.chunkZ(chunkKey) - (l.getBlockZ() >> 4));
+        return Math.max(dx, dz) <= view;
+    }
+
+    void countCulled() {
+        totalCulledViewers.increment();
+    }
+
+    public boolean isBundling() { return sender != null; }
+    public long getTotalPoints() { return totalPoints.sum(); }
+    public long getTotalFlushes() { return totalFlushes.sum(); }
+    public long getTotalPackets() { return totalPackets.sum(); }
+    public long getTotalBundles() { return totalBundles.sum(); }
+    public long getTotalLodDropped() { return totalLodDropped.sum(); }
+    public long getTotalCulledViewers() { return totalCulledViewers.sum(); }
+}
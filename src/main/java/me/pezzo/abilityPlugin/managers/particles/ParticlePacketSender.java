@@ -0,0 +1,18 @@
+package me.pezzo.abilityPlugin.managers.particles;
+
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Invio diretto di un batch di particelle ai viewer già risolti.
+ * Implementato solo quando ProtocolLib è presente, così le sue classi non vengono caricate altrimenti.
+ */
+public interface ParticlePacketSender {
+
+    /**
+     * Invia a tutti i viewer i punti del batch selezionati per la frazione di dettaglio {@code ratio}.
+     * @return numero di pacchetti bundle inviati
+     */
+    int sendBundled(List<Player> viewers, ParticleBatch batch, double ratio);
+}
@@ -0,0 +1,62 @@
+package me.pezzo.abilityPlugin.managers.particles;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.WrappedParticle;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Costruisce un WORLD_PARTICLES per punto una sola volta per livello di dettaglio e li invia raggruppati in BUNDLE,
+ * così il client li elabora nello stesso frame e il server fa un solo invio per viewer.
+ */
+public final class ProtocolParticleSender implements ParticlePacketSender {
+
+    // limite di pacchetti per bundle imposto dal client
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    private final ProtocolManager manager = ProtocolLibrary.getProtocolManager();
+
+    @Override
+    public int sendBundled(List<Player> viewers, ParticleBatch batch, double ratio) {
+        List<PacketContainer> packets = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            int count = batch.scaledCount(i, ratio);
+            if (count < 0) continue;
+            PacketContainer packet = manager.createPacket(PacketType.Play.Server.WORLD_PARTICLES);
+            packet.getNewParticles().write(0, WrappedParticle.create(batch.type(i), batch.data(i)));
+            packet.getDoubles()
+                    .write(0, batch.x(i))
+                    .write(1, batch.y(i))
+                    .write(2, batch.z(i));
+            packet.getFloat()
+                    .write(0, (float) batch.offsetX(i))
+                    .write(1, (float) batch.offsetY(i))
+                    .write(2, (float) batch.offsetZ(i))
+                    .write(3, (float) batch.extra(i));
+            packet.getIntegers().write(0, count);
+            packet.getBooleans().write(0, false);
+            packets.add(packet);
+        }
+
+        List<PacketContainer> bundles = new ArrayList<>();
+        for (int from = 0; from < packets.size(); from += MAX_BUNDLE_SIZE) {
+            PacketContainer bundle = manager.createPacket(PacketType.Play.Server.BUNDLE);
+            bundle.getPacketBundles().write(0, packets.subList(from, Math.min(packets.size(), from + MAX_BUNDLE_SIZE)));
+            bundles.add(bundle);
+        }
+        int sent = 0;
+        for (Player viewer : viewers) {
+            if (!viewer.isOnline()) continue;
+            for (PacketContainer bundle : bundles) {
+                manager.sendServerPacket(viewer, bundle);
+                sent++;
+            }
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,95 @@
+package me.pezzo.abilityPlugin.managers.quality;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.enums.QualityLevel;
+
+/**
+ * Abbassa la qualità degli effetti quando il server rallenta. La durata di ogni tick (ServerTickEndEvent)
+ * alimenta una media esponenziale; il peggioramento avviene dopo pochi tick sopra soglia, il recupero
+ * un livello alla volta solo dopo un periodo sotto (soglia - isteresi), così il livello non oscilla.
+ */
+public class QualityGovernor {
+
+    // peso del nuovo campione nella media (~20 tick di memoria)
+    private static final double EMA_ALPHA = 0.05;
+
+    private final AbilityPlugin plugin;
+    private final PerformanceConfig config;
+
+    private QualityLevel level = QualityLevel.FULL;
+    private double averageMspt = 0.0;
+    private boolean primed = false;
+    private int ticksAbove = 0;
+    private int ticksBelow = 0;
+
+    private long downgrades = 0;
+    private long upgrades = 0;
+    private QualityLevel worstLevel = QualityLevel.FULL;
+    private long lastChangeMillis = 0;
+
+    public QualityGovernor(AbilityPlugin plugin, PerformanceConfig config) {
+        this.plugin = plugin;
+        this.config = config;
+    }
+
+    public void onTickEnd(double tickMillis) {
+        if (!primed) {
+            averageMspt = tickMillis;
+            primed = true;
+        } else {
+            averageMspt += (tickMillis - averageMspt) * EMA_ALPHA;
+        }
+        if (!config.isGovernorEnabled()) {
+            if (level != QualityLevel.FULL) change(QualityLevel.FULL);
+            return;
+        }
+
+        QualityLevel target = levelFor(averageMspt, 0.0);
+        if (target.ordinal() > level.ordinal()) {
+            ticksBelow = 0;
+            if (++ticksAbove >= config.getGovernorDowngradeTicks()) change(target);
+            return;
+        }
+        ticksAbove = 0;
+        // si risale solo se anche con l'isteresi il livello attuale non è più giustificato
+        QualityLevel relaxed = levelFor(averageMspt, config.getGovernorHysteresisMspt());
+        if (relaxed.ordinal() < level.ordinal()) {
+            if (++ticksBelow >= config.getGovernorUpgradeTicks()) {
+                change(QualityLevel.values()[level.ordinal() - 1]);
+            }
+        } else {
+            ticksBelow = 0;
+        }
+    }
+
+    private QualityLevel levelFor(double mspt, double hysteresis) {
+        QualityLevel result = QualityLevel.FULL;
+        for (QualityLevel l : QualityLevel.values()) {
+            if (l == QualityLevel.FULL) continue;
+            if (mspt >= config.getGovernorThreshold(l) - hysteresis) result = l;
+        }
+        return result;
+    }
+
+    private void change(QualityLevel next) {
+        if (next.ordinal() > level.ordinal()) {
+            downgrades++;
+            if (next.ordinal() > worstLevel.ordinal()) worstLevel = next;
+        } else {
+            upgrades++;
+        }
+        plugin.getLogger().info(String.format("[Quality] %s -> %s (mspt medio %.1f)", level, next, averageMspt));
+        level = next;
+        ticksAbove = 0;
+        ticksBelow = 0;
+        lastChangeMillis = System.currentTimeMillis();
+    }
+
+    public QualityLevel getLevel() { return level; }
+    public double getAverageMspt() { return averageMspt; }
+    public long getDowngrades() { return downgrades; }
+    public long getUpgrades() { return upgrades; }
+    public QualityLevel getWorstLevel() { return worstLevel; }
+    public long getLastChangeMillis() { return lastChangeMillis; }
+}
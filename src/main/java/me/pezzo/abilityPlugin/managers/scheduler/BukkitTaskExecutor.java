@@ -0,0 +1,75 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Paper/Spigot: un solo main thread, qualsiasi ancora va bene.
+ */
+public class BukkitTaskExecutor implements TaskExecutor {
+
+    private final AbilityPlugin plugin;
+    private final BukkitScheduler scheduler;
+
+    public BukkitTaskExecutor(AbilityPlugin plugin) {
+        this.plugin = plugin;
+        this.scheduler = plugin.getServer().getScheduler();
+    }
+
+    @Override
+    public boolean isRegionThreaded() { return false; }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delay, long period) {
+        BukkitTask t = scheduler.runTaskTimer(plugin, task, delay, period);
+        return t::cancel;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        scheduler.runTask(plugin, task);
+    }
+
+    @Override
+    public Task runAsyncTimer(Runnable task, long delay, long period) {
+        BukkitTask t = scheduler.runTaskTimerAsynchronously(plugin, task, delay, period);
+        return t::cancel;
+    }
+
+    @Override
+    public Task runAtTimer(Location anchor, Runnable task, long delay, long period) {
+        return runGlobalTimer(task, delay, period);
+    }
+
+    @Override
+    public void runAt(Location anchor, Runnable task) {
+        runGlobal(task);
+    }
+
+    @Override
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        runGlobal(task);
+    }
+
+    @Override
+    public Task runForTimer(Entity anchor, Runnable task, Runnable retired, long delay, long period) {
+        return runGlobalTimer(task, delay, period);
+    }
+
+    @Override
+    public void runFor(Entity anchor, Runnable task, Runnable retired) {
+        runGlobal(task);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Location location) { return true; }
+
+    @Override
+    public void cancelAll() {
+        scheduler.cancelTasks(plugin);
+    }
+}
\ No newline at end of file
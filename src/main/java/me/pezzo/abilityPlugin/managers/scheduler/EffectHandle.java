@@ -0,0 +1,37 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import java.util.UUID;
+
+/**
+ * Voce dell'{@link EffectScheduler}: identifica l'effetto per la cancellazione e le statistiche.
+ */
+public final class EffectHandle {
+
+    final UUID owner;
+    final String name;
+    final Tickable tickable;
+    final long period;
+    long dueTick;
+    volatile boolean cancelled;
+    // solo su Folia: il task della regione (o dell'entità) che esegue l'effetto
+    volatile TaskExecutor.Task task;
+    // chunk sotto cui l'effetto è indicizzato nell'EffectRegistry
+    volatile EffectRegistry.ChunkPos position;
+
+    EffectHandle(UUID owner, String name, Tickable tickable, long period, long dueTick) {
+        this.owner = owner;
+        this.name = name;
+        this.tickable = tickable;
+        this.period = period;
+        this.dueTick = dueTick;
+    }
+
+    /** Termina l'effetto: non verrà più eseguito dal prossimo giro. Nessuna callback. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() { return cancelled; }
+    public UUID getOwner() { return owner; }
+    public String getName() { return name; }
+}
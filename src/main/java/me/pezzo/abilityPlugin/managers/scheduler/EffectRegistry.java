@@ -0,0 +1,109 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import me.pezzo.abilityPlugin.managers.blocks.BlockKeys;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice degli effetti vivi per proprietario, mondo e chunk, mantenuto dall'{@link EffectScheduler}
+ * (registrazione allo schedule, rimozione al ritiro). Il chunk è quello dell'{@link Tickable#anchor()},
+ * aggiornato a ogni tick se l'effetto si sposta; gli effetti che seguono il giocatore restano nel chunk
+ * in cui sono partiti. Le mappe sono concorrenti perché su Folia gli effetti girano su più thread.
+ */
+public class EffectRegistry {
+
+    record ChunkPos(UUID world, long chunkKey) { }
+
+    private final Set<EffectHandle> all = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<EffectHandle>> byOwner = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<EffectHandle>> byWorld = new ConcurrentHashMap<>();
+    private final Map<ChunkPos, Set<EffectHandle>> byChunk = new ConcurrentHashMap<>();
+
+    void add(EffectHandle h, Location at) {
+        all.add(h);
+        addTo(byOwner, h.owner, h);
+        place(h, at);
+    }
+
+    /** @return false se l'effetto era già stato rimosso */
+    boolean remove(EffectHandle h) {
+        if (!all.remove(h)) return false;
+        removeFrom(byOwner, h.owner, h);
+        unplace(h);
+        return true;
+    }
+
+    /** Aggiorna l'indice per chunk se l'ancora è passata in un altro chunk. */
+    void relocate(EffectHandle h, Location at) {
+        if (at == null || at.getWorld() == null) return;
+        ChunkPos current = h.position;
+        long chunkKey = BlockKeys.chunkKey(at.getBlockX() >> 4, at.getBlockZ() >> 4);
+        if (current != null && current.chunkKey() == chunkKey && current.world().equals(at.getWorld().getUID())) return;
+        if (!all.contains(h)) return;
+        unplace(h);
+        place(h, at);
+    }
+
+    private void place(EffectHandle h, Location at) {
+        if (at == null || at.getWorld() == null) return;
+        UUID world = at.getWorld().getUID();
+        ChunkPos pos = new ChunkPos(world, BlockKeys.chunkKey(at.getBlockX() >> 4, at.getBlockZ() >> 4));
+        h.position = pos;
+        addTo(byWorld, world, h);
+        addTo(byChunk, pos, h);
+    }
+
+    private void unplace(EffectHandle h) {
+        ChunkPos pos = h.position;
+        if (pos == null) return;
+        h.position = null;
+        removeFrom(byWorld, pos.world(), h);
+        removeFrom(byChunk, pos, h);
+    }
+
+    // aggiunta e rimozione dentro compute: una rimozione che svuota il set non può scartarlo
+    // mentre un altro thread ci sta aggiungendo un effetto
+    private static <K> void addTo(Map<K, Set<EffectHandle>> index, K key, EffectHandle h) {
+        index.compute(key, (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(h);
+            return set;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, Set<EffectHandle>> index, K key, EffectHandle h) {
+        index.compute(key, (k, set) -> {
+            if (set == null) return null;
+            set.remove(h);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /** Effetti vivi di un giocatore (vista in sola lettura). */
+    public Set<EffectHandle> ofOwner(UUID owner) {
+        Set<EffectHandle> set = byOwner.get(owner);
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    public Set<EffectHandle> inWorld(World world) {
+        Set<EffectHandle> set = byWorld.get(world.getUID());
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    public Set<EffectHandle> inChunk(World world, int chunkX, int chunkZ) {
+        Set<EffectHandle> set = byChunk.get(new ChunkPos(world.getUID(), BlockKeys.chunkKey(chunkX, chunkZ)));
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    public Set<EffectHandle> all() { return Collections.unmodifiableSet(all); }
+
+    public int size() { return all.size(); }
+    public int getOwnerCount() { return byOwner.size(); }
+    public int getChunkCount() { return byChunk.size(); }
+}
\ No newline at end of file
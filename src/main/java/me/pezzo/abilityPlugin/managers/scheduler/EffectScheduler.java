@@ -0,0 +1,355 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Un solo task ripetuto per tutti gli effetti attivi al posto di un BukkitRunnable per effetto e fase.
+ * Gli effetti con periodo 1 stanno in una lista eseguita a ogni tick; le partenze ritardate e i periodi
+ * più lunghi in una timing wheel da {@value #WHEEL_SIZE} slot. Se è impostato un budget in ms, gli
+ * effetti rimasti fuori vengono eseguiti per primi al tick successivo.
+ * <p>
+ * Su Folia non esiste un tick unico: ogni effetto ha il proprio task sul thread della regione
+ * della sua {@link Tickable#anchor()} (o dell'entità del proprietario), così effetti in regioni diverse
+ * girano in parallelo. La timing wheel e il budget in quel caso non vengono usati.
+ */
+public class EffectScheduler {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final AbilityPlugin plugin;
+    private final PerformanceConfig config;
+    private final TaskExecutor executor;
+    private final boolean regional;
+
+    @SuppressWarnings("unchecked")
+    private final List<EffectHandle>[] wheel = new List[WHEEL_SIZE];
+    private final List<EffectHandle> active = new ArrayList<>();
+    // programmati durante un tick (o fuori): entrano nella wheel al tick successivo
+    private final List<EffectHandle> incoming = new ArrayList<>();
+    private final EffectRegistry registry = new EffectRegistry();
+    private TaskExecutor.Task task;
+
+    private long currentTick = 0;
+    private int cursor = 0;
+    private final AtomicInteger liveCount = new AtomicInteger();
+
+    private final Map<String, Timing> timings = new TreeMap<>();
+    private double lastTickMillis = 0;
+    private final AtomicLong totalScheduled = new AtomicLong();
+    private long totalDeferred = 0;
+    private final AtomicLong totalAborted = new AtomicLong();
+    private final AtomicLong totalFailed = new AtomicLong();
+    private final AtomicLong totalMigrated = new AtomicLong();
+
+    /** Tempi cumulati per nome di effetto. */
+    public static final class Timing {
+        private long runs;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(long nanos) {
+            runs++;
+            totalNanos += nanos;
+            if (nanos > maxNanos) maxNanos = nanos;
+        }
+
+        Timing copy() {
+            Timing t = new Timing();
+            t.runs = runs;
+            t.totalNanos = totalNanos;
+            t.maxNanos = maxNanos;
+            return t;
+        }
+
+        public long getRuns() { return runs; }
+        public double getAverageMicros() { return runs == 0 ? 0 : totalNanos / 1000.0 / runs; }
+        public double getMaxMicros() { return maxNanos / 1000.0; }
+    }
+
+    public EffectScheduler(AbilityPlugin plugin, PerformanceConfig config) {
+        this.plugin = plugin;
+        this.config = config;
+        this.executor = plugin.getTaskExecutor();
+        this.regional = executor.isRegionThreaded();
+        for (int i = 0; i < WHEEL_SIZE; i++) wheel[i] = new ArrayList<>();
+    }
+
+    public void start() {
+        if (task != null || regional) return;
+        task = executor.runGlobalTimer(this::tick, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Esegue {@code tickable} dopo {@code delay} tick (minimo 1, come un BukkitRunnable) e poi ogni
+     * {@code period} tick; con period <= 0 viene eseguito una volta sola.
+     */
+    public EffectHandle schedule(UUID owner, String name, Tickable tickable, long delay, long period) {
+        EffectHandle handle = new EffectHandle(owner, name, tickable, period, currentTick + Math.max(1L, delay));
+        liveCount.incrementAndGet();
+        totalScheduled.incrementAndGet();
+        registry.add(handle, locate(handle));
+        if (regional) {
+            dispatch(handle, delay);
+        } else {
+            incoming.add(handle);
+        }
+        return handle;
+    }
+
+    /** Azione singola dopo {@code delay} tick, es. la fase successiva di un'abilità. */
+    public EffectHandle runLater(UUID owner, String name, Runnable action, long delay) {
+        return schedule(owner, name, handle -> action.run(), delay, 0L);
+    }
+
+    /**
+     * Interrompe tutti gli effetti di un giocatore, chiamando {@link Tickable#onAbort()}.
+     * Costa quanto gli effetti del giocatore, non quanto tutti quelli attivi: usato a uscita e morte.
+     */
+    public int cancelOwner(UUID owner) {
+        int aborted = 0;
+        for (EffectHandle h : List.copyOf(registry.ofOwner(owner))) {
+            if (h.cancelled) continue;
+            abort(h);
+            aborted++;
+        }
+        return aborted;
+    }
+
+    /** Interrompe tutti gli effetti, chiamando {@link Tickable#onAbort()}. Usato in onDisable. */
+    public int cancelAll() {
+        int aborted = 0;
+        for (EffectHandle h : allLive()) {
+            abort(h);
+            aborted++;
+        }
+        return aborted;
+    }
+
+    private List<EffectHandle> allLive() {
+        List<EffectHandle> out = new ArrayList<>();
+        for (EffectHandle h : registry.all()) if (!h.cancelled) out.add(h);
+        return out;
+    }
+
+    private void abort(EffectHandle h) {
+        // su Folia la pulizia tocca il mondo e va fatta sul thread dell'effetto; in onDisable le regioni sono ferme
+        abort(h, !regional || !plugin.isEnabled());
+    }
+
+    private void abort(EffectHandle h, boolean inline) {
+        h.cancelled = true;
+        totalAborted.incrementAndGet();
+        if (inline) callAbort(h);
+        else onOwnerThread(h, () -> callAbort(h));
+    }
+
+    private void callAbort(EffectHandle h) {
+        try {
+            h.tickable.onAbort();
+        } catch (Throwable t) {
+            plugin.getLogger().warning("[Effects] errore interrompendo " + h.name + ": " + t.getMessage());
+        }
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        currentTick++;
+
+        for (EffectHandle h : incoming) {
+            if (h.cancelled) retire(h);
+            else wheel[(int) (h.dueTick & WHEEL_MASK)].add(h);
+        }
+        incoming.clear();
+
+        // partenze e periodi lunghi scaduti in questo tick
+        List<EffectHandle> slot = wheel[(int) (currentTick & WHEEL_MASK)];
+        List<EffectHandle> becameActive = new ArrayList<>();
+        for (int i = 0; i < slot.size(); ) {
+            EffectHandle h = slot.get(i);
+            if (!h.cancelled && h.dueTick != currentTick) {
+                i++;
+                continue;
+            }
+            slot.set(i, slot.get(slot.size() - 1));
+            slot.remove(slot.size() - 1);
+            if (h.cancelled) {
+                retire(h);
+                continue;
+            }
+            run(h);
+            if (h.cancelled || h.period <= 0) {
+                h.cancelled = true;
+                retire(h);
+            } else if (h.period == 1) {
+                becameActive.add(h);
+            } else {
+                h.dueTick = currentTick + h.period;
+                incoming.add(h);
+            }
+        }
+
+        runActive(start);
+        // i danni accodati dagli effetti di questo tick, in un solo passaggio
+        plugin.getDamageQueue().flush();
+
+        active.addAll(becameActive);
+        lastTickMillis = (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    private void runActive(long start) {
+        int n = active.size();
+        if (n == 0) return;
+        long budgetNanos = (long) (config.getEffectMaxMillisPerTick() * 1_000_000L);
+        if (cursor >= n) cursor = 0;
+        int ran = 0;
+        EffectHandle resumeFrom = null;
+        for (int k = 0; k < n; k++) {
+            EffectHandle h = active.get((cursor + k) % n);
+            if (h.cancelled) continue;
+            if (budgetNanos > 0 && ran > 0 && System.nanoTime() - start > budgetNanos) {
+                resumeFrom = h;
+                totalDeferred += countLive(k, n);
+                break;
+            }
+            run(h);
+            ran++;
+        }
+
+        active.removeIf(h -> {
+            if (!h.cancelled) return false;
+            retire(h);
+            return true;
+        });
+        cursor = resumeFrom == null ? 0 : Math.max(0, active.indexOf(resumeFrom));
+    }
+
+    private int countLive(int from, int n) {
+        int live = 0;
+        for (int k = from; k < n; k++) {
+            if (!active.get((cursor + k) % n).cancelled) live++;
+        }
+        return live;
+    }
+
+    private void run(EffectHandle h) {
+        long t0 = System.nanoTime();
+        try {
+            h.tickable.tick(h);
+        } catch (Throwable t) {
+            totalFailed.incrementAndGet();
+            plugin.getLogger().warning("[Effects] errore in " + h.name + ", effetto interrotto: " + t);
+            abort(h, true);
+        }
+        Location at = h.tickable.anchor();
+        if (at != null) registry.relocate(h, at);
+        long nanos = System.nanoTime() - t0;
+        synchronized (timings) {
+            timings.computeIfAbsent(h.name, k -> new Timing()).add(nanos);
+        }
+    }
+
+    private void retire(EffectHandle h) {
+        if (registry.remove(h)) liveCount.decrementAndGet();
+    }
+
+    // posizione iniziale per il registro: l'ancora, o il giocatore per gli effetti che lo seguono
+    private Location locate(EffectHandle h) {
+        Location at = h.tickable.anchor();
+        if (at != null) return at;
+        Player player = plugin.getServer().getPlayer(h.owner);
+        return player == null ? null : player.getLocation();
+    }
+
+    // ---- Folia: un task per effetto sul thread della sua regione ----
+
+    private void dispatch(EffectHandle h, long delay) {
+        long period = h.period > 0 ? h.period : 1L;
+        Location at = h.tickable.anchor();
+        if (at != null) {
+            h.task = executor.runAtTimer(at, () -> runRegional(h), delay, period);
+            return;
+        }
+        Player player = plugin.getServer().getPlayer(h.owner);
+        if (player != null) {
+            h.task = executor.runForTimer(player, () -> runRegional(h), () -> retireRegional(h), delay, period);
+        } else {
+            h.task = executor.runGlobalTimer(() -> runRegional(h), delay, period);
+        }
+    }
+
+    private void runRegional(EffectHandle h) {
+        if (!h.cancelled) {
+            Location at = h.tickable.anchor();
+            if (at != null && !executor.isOwnedByCurrentThread(at)) {
+                // l'effetto è uscito dalla regione: riparte dal tick successivo sul thread di quella nuova
+                h.task.cancel();
+                totalMigrated.incrementAndGet();
+                dispatch(h, 1L);
+                return;
+            }
+            run(h);
+            plugin.getDamageQueue().flush();
+        }
+        if (h.cancelled || h.period <= 0) {
+            h.cancelled = true;
+            h.task.cancel();
+            retire(h);
+        }
+    }
+
+    // il giocatore a cui è legato l'effetto è stato rimosso (uscita, cambio server)
+    private void retireRegional(EffectHandle h) {
+        if (!h.cancelled) abort(h, true);
+        retire(h);
+    }
+
+    private void onOwnerThread(EffectHandle h, Runnable action) {
+        Location at = h.tickable.anchor();
+        if (at != null) {
+            executor.runAt(at, action);
+            return;
+        }
+        Player player = plugin.getServer().getPlayer(h.owner);
+        if (player != null) executor.runFor(player, action, action);
+        else executor.runGlobal(action);
+    }
+
+    public boolean isRegional() { return regional; }
+    public int getLiveCount() { return liveCount.get(); }
+    public int getActiveCount() { return regional ? registry.size() : active.size(); }
+    public EffectRegistry getRegistry() { return registry; }
+    public double getLastTickMillis() { return lastTickMillis; }
+    public long getTotalScheduled() { return totalScheduled.get(); }
+    public long getTotalDeferred() { return totalDeferred; }
+    public long getTotalAborted() { return totalAborted.get(); }
+    public long getTotalFailed() { return totalFailed.get(); }
+    public long getTotalMigrated() { return totalMigrated.get(); }
+
+    /** Copia dei tempi per nome: su Folia vengono aggiornati da più thread. */
+    public Map<String, Timing> getTimings() {
+        synchronized (timings) {
+            Map<String, Timing> copy = new TreeMap<>();
+            for (Map.Entry<String, Timing> e : timings.entrySet()) copy.put(e.getKey(), e.getValue().copy());
+            return copy;
+        }
+    }
+}
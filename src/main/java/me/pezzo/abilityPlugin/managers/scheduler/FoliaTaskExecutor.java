@@ -0,0 +1,90 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folia: RegionScheduler per le posizioni, EntityScheduler per le entità, GlobalRegionScheduler per il resto.
+ * Folia non accetta ritardi di 0 tick sui task ripetuti, quindi il minimo è 1.
+ */
+public class FoliaTaskExecutor implements TaskExecutor {
+
+    private static final long MILLIS_PER_TICK = 50L;
+
+    private final AbilityPlugin plugin;
+
+    public FoliaTaskExecutor(AbilityPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionThreaded() { return true; }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delay, long period) {
+        ScheduledTask t = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, st -> task.run(), Math.max(1L, delay), period);
+        return t::cancel;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    @Override
+    public Task runAsyncTimer(Runnable task, long delay, long period) {
+        ScheduledTask t = Bukkit.getAsyncScheduler().runAtFixedRate(plugin, st -> task.run(),
+                Math.max(1L, delay) * MILLIS_PER_TICK, period * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+        return t::cancel;
+    }
+
+    @Override
+    public Task runAtTimer(Location anchor, Runnable task, long delay, long period) {
+        ScheduledTask t = Bukkit.getRegionScheduler().runAtFixedRate(plugin, anchor, st -> task.run(), Math.max(1L, delay), period);
+        return t::cancel;
+    }
+
+    @Override
+    public void runAt(Location anchor, Runnable task) {
+        Bukkit.getRegionScheduler().execute(plugin, anchor, task);
+    }
+
+    @Override
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        Bukkit.getRegionScheduler().execute(plugin, world, chunkX, chunkZ, task);
+    }
+
+    @Override
+    public Task runForTimer(Entity anchor, Runnable task, Runnable retired, long delay, long period) {
+        ScheduledTask t = anchor.getScheduler().runAtFixedRate(plugin, st -> task.run(), retired, Math.max(1L, delay), period);
+        if (t == null) {
+            // entità già rimossa: il task non partirà mai
+            if (retired != null) retired.run();
+            return () -> { };
+        }
+        return t::cancel;
+    }
+
+    @Override
+    public void runFor(Entity anchor, Runnable task, Runnable retired) {
+        if (!anchor.getScheduler().execute(plugin, task, retired, 1L) && retired != null) retired.run();
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Location location) {
+        return Bukkit.isOwnedByCurrentRegion(location);
+    }
+
+    @Override
+    public void cancelAll() {
+        // i task di regione ed entità vengono cancellati da Folia alla disattivazione del plugin
+        Bukkit.getGlobalRegionScheduler().cancelTasks(plugin);
+        Bukkit.getAsyncScheduler().cancelTasks(plugin);
+    }
+}
\ No newline at end of file
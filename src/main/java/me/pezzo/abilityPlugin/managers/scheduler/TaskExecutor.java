@@ -0,0 +1,60 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * Dove e su quale thread girano i task del plugin. Su Paper tutto finisce sul main thread
+ * ({@link BukkitTaskExecutor}); su Folia ogni task va sul thread della regione che possiede la posizione
+ * o l'entità ({@link FoliaTaskExecutor}), e il lavoro senza posizione sul thread globale.
+ */
+public interface TaskExecutor {
+
+    /** Task ripetuto o in attesa, cancellabile da qualsiasi thread. */
+    interface Task {
+        void cancel();
+    }
+
+    /** true su Folia: gli effetti in regioni diverse girano in parallelo. */
+    boolean isRegionThreaded();
+
+    /** Lavoro che non tocca una posizione precisa (code condivise, manutenzione). */
+    Task runGlobalTimer(Runnable task, long delay, long period);
+
+    void runGlobal(Runnable task);
+
+    /** Fuori dai thread del server: solo lavoro che non tocca mondo ed entità. */
+    Task runAsyncTimer(Runnable task, long delay, long period);
+
+    /** Sul thread che possiede la posizione. */
+    Task runAtTimer(Location anchor, Runnable task, long delay, long period);
+
+    void runAt(Location anchor, Runnable task);
+
+    void runAt(World world, int chunkX, int chunkZ, Runnable task);
+
+    /**
+     * Sul thread che possiede l'entità, seguendola tra le regioni. {@code retired} (può essere null)
+     * viene chiamato al posto del task se l'entità viene rimossa, es. un giocatore che esce.
+     */
+    Task runForTimer(Entity anchor, Runnable task, Runnable retired, long delay, long period);
+
+    void runFor(Entity anchor, Runnable task, Runnable retired);
+
+    /** true se il thread corrente può toccare la posizione. Sempre true sul main thread di Paper. */
+    boolean isOwnedByCurrentThread(Location location);
+
+    /** Cancella i task globali e asincroni del plugin. Usato in onDisable. */
+    void cancelAll();
+
+    static TaskExecutor create(AbilityPlugin plugin) {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return new FoliaTaskExecutor(plugin);
+        } catch (ClassNotFoundException e) {
+            return new BukkitTaskExecutor(plugin);
+        }
+    }
+}
\ No newline at end of file
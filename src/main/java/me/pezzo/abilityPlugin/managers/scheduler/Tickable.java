@@ -0,0 +1,26 @@
+package me.pezzo.abilityPlugin.managers.scheduler;
+
+import org.bukkit.Location;
+
+/**
+ * Un effetto (o una fase) guidato dall'{@link EffectScheduler}.
+ */
+public interface Tickable {
+
+    /**
+     * Un passo dell'effetto. Per terminare chiamare {@link EffectHandle#cancel()} dopo aver fatto pulizia.
+     */
+    void tick(EffectHandle handle);
+
+    /**
+     * Chiamato quando l'effetto viene interrotto dall'esterno (cancellazione in blocco, errore nel tick):
+     * deve rilasciare quello che l'effetto lascerebbe nel mondo. Non viene chiamato dopo un cancel() del tick.
+     */
+    default void onAbort() { }
+
+    /**
+     * Posizione di cui l'effetto tocca blocchi ed entità. Su Folia l'effetto gira sul thread della regione
+     * che la possiede e la segue se si sposta; null (default) per seguire il giocatore proprietario.
+     */
+    default Location anchor() { return null; }
+}
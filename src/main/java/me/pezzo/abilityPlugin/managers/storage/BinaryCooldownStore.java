@@ -0,0 +1,97 @@
+package me.pezzo.abilityPlugin.managers.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Un file per giocatore in {@code cooldowns/}, letto solo quando il giocatore entra:
+ * intestazione (magic, versione, numero di voci) e per ogni voce nome dell'abilità e scadenza.
+ * La scrittura passa da un file temporaneo rinominato, così un crash non lascia file a metà.
+ */
+public class BinaryCooldownStore implements CooldownStore {
+
+    private static final int MAGIC = 0x4A4A4B43;
+    private static final int VERSION = 1;
+
+    private final File folder;
+
+    public BinaryCooldownStore(File folder) {
+        this.folder = folder;
+        if (!folder.exists()) folder.mkdirs();
+    }
+
+    @Override
+    public Map<String, Long> load(UUID player) throws IOException {
+        File file = fileOf(player);
+        Map<String, Long> out = new HashMap<>();
+        if (!file.exists()) return out;
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                throw new IOException("formato non riconosciuto: " + file.getName());
+            }
+            int count = in.readUnsignedByte();
+            for (int i = 0; i < count; i++) {
+                String ability = in.readUTF();
+                long expires = in.readLong();
+                if (expires > now) out.put(ability, expires);
+            }
+        }
+        // tutto scaduto: il file non serve più
+        if (out.isEmpty()) Files.deleteIfExists(file.toPath());
+        return out;
+    }
+
+    @Override
+    public void save(Map<UUID, Map<String, Long>> batch) throws IOException {
+        IOException failure = null;
+        for (Map.Entry<UUID, Map<String, Long>> e : batch.entrySet()) {
+            try {
+                write(e.getKey(), e.getValue());
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void write(UUID player, Map<String, Long> cooldowns) throws IOException {
+        File file = fileOf(player);
+        if (cooldowns.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + cooldowns.size() * 20);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(cooldowns.size());
+            for (Map.Entry<String, Long> c : cooldowns.entrySet()) {
+                out.writeUTF(c.getKey());
+                out.writeLong(c.getValue());
+            }
+        }
+        File tmp = new File(folder, player + ".tmp");
+        Files.write(tmp.toPath(), bytes.toByteArray());
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private File fileOf(UUID player) {
+        return new File(folder, player + ".bin");
+    }
+
+    @Override
+    public void close() { }
+
+    @Override
+    public String getName() { return "binary"; }
+}
\ No newline at end of file
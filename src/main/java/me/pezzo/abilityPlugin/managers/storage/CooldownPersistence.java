@@ -0,0 +1,108 @@
+package me.pezzo.abilityPlugin.managers.storage;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Scrittura differita dei cooldown su un {@link CooldownStore}, tutta su un thread dedicato:
+ * un cast segna solo il giocatore come da salvare, e ogni {@code cooldown_storage.flush_interval_ticks}
+ * i giocatori segnati vengono scritti in un solo batch. Più cast tra due scritture diventano una scrittura.
+ */
+public class CooldownPersistence {
+
+    private final AbilityPlugin plugin;
+    private final CooldownStore store;
+    // stato attuale di un giocatore, letto al momento della scrittura
+    private final Function<UUID, Map<String, Long>> snapshot;
+    private final ScheduledExecutorService io;
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    private volatile long totalLoads = 0;
+    private volatile long totalBatches = 0;
+    private volatile long totalWrites = 0;
+    private volatile long totalFailures = 0;
+
+    public CooldownPersistence(AbilityPlugin plugin, CooldownStore store, Function<UUID, Map<String, Long>> snapshot, long flushIntervalTicks) {
+        this.plugin = plugin;
+        this.store = store;
+        this.snapshot = snapshot;
+        this.io = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AbilityPlugin-Cooldowns");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodMillis = Math.max(1L, flushIntervalTicks) * 50L;
+        io.scheduleWithFixedDelay(this::flush, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Il giocatore ha cambiato cooldown: verrà salvato alla prossima scrittura. */
+    public void markDirty(UUID player) {
+        dirty.add(player);
+    }
+
+    /** Legge i cooldown salvati del giocatore sul thread di I/O e li passa a {@code onLoaded}, sullo stesso thread. */
+    public void load(UUID player, BiConsumer<UUID, Map<String, Long>> onLoaded) {
+        io.execute(() -> {
+            try {
+                Map<String, Long> loaded = store.load(player);
+                totalLoads++;
+                if (!loaded.isEmpty()) onLoaded.accept(player, loaded);
+            } catch (IOException | RuntimeException e) {
+                totalFailures++;
+                plugin.getLogger().warning("[Cooldown] lettura fallita per " + player + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void flush() {
+        if (dirty.isEmpty()) return;
+        Map<UUID, Map<String, Long>> batch = new HashMap<>();
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext(); ) {
+            UUID id = it.next();
+            it.remove();
+            batch.put(id, snapshot.apply(id));
+        }
+        try {
+            store.save(batch);
+            totalBatches++;
+            totalWrites += batch.size();
+        } catch (IOException | RuntimeException e) {
+            totalFailures++;
+            // riprova alla prossima scrittura
+            dirty.addAll(batch.keySet());
+            plugin.getLogger().warning("[Cooldown] scrittura fallita (" + batch.size() + " giocatori): " + e.getMessage());
+        }
+    }
+
+    /** Ferma il thread e scrive quello che resta; usato in onDisable. */
+    public void close() {
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(2, TimeUnit.SECONDS)) io.shutdownNow();
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        store.close();
+    }
+
+    public String getBackend() { return store.getName(); }
+    public int getDirtyCount() { return dirty.size(); }
+    public long getTotalLoads() { return totalLoads; }
+    public long getTotalBatches() { return totalBatches; }
+    public long getTotalWrites() { return totalWrites; }
+    public long getTotalFailures() { return totalFailures; }
+}
\ No newline at end of file
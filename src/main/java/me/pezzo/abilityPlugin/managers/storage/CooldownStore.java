@@ -0,0 +1,48 @@
+package me.pezzo.abilityPlugin.managers.storage;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dove finiscono i cooldown ancora attivi tra un riavvio e l'altro.
+ * Le scadenze sono in millisecondi epoch, per nome di {@link me.pezzo.abilityPlugin.enums.AbilityType}:
+ * così sopravvivono sia al riavvio (il nanoTime no) sia a un riordino dell'enum.
+ * Chiamato solo dal thread di {@link CooldownPersistence}.
+ */
+public interface CooldownStore {
+
+    /** Cooldown non ancora scaduti di un giocatore; mappa vuota se non ce ne sono. */
+    Map<String, Long> load(UUID player) throws IOException;
+
+    /** Sostituisce i cooldown salvati dei giocatori nel batch; una mappa vuota li cancella. */
+    void save(Map<UUID, Map<String, Long>> batch) throws IOException;
+
+    void close();
+
+    String getName();
+
+    /** Backend da {@code cooldown_storage.backend}: binary, sqlite o none (null). */
+    static CooldownStore create(AbilityPlugin plugin, String backend) {
+        String name = backend == null ? "binary" : backend.trim().toLowerCase(Locale.ROOT);
+        switch (name) {
+            case "none" -> {
+                return null;
+            }
+            case "sqlite" -> {
+                try {
+                    return SqliteCooldownStore.open(new File(plugin.getDataFolder(), "cooldowns.db"));
+                } catch (IOException e) {
+                    plugin.getLogger().warning("[Cooldown] SQLite non disponibile (" + e.getMessage() + "), uso il formato binario.");
+                }
+            }
+            case "binary" -> { }
+            default -> plugin.getLogger().warning("[Cooldown] cooldown_storage.backend non valido: '" + backend + "'. Uso binary");
+        }
+        return new BinaryCooldownStore(new File(plugin.getDataFolder(), "cooldowns"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package me.pezzo.abilityPlugin.managers.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cooldown in un file SQLite, con il driver incluso nel server.
+ * Una riga per giocatore e abilità; le righe scadute vengono eliminate all'apertura.
+ */
+public class SqliteCooldownStore implements CooldownStore {
+
+    private final Connection connection;
+
+    private SqliteCooldownStore(Connection connection) {
+        this.connection = connection;
+    }
+
+    public static SqliteCooldownStore open(File file) throws IOException {
+        try {
+            Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement st = connection.createStatement()) {
+                st.executeUpdate("CREATE TABLE IF NOT EXISTS cooldowns ("
+                        + "player TEXT NOT NULL, ability TEXT NOT NULL, expires INTEGER NOT NULL, "
+                        + "PRIMARY KEY (player, ability))");
+            }
+            try (PreparedStatement ps = connection.prepareStatement("DELETE FROM cooldowns WHERE expires <= ?")) {
+                ps.setLong(1, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+            return new SqliteCooldownStore(connection);
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> load(UUID player) throws IOException {
+        Map<String, Long> out = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT ability, expires FROM cooldowns WHERE player = ? AND expires > ?")) {
+            ps.setString(1, player.toString());
+            ps.setLong(2, System.currentTimeMillis());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.put(rs.getString(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return out;
+    }
+
+    @Override
+    public void save(Map<UUID, Map<String, Long>> batch) throws IOException {
+        // tutto il batch in una transazione
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM cooldowns WHERE player = ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO cooldowns (player, ability, expires) VALUES (?, ?, ?)")) {
+                for (Map.Entry<UUID, Map<String, Long>> e : batch.entrySet()) {
+                    String id = e.getKey().toString();
+                    delete.setString(1, id);
+                    delete.addBatch();
+                    for (Map.Entry<String, Long> c : e.getValue().entrySet()) {
+                        insert.setString(1, id);
+                        insert.setString(2, c.getKey());
+                        insert.setLong(3, c.getValue());
+                        insert.addBatch();
+                    }
+                }
+                delete.executeBatch();
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public String getName() { return "sqlite"; }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package me.pezzo.abilityPlugin.utils;
+
+final class HashUtil {
+
+    private HashUtil() { }
+
+    // mix moltiplicativo: le chiavi impacchettate hanno bit bassi molto correlati
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h ^= h >>> 16;
+        return (int) h;
+    }
+
+    static int tableSize(int expected, float loadFactor) {
+        int needed = (int) Math.ceil(Math.max(4, expected) / loadFactor);
+        int cap = Integer.highestOneBit(needed - 1) << 1;
+        return Math.max(8, cap);
+    }
+}
@@ -0,0 +1,36 @@
+package me.pezzo.abilityPlugin.utils;
+
+import java.util.Arrays;
+
+/**
+ * Lista di long riutilizzabile: {@link #clear()} non rilascia l'array.
+ */
+public final class LongArrayList {
+
+    private long[] data;
+    private int size;
+
+    public LongArrayList() {
+        this(16);
+    }
+
+    public LongArrayList(int capacity) {
+        data = new long[Math.max(4, capacity)];
+    }
+
+    public void add(long value) {
+        if (size == data.length) data = Arrays.copyOf(data, size * 2);
+        data[size++] = value;
+    }
+
+    public long get(int index) {
+        return data[index];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        size = 0;
+    }
+}
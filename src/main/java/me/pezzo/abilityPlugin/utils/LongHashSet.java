@@ -0,0 +1,143 @@
+package me.pezzo.abilityPlugin.utils;
+
+import java.util.Arrays;
+
+/**
+ * Set di long ad indirizzamento aperto (linear probing), senza boxing.
+ * La chiave 0 è gestita a parte, così l'array può usare 0 come slot libero.
+ *
+ * Iterazione senza allocazioni:
+ * {@code for (int i = set.firstSlot(); i >= 0; i = set.nextSlot(i)) set.keyAt(i)}
+ * (il set non va modificato durante l'iterazione).
+ */
+public final class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expected) {
+        allocate(HashUtil.tableSize(expected, LOAD_FACTOR));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean contains(long key) {
+        if (key == 0) return hasZero;
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size >= resizeAt) rehash(keys.length * 2);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                shiftKeys(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, 0L);
+        hasZero = false;
+        size = 0;
+    }
+
+    /** Primo slot occupato, o -1. Lo slot {@code keys.length} rappresenta la chiave 0. */
+    public int firstSlot() {
+        return nextSlot(-1);
+    }
+
+    public int nextSlot(int slot) {
+        for (int i = slot + 1; i < keys.length; i++) {
+            if (keys[i] != 0) return i;
+        }
+        if (slot < keys.length && hasZero) return keys.length;
+        return -1;
+    }
+
+    public long keyAt(int slot) {
+        return slot == keys.length ? 0L : keys[slot];
+    }
+
+    // cancellazione con backward shift: nessuna tombstone
+    private void shiftKeys(int pos) {
+        int last;
+        long k;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((k = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = HashUtil.mix(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long k : old) {
+            if (k == 0) continue;
+            int i = HashUtil.mix(k) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = k;
+        }
+    }
+}
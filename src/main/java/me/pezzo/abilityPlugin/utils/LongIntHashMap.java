@@ -0,0 +1,155 @@
+package me.pezzo.abilityPlugin.utils;
+
+import java.util.Arrays;
+
+/**
+ * Mappa long -> int ad indirizzamento aperto. {@link #get(long, int)} restituisce
+ * il default indicato quando la chiave manca, così non serve un valore sentinella fisso.
+ */
+public final class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+    private int zeroValue;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expected) {
+        allocate(HashUtil.tableSize(expected, LOAD_FACTOR));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZero;
+        return find(key) >= 0;
+    }
+
+    public int get(long key, int def) {
+        if (key == 0) return hasZero ? zeroValue : def;
+        int i = find(key);
+        return i < 0 ? def : values[i];
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) rehash(keys.length * 2);
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZero) return false;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int i = find(key);
+        if (i < 0) return false;
+        shiftKeys(i);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, 0L);
+        hasZero = false;
+        size = 0;
+    }
+
+    public int firstSlot() {
+        return nextSlot(-1);
+    }
+
+    public int nextSlot(int slot) {
+        for (int i = slot + 1; i < keys.length; i++) {
+            if (keys[i] != 0) return i;
+        }
+        if (slot < keys.length && hasZero) return keys.length;
+        return -1;
+    }
+
+    public long keyAt(int slot) {
+        return slot == keys.length ? 0L : keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return slot == keys.length ? zeroValue : values[slot];
+    }
+
+    private int find(long key) {
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        long k;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((k = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = HashUtil.mix(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == 0) continue;
+            int i = HashUtil.mix(k) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+}
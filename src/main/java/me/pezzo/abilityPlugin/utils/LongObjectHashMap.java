@@ -0,0 +1,169 @@
+package me.pezzo.abilityPlugin.utils;
+
+import java.util.Arrays;
+
+/**
+ * Mappa long -> V ad indirizzamento aperto, senza boxing delle chiavi.
+ * Stessa struttura di {@link LongHashSet}: slot 0 libero, chiave 0 gestita a parte,
+ * iterazione per slot con {@link #firstSlot()}/{@link #nextSlot(int)}.
+ */
+public final class LongObjectHashMap<V> {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+    private Object zeroValue;
+    private int resizeAt;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expected) {
+        allocate(HashUtil.tableSize(expected, LOAD_FACTOR));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZero;
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) return hasZero ? (V) zeroValue : null;
+        int i = find(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            V prev = hasZero ? (V) zeroValue : null;
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = value;
+            return prev;
+        }
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                V prev = (V) values[i];
+                values[i] = value;
+                return prev;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) rehash(keys.length * 2);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            if (!hasZero) return null;
+            V prev = (V) zeroValue;
+            hasZero = false;
+            zeroValue = null;
+            size--;
+            return prev;
+        }
+        int i = find(key);
+        if (i < 0) return null;
+        V prev = (V) values[i];
+        shiftKeys(i);
+        size--;
+        return prev;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        hasZero = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    public int firstSlot() {
+        return nextSlot(-1);
+    }
+
+    public int nextSlot(int slot) {
+        for (int i = slot + 1; i < keys.length; i++) {
+            if (keys[i] != 0) return i;
+        }
+        if (slot < keys.length && hasZero) return keys.length;
+        return -1;
+    }
+
+    public long keyAt(int slot) {
+        return slot == keys.length ? 0L : keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) (slot == keys.length ? zeroValue : values[slot]);
+    }
+
+    private int find(long key) {
+        int i = HashUtil.mix(key) & mask;
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        long k;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((k = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                int slot = HashUtil.mix(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == 0) continue;
+            int i = HashUtil.mix(k) & mask;
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package me.pezzo.abilityPlugin.managers.blocks;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.config.PerformanceConfig;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Un ripristino rimandato a un chunk non caricato deve sopravvivere alla chiusura del journal
+ * ed essere applicato al caricamento del chunk dopo il riavvio.
+ */
+class RestoreJournalTest {
+
+    private static final String ORIGINAL = "minecraft:stone";
+    private static final BlockData ORIGINAL_DATA = mock(BlockData.class);
+
+    @TempDir
+    File dataFolder;
+
+    // i chunk si caricano e scaricano a comando
+    private boolean chunkLoaded = true;
+
+    @BeforeAll
+    static void installServer() {
+        when(ORIGINAL_DATA.getAsString()).thenReturn(ORIGINAL);
+        when(ORIGINAL_DATA.getMaterial()).thenReturn(Material.STONE);
+        Server server = mock(Server.class);
+        when(server.getLogger()).thenReturn(Logger.getLogger("RestoreJournalTest"));
+        when(server.createBlockData(ORIGINAL)).thenReturn(ORIGINAL_DATA);
+        if (Bukkit.getServer() == null) Bukkit.setServer(server);
+    }
+
+    @Test
+    void deferredRestoreSurvivesCloseAndIsReplayed() {
+        AbilityPlugin plugin = plugin();
+        PerformanceConfig config = config();
+        World world = mock(World.class);
+        when(world.getUID()).thenReturn(UUID.randomUUID());
+        when(world.getName()).thenReturn("world");
+        when(world.isChunkLoaded(anyInt(), anyInt())).thenAnswer(i -> chunkLoaded);
+        Block block = mock(Block.class);
+        // il blocco dell'effetto è ancora nel mondo
+        when(block.getType()).thenReturn(Material.BLUE_STAINED_GLASS);
+        when(world.getBlockAt(anyInt(), anyInt(), anyInt())).thenReturn(block);
+        long key = BlockKeys.pack(100, 64, -40);
+
+        // primo avvio: l'effetto registra l'originale e accoda il ripristino, poi il chunk si scarica
+        BlockMutationManager mutations = new BlockMutationManager(plugin, config);
+        RestoreJournal journal = new RestoreJournal(plugin, config, mutations);
+        journal.open();
+        int session = journal.openSession();
+        journal.declarePalette(session, List.of(Material.BLUE_STAINED_GLASS, Material.AIR));
+        journal.record(session, world, key, ORIGINAL_DATA);
+        mutations.submitRestore(world, key, ORIGINAL_DATA, session);
+        journal.closeSession(session);
+
+        chunkLoaded = false;
+        mutations.flushAll();
+        assertEquals(1, mutations.getDeferredPending());
+        assertEquals(1, mutations.getOutstandingRestores(session), "il ripristino rimandato conta ancora per la sessione");
+        journal.close();
+        verify(block, never()).setBlockData(any(BlockData.class), eq(false));
+
+        // riavvio: il ripristino va ritrovato nel journal e applicato al caricamento del chunk
+        BlockMutationManager restarted = new BlockMutationManager(plugin, config);
+        RestoreJournal reopened = new RestoreJournal(plugin, config, restarted);
+        reopened.open();
+        assertEquals(1, reopened.getPendingReplay());
+
+        chunkLoaded = true;
+        Chunk chunk = mock(Chunk.class);
+        when(chunk.getWorld()).thenReturn(world);
+        when(chunk.getX()).thenReturn(100 >> 4);
+        when(chunk.getZ()).thenReturn(-40 >> 4);
+        reopened.onChunkLoad(chunk);
+        restarted.flushAll();
+
+        verify(block).setBlockData(ORIGINAL_DATA, false);
+        assertEquals(1, reopened.getTotalReplayed());
+        assertEquals(0, reopened.getPendingReplay());
+        reopened.close();
+    }
+
+    private AbilityPlugin plugin() {
+        AbilityPlugin plugin = mock(AbilityPlugin.class);
+        TaskExecutor executor = mock(TaskExecutor.class);
+        when(executor.runGlobalTimer(any(Runnable.class), anyLong(), anyLong())).thenReturn(mock(TaskExecutor.Task.class));
+        when(executor.runAsyncTimer(any(Runnable.class), anyLong(), anyLong())).thenReturn(mock(TaskExecutor.Task.class));
+        when(plugin.getTaskExecutor()).thenReturn(executor);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("RestoreJournalTest"));
+        return plugin;
+    }
+
+    private static PerformanceConfig config() {
+        PerformanceConfig config = mock(PerformanceConfig.class);
+        when(config.isJournalEnabled()).thenReturn(true);
+        when(config.getJournalInitialSizeBytes()).thenReturn(64L * 1024);
+        when(config.getJournalMaxSizeBytes()).thenReturn(1024L * 1024);
+        when(config.getJournalForceIntervalTicks()).thenReturn(20L);
+        when(config.getMaxBlocksPerTick()).thenReturn(1500);
+        when(config.getMaxMillisPerTick()).thenReturn(50.0);
+        return config;
+    }
+}
\ No newline at end of file
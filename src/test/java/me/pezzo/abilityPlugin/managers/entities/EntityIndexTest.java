@@ -0,0 +1,89 @@
+package me.pezzo.abilityPlugin.managers.entities;
+
+import me.pezzo.abilityPlugin.AbilityPlugin;
+import me.pezzo.abilityPlugin.managers.scheduler.TaskExecutor;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.util.BoundingBox;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Le query dell'indice devono prendere le entità la cui hitbox tocca la forma,
+ * anche se la loro posizione è fuori o sta in un chunk fuori dal box della query.
+ */
+class EntityIndexTest {
+
+    @Test
+    void queriesMatchHitboxesNotPositions() {
+        // posizione a 5.0 dal centro, hitbox larga 0.6 a 4.7
+        Entity edge = entity(5.5, 64, 8, 0.6, 1.95);
+        // posizione nel chunk -1, hitbox a 4.25 dal centro
+        Entity neighbour = entity(-0.05, 64, 8, 0.6, 1.95);
+        // hitbox oltre i raggi di tutte le query
+        Entity far = entity(11, 64, 8, 0.6, 1.95);
+
+        World world = world(List.of(edge, far), List.of(neighbour));
+        EntityIndex index = new EntityIndex(plugin());
+        List<Entity> out = new ArrayList<>();
+
+        index.querySphere(new Location(world, 0.5, 64, 8), 4.9, TargetFilter.ALL, out);
+        assertTrue(out.contains(edge), "posizione fuori dal raggio, hitbox dentro");
+        assertFalse(out.contains(far));
+
+        // il box della query inizia a x = 0.1: il chunk -1 si legge solo per le hitbox che sporgono
+        index.querySphere(new Location(world, 4.5, 64, 8), 4.4, TargetFilter.ALL, out);
+        assertTrue(out.contains(neighbour), "hitbox che sporge dal chunk accanto");
+        assertFalse(out.contains(far));
+
+        // la colonna guarda la hitbox anche in verticale: i piedi a 64, la testa a 65.95
+        index.queryColumn(new Location(world, 5.5, 0, 8), 1.0, 65.5, 70, TargetFilter.ALL, out);
+        assertEquals(List.of(edge), out);
+    }
+
+    private static Entity entity(double x, double y, double z, double width, double height) {
+        Entity e = mock(Entity.class);
+        when(e.getType()).thenReturn(EntityType.ZOMBIE);
+        double half = width / 2;
+        when(e.getBoundingBox()).thenReturn(new BoundingBox(x - half, y, z - half, x + half, y + height, z + half));
+        return e;
+    }
+
+    // chunk (0, 0) e (-1, 0) con le entità date, gli altri vuoti
+    private static World world(List<Entity> chunk0, List<Entity> chunkWest) {
+        World world = mock(World.class);
+        when(world.isChunkLoaded(anyInt(), anyInt())).thenReturn(true);
+        when(world.getChunkAt(anyInt(), anyInt())).thenAnswer(i -> {
+            int cx = i.getArgument(0), cz = i.getArgument(1);
+            List<Entity> entities = cz != 0 ? List.of() : cx == 0 ? chunk0 : cx == -1 ? chunkWest : List.<Entity>of();
+            Chunk chunk = mock(Chunk.class);
+            when(chunk.getEntities()).thenReturn(entities.toArray(new Entity[0]));
+            return chunk;
+        });
+        return world;
+    }
+
+    private static AbilityPlugin plugin() {
+        AbilityPlugin plugin = mock(AbilityPlugin.class);
+        TaskExecutor executor = mock(TaskExecutor.class);
+        when(executor.isRegionThreaded()).thenReturn(false);
+        when(plugin.getTaskExecutor()).thenReturn(executor);
+        Server server = mock(Server.class);
+        when(server.getCurrentTick()).thenReturn(1);
+        when(plugin.getServer()).thenReturn(server);
+        return plugin;
+    }
+}
@@ -0,0 +1,72 @@
+package me.pezzo.abilityPlugin.managers.entities;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Con un passaggio ogni n tick l'attrazione deve spostare le entità quanto la velocità riapplicata
+ * a ogni tick, nonostante attrito e gravità tra un passaggio e l'altro.
+ */
+class PullSolverTest {
+
+    private static final double CENTER_Y = 64.0;
+    private static final double START_X = 15.0;
+    private static final double RANGE = 20.0;
+    private static final double MAX_PULL = 0.3;
+    private static final int TICKS = 12;
+
+    @Test
+    void intervalPullMatchesEveryTickPull() {
+        // interval 1 e min_delta 0: la velocità viene riapplicata a ogni tick, come prima del solver
+        double[] baseline = simulate(new PullSolver(1, 0.0, 1));
+        double horizontal = START_X - baseline[0];
+        double vertical = baseline[1] - CENTER_Y;
+
+        for (int interval : new int[] {2, 4}) {
+            double[] moved = simulate(new PullSolver(interval, 0.08, 10));
+            assertEquals(horizontal, START_X - moved[0], horizontal * 0.01, "spostamento orizzontale con interval " + interval);
+            assertEquals(vertical, moved[1] - CENTER_Y, vertical * 0.05, "spostamento verticale con interval " + interval);
+            assertEquals(0.0, moved[2], 1e-9);
+        }
+    }
+
+    // un'entità in aria sull'asse x, mossa con attrito e gravità delle entità vive dopo ogni tick
+    private static double[] simulate(PullSolver solver) {
+        double[] state = {START_X, CENTER_Y, 0, 0, 0, 0};
+        Entity entity = mock(Entity.class);
+        UUID id = UUID.randomUUID();
+        when(entity.getUniqueId()).thenReturn(id);
+        when(entity.getLocation()).thenAnswer(i -> new Location(null, state[0], state[1], state[2]));
+        when(entity.getVelocity()).thenAnswer(i -> new Vector(state[3], state[4], state[5]));
+        doAnswer(i -> {
+            Vector v = i.getArgument(0);
+            state[3] = v.getX();
+            state[4] = v.getY();
+            state[5] = v.getZ();
+            return null;
+        }).when(entity).setVelocity(any(Vector.class));
+
+        Location center = new Location(null, 0, CENTER_Y, 0);
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (solver.isDue(tick)) solver.solve(List.of(entity), null, center, RANGE, MAX_PULL, tick);
+            state[0] += state[3];
+            state[1] += state[4];
+            state[2] += state[5];
+            state[3] *= 0.91;
+            state[4] = (state[4] - 0.08) * 0.98;
+            state[5] *= 0.91;
+        }
+        return state;
+    }
+}
\ No newline at end of file